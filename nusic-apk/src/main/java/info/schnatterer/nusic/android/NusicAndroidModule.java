@@ -24,24 +24,31 @@ package info.schnatterer.nusic.android;
 import android.app.Application;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import com.google.inject.name.Names;
 
+import org.apache.http.impl.client.AbstractHttpClient;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
+import roboguice.inject.ContextSingleton;
+
 import info.schnatterer.nusic.R;
 import info.schnatterer.nusic.android.application.NusicApplication;
 import info.schnatterer.nusic.core.ArtistService;
 import info.schnatterer.nusic.core.ConnectivityService;
 import info.schnatterer.nusic.core.DeviceMusicService;
+import info.schnatterer.nusic.core.PendingArtworkService;
 import info.schnatterer.nusic.core.PreferencesService;
 import info.schnatterer.nusic.core.ReleaseService;
 import info.schnatterer.nusic.core.RemoteMusicDatabaseService;
 import info.schnatterer.nusic.core.SyncReleasesService;
 import info.schnatterer.nusic.core.impl.ArtistServiceImpl;
+import info.schnatterer.nusic.core.impl.CachingReleaseService;
 import info.schnatterer.nusic.core.impl.ConnectivityServiceAndroid;
 import info.schnatterer.nusic.core.impl.DeviceMusicServiceAndroid;
+import info.schnatterer.nusic.core.impl.HttpClientProvider;
+import info.schnatterer.nusic.core.impl.PendingArtworkServiceImpl;
 import info.schnatterer.nusic.core.impl.PreferencesServiceSharedPreferences;
-import info.schnatterer.nusic.core.impl.ReleaseServiceImpl;
 import info.schnatterer.nusic.core.impl.RemoteMusicDatabaseServiceMusicBrainz;
 import info.schnatterer.nusic.core.impl.RemoteMusicDatabaseServiceMusicBrainz.ApplicationContact;
 import info.schnatterer.nusic.core.impl.RemoteMusicDatabaseServiceMusicBrainz.ApplicationName;
@@ -50,10 +57,16 @@ import info.schnatterer.nusic.core.impl.SyncReleasesServiceImpl;
 import info.schnatterer.nusic.data.NusicDatabaseSqlite;
 import info.schnatterer.nusic.data.dao.ArtistDao;
 import info.schnatterer.nusic.data.dao.ArtworkDao;
+import info.schnatterer.nusic.data.dao.PendingArtworkDao;
 import info.schnatterer.nusic.data.dao.ReleaseDao;
+import info.schnatterer.nusic.data.dao.TransactionManager;
 import info.schnatterer.nusic.data.dao.fs.ArtworkDaoFileSystem;
 import info.schnatterer.nusic.data.dao.sqlite.ArtistDaoSqlite;
+import info.schnatterer.nusic.data.dao.sqlite.ArtistIdentityMap;
+import info.schnatterer.nusic.data.dao.sqlite.PendingArtworkDaoSqlite;
 import info.schnatterer.nusic.data.dao.sqlite.ReleaseDaoSqlite;
+import info.schnatterer.nusic.data.dao.sqlite.ReleaseDaoSqlite.SharedArtists;
+import info.schnatterer.nusic.data.dao.sqlite.TransactionManagerSqlite;
 
 /**
  * Google guice {@link com.google.inject.Module} that configures the bindings
@@ -87,22 +100,36 @@ public class NusicAndroidModule extends AbstractModule {
         bind(ArtistService.class).to(ArtistServiceImpl.class);
         bind(ConnectivityService.class).to(ConnectivityServiceAndroid.class);
         bind(DeviceMusicService.class).to(DeviceMusicServiceAndroid.class);
+        bind(PendingArtworkService.class).to(PendingArtworkServiceImpl.class);
         bind(PreferencesService.class).to(
             PreferencesServiceSharedPreferences.class);
-        bind(ReleaseService.class).to(ReleaseServiceImpl.class);
+        // Answers the first page of each release list from memory
+        bind(ReleaseService.class).to(CachingReleaseService.class);
         bind(RemoteMusicDatabaseService.class).to(
             RemoteMusicDatabaseServiceMusicBrainz.class);
         bind(SyncReleasesService.class).to(SyncReleasesServiceImpl.class);
+        // One connection pool for all remote services
+        bind(AbstractHttpClient.class).toProvider(HttpClientProvider.class)
+            .in(Singleton.class);
 
         // DAOs
         bind(ReleaseDao.class).to(ReleaseDaoSqlite.class);
         bind(ArtistDao.class).to(ArtistDaoSqlite.class);
+        // ArtworkDaoPackFile stores all artwork in a few files instead
         bind(ArtworkDao.class).to(ArtworkDaoFileSystem.class);
+        bind(PendingArtworkDao.class).to(PendingArtworkDaoSqlite.class);
+        bind(TransactionManager.class).to(TransactionManagerSqlite.class);
+        // Loaders of the same context share their artists
+        bind(ArtistIdentityMap.class).annotatedWith(SharedArtists.class)
+            .to(ArtistIdentityMap.class).in(ContextSingleton.class);
 
         // Resources
         bind(String.class).annotatedWith(ApplicationName.class).toInstance(application.getString(R.string.app_name));
         bind(String.class).annotatedWith(ApplicationVersion.class).toInstance(NusicApplication.getCurrentVersionName());
         bind(String.class).annotatedWith(ApplicationContact.class).toInstance(application.getString(R.string.app_url));
+        bind(Long.class).annotatedWith(Names.named("ArtworkCacheMaxBytes")).toInstance((long) application.getResources().getInteger(R.integer.artwork_cache_max_bytes));
+        bind(Long.class).annotatedWith(Names.named("LargeArtworkCacheMaxBytes")).toInstance((long) application.getResources().getInteger(R.integer.large_artwork_cache_max_bytes));
+        bind(Long.class).annotatedWith(Names.named("HttpCacheMaxBytes")).toInstance((long) application.getResources().getInteger(R.integer.http_cache_max_bytes));
 
         bind(String.class).annotatedWith(Names.named("PreferencesKeyDownloadOnlyOnWifi")).toInstance(application.getString(R.string.preferences_key_download_only_on_wifi));
         bind(Boolean.class).annotatedWith(Names.named("PreferencesDefaultDownloadOnlyOnWifi")).toInstance(application.getResources().getBoolean(R.bool.preferences_default_download_only_on_wifi));
@@ -41,7 +41,9 @@ public enum CoreMessageKey {
 
     ERROR_FINDING_RELEASE_ARTIST("ServiceException_errorFindingReleasesArtist"),
 
-    ERROR_LOADING_ARTISTS("ServiceException_errorLoadingArtists");
+    ERROR_LOADING_ARTISTS("ServiceException_errorLoadingArtists"),
+
+    ERROR_DOWNLOADING_ARTWORK("ServiceException_errorDownloadingArtwork");
 
     public static final String CORE_BUNDLE_NAME = "CoreBundle";
     /**
@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import info.schnatterer.nusic.core.PreferencesService;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Limits the rate of requests to MusicBrainz, adapting it to what the server
+ * currently allows (additive increase, multiplicative decrease): Each
+ * successful request increases the rate a little, up to the documented
+ * budget. Each time the server answers with "service unavailable" or asks to
+ * retry later, the rate is halved and requests are paused as long as
+ * requested.<br/>
+ * <br/>
+ * The learned rate is stored in {@link PreferencesService}, so the next sync
+ * starts where the last one ended. The rate and the number of rejections are
+ * logged with each sync (see {@link SyncReleasesServiceImpl}).
+ *
+ * @author schnatterer
+ *
+ */
+@Singleton
+public class AdaptiveRateLimiter {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(AdaptiveRateLimiter.class);
+
+    /** MusicBrainz allows at max 22 requests in 20 seconds. */
+    static final double MAX_PERMITS_PER_SECOND = 22.0 / 20;
+    static final double MIN_PERMITS_PER_SECOND = 1.0 / 20;
+    /** Used until a rate was learned. Known to work in most cases. */
+    static final double DEFAULT_PERMITS_PER_SECOND = 1.0;
+    /** Added to the rate for each successful request. */
+    static final double ADDITIVE_INCREASE = 0.01;
+    /** The rate is multiplied by this when the server rejects requests. */
+    static final double MULTIPLICATIVE_DECREASE = 0.5;
+    /**
+     * Requests sent concurrently are likely to be rejected all at once. Treat
+     * them as one rejection by not decreasing the rate again within this
+     * time.
+     */
+    static final long DECREASE_INTERVAL_MILLIS = TimeUnit.SECONDS
+            .toMillis(5);
+    /** Pause when the server rejects a request without saying how long. */
+    static final long DEFAULT_PAUSE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    /** Don't obey a server asking for longer pauses than this. */
+    static final long MAX_PAUSE_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    /** Persist the rate after this number of increases. */
+    private static final int PERSIST_INTERVAL = 20;
+
+    private final Provider<PreferencesService> preferencesServiceProvider;
+    private final RateLimiter rateLimiter;
+    private double rate;
+    private long pausedUntil = 0;
+    private long lastDecrease = 0;
+    private int changesSincePersisted = 0;
+    private int nThrottled = 0;
+
+    @Inject
+    public AdaptiveRateLimiter(
+            Provider<PreferencesService> preferencesServiceProvider) {
+        this(preferencesServiceProvider, preferencesServiceProvider.get()
+                .getMusicBrainzRequestRate());
+    }
+
+    /**
+     * @param preferencesServiceProvider
+     *            <code>null</code> does not persist the rate
+     * @param rate
+     *            the initial rate. Values <code>&lt;= 0</code> use the
+     *            default.
+     */
+    AdaptiveRateLimiter(
+            Provider<PreferencesService> preferencesServiceProvider,
+            double rate) {
+        this.preferencesServiceProvider = preferencesServiceProvider;
+        if (rate <= 0) {
+            rate = DEFAULT_PERMITS_PER_SECOND;
+        }
+        this.rate = limit(rate);
+        rateLimiter = RateLimiter.create(this.rate);
+        LOG.debug("MusicBrainz request rate: " + this.rate + "/s");
+    }
+
+    /**
+     * Blocks until the next request may be sent.
+     */
+    public void acquire() {
+        long pause;
+        synchronized (this) {
+            pause = pausedUntil - System.currentTimeMillis();
+        }
+        if (pause > 0) {
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        rateLimiter.acquire();
+    }
+
+    /**
+     * Call after the server accepted a request. Increases the rate.
+     */
+    public void onSuccess() {
+        synchronized (this) {
+            if (rate >= MAX_PERMITS_PER_SECOND) {
+                return;
+            }
+            setRate(rate + ADDITIVE_INCREASE);
+            if (++changesSincePersisted < PERSIST_INTERVAL) {
+                return;
+            }
+        }
+        persist();
+    }
+
+    /**
+     * Call after the server rejected a request because of its rate, e.g. with
+     * <code>503 Service Unavailable</code> or a <code>Retry-After</code>
+     * header. Decreases the rate and pauses requests.
+     *
+     * @param retryAfterMillis
+     *            the pause requested by the server, <code>&lt;= 0</code> if
+     *            none
+     */
+    public void onThrottled(long retryAfterMillis) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            nThrottled++;
+            long pause = retryAfterMillis > 0 ? Math.min(retryAfterMillis,
+                    MAX_PAUSE_MILLIS) : DEFAULT_PAUSE_MILLIS;
+            pausedUntil = Math.max(pausedUntil, now + pause);
+            if (now - lastDecrease < DECREASE_INTERVAL_MILLIS) {
+                return;
+            }
+            lastDecrease = now;
+            setRate(rate * MULTIPLICATIVE_DECREASE);
+            LOG.info("MusicBrainz rejected request, decreasing rate to "
+                    + rate + "/s, pausing " + pause + "ms");
+        }
+        persist();
+    }
+
+    /**
+     * @return the number of requests per second currently allowed
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the number of requests rejected by the server so far, including
+     *         the ones that did not decrease the rate
+     */
+    public synchronized int getThrottledCount() {
+        return nThrottled;
+    }
+
+    private void setRate(double newRate) {
+        rate = limit(newRate);
+        rateLimiter.setRate(rate);
+    }
+
+    private void persist() {
+        double persistedRate;
+        synchronized (this) {
+            changesSincePersisted = 0;
+            persistedRate = rate;
+        }
+        LOG.debug("MusicBrainz request rate: " + persistedRate + "/s");
+        if (preferencesServiceProvider != null) {
+            preferencesServiceProvider.get().setMusicBrainzRequestRate(
+                    (float) persistedRate);
+        }
+    }
+
+    private static double limit(double rate) {
+        return Math.max(MIN_PERMITS_PER_SECOND,
+                Math.min(MAX_PERMITS_PER_SECOND, rate));
+    }
+}
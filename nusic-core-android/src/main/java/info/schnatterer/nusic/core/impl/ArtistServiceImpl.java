@@ -27,7 +27,17 @@ import info.schnatterer.nusic.core.ServiceException;
 import info.schnatterer.nusic.core.i18n.CoreMessageKey;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.dao.ArtistDao;
+import info.schnatterer.nusic.data.dao.PendingArtworkDao;
+import info.schnatterer.nusic.data.dao.TransactionManager;
 import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.Release;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import javax.inject.Inject;
 
@@ -43,6 +53,13 @@ public class ArtistServiceImpl implements ArtistService {
     private ReleaseService releaseService;
     @Inject
     private ArtistDao artistDao;
+    @Inject
+    private TransactionManager transactionManager;
+    @Inject
+    private PendingArtworkDao pendingArtworkDao;
+    /** The releases of hidden artists are no longer visible. */
+    @Inject
+    private ReleaseCache releaseCache;
 
     @Override
     public long save(Artist artist) throws ServiceException {
@@ -70,17 +87,26 @@ public class ArtistServiceImpl implements ArtistService {
     }
 
     @Override
-    public long saveOrUpdate(Artist artist) throws ServiceException {
+    public int updateIsHidden(Artist artist) throws ServiceException {
+        boolean isHidden = Boolean.TRUE.equals(artist.isHidden());
         try {
-            // Does artist exist?
-            if (artist.getId() == null) {
-                Artist existingArtist = artistDao.findByAndroidId(artist
-                        .getAndroidAudioArtistId());
-                if (existingArtist != null) {
-                    artist.setId(existingArtist.getId());
-                    artist.setDateCreated(existingArtist.getDateCreated());
-                }
+            return artistDao.setIsHidden(artist.getId(), isHidden);
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
+        } finally {
+            if (isHidden) {
+                releaseCache.removeByArtistId(artist.getId());
+            } else {
+                releaseCache.invalidate();
             }
+        }
+    }
+
+    @Override
+    public long saveOrUpdate(Artist artist) throws ServiceException {
+        try {
+            loadExisting(artist);
             if (artist.getId() == null) {
                 save(artist);
             } else {
@@ -92,4 +118,179 @@ public class ArtistServiceImpl implements ArtistService {
                     CoreMessageKey.ERROR_WRITING_TO_DB, e);
         }
     }
+
+    @Override
+    public void saveOrUpdate(List<Artist> artists) throws ServiceException {
+        List<Artist> newArtists = new LinkedList<Artist>();
+        List<Artist> existingArtists = new LinkedList<Artist>();
+        List<Release> releases = new LinkedList<Release>();
+        try {
+            transactionManager.beginTransaction();
+            try {
+                for (Artist artist : artists) {
+                    loadExisting(artist);
+                    if (artist.getId() == null) {
+                        newArtists.add(artist);
+                    } else {
+                        existingArtists.add(artist);
+                    }
+                    releases.addAll(artist.getReleases());
+                }
+                artistDao.saveAll(newArtists);
+                artistDao.updateAll(existingArtists);
+                // All artists are persisted now
+                releaseService.saveOrUpdate(releases, false);
+                transactionManager.setTransactionSuccessful();
+            } finally {
+                transactionManager.endTransaction();
+            }
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
+        }
+    }
+
+    /**
+     * Sets the ID and the date created of an artist that already exists
+     * (matching by {@link Artist#getAndroidAudioArtistId()}).
+     */
+    private void loadExisting(Artist artist) throws DatabaseException {
+        // Does artist exist?
+        if (artist.getId() == null) {
+            Artist existingArtist = artistDao.findByAndroidId(artist
+                    .getAndroidAudioArtistId());
+            if (existingArtist != null) {
+                artist.setId(existingArtist.getId());
+                artist.setDateCreated(existingArtist.getDateCreated());
+            }
+        }
+    }
+
+    @Override
+    public Reconciliation startReconciliation() throws ServiceException {
+        try {
+            return new ReconciliationImpl(artistDao.findAllByAndroidId());
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_READING_FROM_DB, e);
+        }
+    }
+
+    /**
+     * Deletes artists, their releases and their pending artwork within one
+     * transaction.
+     */
+    private void delete(Collection<Artist> artists) throws ServiceException {
+        if (artists.isEmpty()) {
+            return;
+        }
+        try {
+            transactionManager.beginTransaction();
+            try {
+                for (Artist artist : artists) {
+                    pendingArtworkDao.deleteByArtistId(artist.getId());
+                    releaseService.deleteByArtistId(artist.getId());
+                    artistDao.delete(artist);
+                }
+                transactionManager.setTransactionSuccessful();
+            } finally {
+                transactionManager.endTransaction();
+            }
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
+        }
+    }
+
+    private class ReconciliationImpl implements Reconciliation {
+        /**
+         * Stored artists that have not been matched yet, by android ID. The
+         * keys are boxed, as the DAO is plain Java. For a few thousand
+         * artists, that's negligible compared to the artists themselves.
+         */
+        private final Map<Long, Artist> unmatchedArtists;
+        /** Stored artists that have not been matched yet, by name. */
+        private final Map<String, Artist> unmatchedArtistsByName;
+        private int nMatched = 0;
+
+        public ReconciliationImpl(Map<Long, Artist> storedArtists) {
+            this.unmatchedArtists = storedArtists;
+            unmatchedArtistsByName = new HashMap<String, Artist>(
+                    storedArtists.size());
+            for (Artist storedArtist : storedArtists.values()) {
+                String name = normalizeArtistName(storedArtist);
+                if (name != null) {
+                    unmatchedArtistsByName.put(name, storedArtist);
+                }
+            }
+        }
+
+        @Override
+        public void match(Artist deviceArtist) {
+            nMatched++;
+            String name = normalizeArtistName(deviceArtist);
+            Artist storedArtist = unmatchedArtists.get(deviceArtist
+                    .getAndroidAudioArtistId());
+            String storedName = storedArtist == null ? null
+                    : normalizeArtistName(storedArtist);
+            if (storedName != null && name != null
+                    && !name.equals(storedName)) {
+                // The android ID was reused for another artist
+                storedArtist = null;
+            }
+            if (storedArtist == null && name != null) {
+                // The android ID might have changed
+                storedArtist = unmatchedArtistsByName.get(name);
+            }
+            if (storedArtist != null) {
+                unmatchedArtists.remove(storedArtist
+                        .getAndroidAudioArtistId());
+                storedName = normalizeArtistName(storedArtist);
+                if (unmatchedArtistsByName.get(storedName) == storedArtist) {
+                    unmatchedArtistsByName.remove(storedName);
+                }
+                deviceArtist.setId(storedArtist.getId());
+                deviceArtist.setDateCreated(storedArtist.getDateCreated());
+                deviceArtist.setDateLastSynced(storedArtist
+                        .getDateLastSynced());
+                if (deviceArtist.getMusicBrainzId() == null && name != null
+                        && name.equals(storedName)) {
+                    /*
+                     * Allows for querying by MusicBrainz ID instead of name.
+                     * Only if the names match, so the ID is never handed over
+                     * to another artist.
+                     */
+                    deviceArtist.setMusicBrainzId(storedArtist
+                            .getMusicBrainzId());
+                }
+            }
+        }
+
+        @Override
+        public int deleteUnmatched() throws ServiceException {
+            if (nMatched == 0) {
+                /*
+                 * More likely a problem accessing the device's storage than
+                 * the user having removed all music.
+                 */
+                return 0;
+            }
+            int nDeleted = unmatchedArtists.size();
+            delete(unmatchedArtists.values());
+            unmatchedArtists.clear();
+            unmatchedArtistsByName.clear();
+            return nDeleted;
+        }
+    }
+
+    /**
+     * @return the name of the artist in a form that can be compared or
+     *         <code>null</code> if it has no name
+     */
+    private static String normalizeArtistName(Artist artist) {
+        if (artist.getArtistName() == null) {
+            return null;
+        }
+        return artist.getArtistName().trim().toLowerCase(Locale.US);
+    }
 }
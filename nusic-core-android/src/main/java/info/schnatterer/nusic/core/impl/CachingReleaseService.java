@@ -0,0 +1,316 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import static info.schnatterer.nusic.util.DateUtil.toEpochDay;
+import static info.schnatterer.nusic.util.DateUtil.todayEpochDay;
+import info.schnatterer.nusic.core.ReleaseService;
+import info.schnatterer.nusic.core.ServiceException;
+import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+/**
+ * {@link ReleaseService} that answers the first page of each release list
+ * (just added, available, announced, all) from memory, see
+ * {@link ReleaseCache}. So switching tabs or hiding a release does not query
+ * the database again. Further pages, cursors and everything else are
+ * delegated to {@link ReleaseServiceImpl}, so memory does not grow with the
+ * number of releases in the database.<br/>
+ * <br/>
+ * Writes keep the cache up to date: {@link #update(Release)} and
+ * {@link #deleteByArtistId(long)} change it in place, the
+ * <code>saveOrUpdate()</code> methods used by the sync and
+ * {@link #showAll()} invalidate it.
+ * 
+ * @author schnatterer
+ *
+ */
+public class CachingReleaseService implements ReleaseService {
+    private static final String LIST_ALL = "all";
+    private static final String LIST_AVAILABLE = "available";
+    private static final String LIST_ANNOUNCED = "announced";
+    private static final String LIST_JUST_CREATED = "justCreated";
+
+    @Inject
+    private ReleaseServiceImpl delegate;
+    @Inject
+    private ReleaseCache cache;
+
+    public CachingReleaseService() {
+    }
+
+    /**
+     * Creates an instance without dependency injection, e.g. for testing.
+     */
+    CachingReleaseService(ReleaseServiceImpl delegate, ReleaseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public int update(Release release) throws ServiceException {
+        int ret = delegate.update(release);
+        cache.update(release);
+        return ret;
+    }
+
+    @Override
+    public void saveOrUpdate(List<Release> releases) throws ServiceException {
+        try {
+            delegate.saveOrUpdate(releases);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void saveOrUpdate(List<Release> releases, boolean saveArtist)
+            throws ServiceException {
+        try {
+            delegate.saveOrUpdate(releases, saveArtist);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public long saveOrUpdate(Release release) throws ServiceException {
+        try {
+            return delegate.saveOrUpdate(release);
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public void deleteByArtistId(long artistId) throws ServiceException {
+        try {
+            delegate.deleteByArtistId(artistId);
+        } finally {
+            cache.removeByArtistId(artistId);
+        }
+    }
+
+    @Override
+    public void showAll() throws ServiceException {
+        try {
+            delegate.showAll();
+        } finally {
+            cache.invalidate();
+        }
+    }
+
+    @Override
+    public List<Release> findByDateCreatedGreaterThan(long gtDateCreated)
+            throws ServiceException {
+        return delegate.findByDateCreatedGreaterThan(gtDateCreated);
+    }
+
+    @Override
+    public List<Release> findReleasedToday() throws ServiceException {
+        return delegate.findReleasedToday();
+    }
+
+    @Override
+    public List<Release> findAvailableToday(boolean isAvailable)
+            throws ServiceException {
+        return delegate.findAvailableToday(isAvailable);
+    }
+
+    @Override
+    public List<Release> findAvailableToday(final boolean isAvailable,
+            Release after, int limit) throws ServiceException {
+        PageQuery query = new PageQuery() {
+            @Override
+            public List<Release> find(Release after, int limit)
+                    throws ServiceException {
+                return delegate.findAvailableToday(isAvailable, after, limit);
+            }
+        };
+        int today = todayEpochDay();
+        if (isAvailable) {
+            return findPage(LIST_AVAILABLE,
+                    delegate.createReleaseDayLowerLimit() + "-" + today, null,
+                    after, limit, query);
+        } else {
+            return findPage(LIST_ANNOUNCED, String.valueOf(today), null,
+                    after, limit, query);
+        }
+    }
+
+    @Override
+    public ReleaseCursor queryAvailableToday(boolean isAvailable)
+            throws ServiceException {
+        return delegate.queryAvailableToday(isAvailable);
+    }
+
+    @Override
+    public List<Release> findAllNotHidden() throws ServiceException {
+        return delegate.findAllNotHidden();
+    }
+
+    @Override
+    public List<Release> findAllNotHidden(Release after, int limit)
+            throws ServiceException {
+        return findPage(LIST_ALL,
+                String.valueOf(delegate.createReleaseDayLowerLimit()), null,
+                after, limit, new PageQuery() {
+                    @Override
+                    public List<Release> find(Release after, int limit)
+                            throws ServiceException {
+                        return delegate.findAllNotHidden(after, limit);
+                    }
+                });
+    }
+
+    @Override
+    public ReleaseCursor queryAllNotHidden() throws ServiceException {
+        return delegate.queryAllNotHidden();
+    }
+
+    @Override
+    public List<Release> findJustCreated() throws ServiceException {
+        return delegate.findJustCreated();
+    }
+
+    @Override
+    public List<Release> findJustCreated(Release after, int limit)
+            throws ServiceException {
+        long dateCreatedLowerLimit = delegate.createDateCreatedLowerLimit();
+        /*
+         * The lower limit moves on all the time. Reuse the window during the
+         * day, dropping the releases that are no longer "just created".
+         */
+        return findPage(LIST_JUST_CREATED,
+                String.valueOf(toEpochDay(dateCreatedLowerLimit)),
+                new DateCreatedFilter(dateCreatedLowerLimit), after, limit,
+                new PageQuery() {
+                    @Override
+                    public List<Release> find(Release after, int limit)
+                            throws ServiceException {
+                        return delegate.findJustCreated(after, limit);
+                    }
+                });
+    }
+
+    @Override
+    public ReleaseCursor queryJustCreated() throws ServiceException {
+        return delegate.queryJustCreated();
+    }
+
+    /**
+     * Answers the first page of a release list from the cache. Releases that
+     * were removed from the cached window (e.g. hidden) are replaced by
+     * querying only the missing releases.
+     * 
+     * @param list
+     *            identifies the release list in the cache
+     * @param bounds
+     *            the bounds of the list's predicate. The cached window is
+     *            only used if it was loaded with the same bounds.
+     * @param filter
+     *            removes releases from the cached window that no longer
+     *            belong to the list. <code>null</code> keeps all of them.
+     * @param after
+     *            the last release of the previous page. <code>null</code> for
+     *            the first page.
+     * @param limit
+     *            the maximum number of releases to return
+     * @param query
+     *            queries the list from the database
+     * @return at most <code>limit</code> releases that follow
+     *         <code>after</code>
+     */
+    private List<Release> findPage(String list, String bounds, Filter filter,
+            Release after, int limit, PageQuery query) throws ServiceException {
+        if (after != null) {
+            // Only the first page is cached
+            return query.find(after, limit);
+        }
+        int generation = cache.getGeneration();
+        ReleaseCache.Window window = cache.get(list, bounds);
+        List<Release> releases;
+        boolean isComplete;
+        if (window == null) {
+            releases = query.find(null, limit);
+            isComplete = releases.size() < limit;
+        } else {
+            releases = select(window.getReleases(), filter);
+            isComplete = window.isComplete();
+            if (releases.size() >= limit || isComplete) {
+                return new ArrayList<Release>(releases.subList(0,
+                        Math.min(limit, releases.size())));
+            }
+            // Releases were removed from the window, query the missing ones
+            int nMissing = limit - releases.size();
+            List<Release> missing = query.find(releases.isEmpty() ? null
+                    : releases.get(releases.size() - 1), nMissing);
+            isComplete = missing.size() < nMissing;
+            releases.addAll(missing);
+        }
+        cache.put(list, new ReleaseCache.Window(bounds, releases, isComplete),
+                generation);
+        return releases;
+    }
+
+    /**
+     * @return the releases that are accepted by <code>filter</code>
+     */
+    private static List<Release> select(List<Release> releases, Filter filter) {
+        List<Release> selected = new ArrayList<Release>(releases.size());
+        for (Release release : releases) {
+            if (filter == null || filter.accept(release)) {
+                selected.add(release);
+            }
+        }
+        return selected;
+    }
+
+    /** Queries a page of one of the release lists from the delegate. */
+    private interface PageQuery {
+        List<Release> find(Release after, int limit) throws ServiceException;
+    }
+
+    private interface Filter {
+        boolean accept(Release release);
+    }
+
+    /** Accepts releases where <code>dateCreated &gt; gt</code>. */
+    private static class DateCreatedFilter implements Filter {
+        private final long gt;
+
+        public DateCreatedFilter(long gt) {
+            this.gt = gt;
+        }
+
+        @Override
+        public boolean accept(Release release) {
+            return release.getDateCreated() != null
+                    && release.getDateCreated().getTime() > gt;
+        }
+    }
+}
@@ -26,6 +26,8 @@ import info.schnatterer.nusic.core.ServiceException;
 import info.schnatterer.nusic.core.i18n.CoreMessageKey;
 import info.schnatterer.nusic.data.model.Artist;
 
+import java.util.NoSuchElementException;
+
 import javax.inject.Inject;
 
 import android.content.ContentResolver;
@@ -53,34 +55,89 @@ public class DeviceMusicServiceAndroid implements DeviceMusicService {
 
     @Override
     public Artist[] getArtists() throws ServiceException {
-        ContentResolver contentResolver = context.getContentResolver();
-        Cursor cursor = null;
-        Artist[] artists = null;
+        ArtistIterator iterator = getArtistIterator();
         try {
-
-            cursor = contentResolver.query(ARTIST_URI, ARTIST_PROJECTION, null,
-                    null, ARTIST_SORT_ORDER);
-            if (cursor != null) {
-                artists = new Artist[cursor.getCount()];
-                int i = 0;
-                while (cursor.moveToNext()) {
-                    Artist artist = new Artist();
-                    artist.setAndroidAudioArtistId(cursor
-                            .getLong(ArtistProjection.ID.getIndex()));
-                    artist.setArtistName(cursor
-                            .getString(ArtistProjection.ARTIST.getIndex()));
-                    artists[i++] = artist;
-                }
+            Artist[] artists = new Artist[iterator.getCount()];
+            int i = 0;
+            while (iterator.hasNext()) {
+                artists[i++] = iterator.next();
             }
+            return artists;
         } catch (Exception e) {
             throw new AndroidServiceException(
                     CoreMessageKey.ERROR_LOADING_ARTISTS, e);
         } finally {
+            iterator.close();
+        }
+    }
+
+    @Override
+    public ArtistIterator getArtistIterator() throws ServiceException {
+        ContentResolver contentResolver = context.getContentResolver();
+        try {
+            return new CursorArtistIterator(contentResolver.query(ARTIST_URI,
+                    ARTIST_PROJECTION, null, null, ARTIST_SORT_ORDER));
+        } catch (Exception e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_LOADING_ARTISTS, e);
+        }
+    }
+
+    /**
+     * Creates an {@link Artist} for each row of a cursor, when it is iterated.
+     */
+    private static class CursorArtistIterator implements ArtistIterator {
+        private Cursor cursor;
+
+        /**
+         * @param cursor
+         *            can be <code>null</code>, which results in an empty
+         *            iterator
+         */
+        public CursorArtistIterator(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public int getCount() {
+            if (cursor == null) {
+                return 0;
+            }
+            return cursor.getCount();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor != null && !cursor.isClosed()
+                    && cursor.getPosition() < cursor.getCount() - 1;
+        }
+
+        @Override
+        public Artist next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            cursor.moveToNext();
+            Artist artist = new Artist();
+            artist.setAndroidAudioArtistId(cursor.getLong(ArtistProjection.ID
+                    .getIndex()));
+            artist.setArtistName(cursor.getString(ArtistProjection.ARTIST
+                    .getIndex()));
+            return artist;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
             if (cursor != null) {
                 cursor.close();
+                cursor = null;
             }
         }
-        return artists;
     }
 
     public enum ArtistProjection {
@@ -0,0 +1,391 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import info.schnatterer.nusic.core.impl.HttpResponseCache.CachedResponse;
+import info.schnatterer.nusic.core.impl.RemoteMusicDatabaseServiceMusicBrainz.ApplicationContact;
+import info.schnatterer.nusic.core.impl.RemoteMusicDatabaseServiceMusicBrainz.ApplicationName;
+import info.schnatterer.nusic.core.impl.RemoteMusicDatabaseServiceMusicBrainz.ApplicationVersion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Creates the HTTP client that is shared by all remote services (MusicBrainz
+ * and Cover Art Archive). Instead of setting up a new connection for each
+ * request, the client keeps the connections alive in a pool that can be used
+ * from several threads at once. As there is only one {@link SSLSocketFactory},
+ * TLS sessions are resumed instead of negotiated again. Responses are
+ * requested gzip compressed. The responses of MusicBrainz are reported to the
+ * {@link AdaptiveRateLimiter} and kept in the {@link HttpResponseCache}, so
+ * the same query can be revalidated later on instead of being downloaded
+ * again.<br/>
+ * <br/>
+ * Bind this in singleton scope. In tests, the binding can be replaced by a
+ * client that talks to a local server.
+ *
+ * @author schnatterer
+ *
+ */
+public class HttpClientProvider implements Provider<AbstractHttpClient> {
+    /** Sync and artwork download threads query concurrently. */
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+    private static final int MAX_CONNECTIONS_TOTAL = 8;
+    private static final int TIMEOUT_MILLIS = 30 * 1000;
+    private static final int SOCKET_BUFFER_SIZE = 8 * 1024;
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String ENCODING_GZIP = "gzip";
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+    private static final String HOST_MUSIC_BRAINZ = "musicbrainz.org";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String METHOD_GET = "GET";
+    private static final String ATTRIBUTE_CACHE_KEY = "nusic.cache.key";
+    private static final String ATTRIBUTE_CACHED_RESPONSE = "nusic.cache.response";
+
+    private final String appName;
+    private final String appVersion;
+    private final String appContact;
+    private final AdaptiveRateLimiter rateLimiter;
+    private final HttpResponseCache responseCache;
+
+    /**
+     * @param appName
+     *            application name used in user agent string of request. If
+     *            <code>null</code>, the default user agent string is used.
+     * @param appVersion
+     *            application version used in user agent string of request
+     * @param appContact
+     *            contact URL or author email used in user agent string of
+     *            request
+     * @param rateLimiter
+     *            limits the requests to MusicBrainz
+     * @param responseCache
+     *            stores the responses of MusicBrainz
+     */
+    @Inject
+    public HttpClientProvider(@ApplicationName String appName,
+            @ApplicationVersion String appVersion,
+            @ApplicationContact String appContact,
+            AdaptiveRateLimiter rateLimiter, HttpResponseCache responseCache) {
+        this.appName = appName;
+        this.appVersion = appVersion;
+        this.appContact = appContact;
+        this.rateLimiter = rateLimiter;
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public AbstractHttpClient get() {
+        HttpParams params = new BasicHttpParams();
+        ConnManagerParams.setMaxTotalConnections(params, MAX_CONNECTIONS_TOTAL);
+        ConnManagerParams.setMaxConnectionsPerRoute(params,
+                new ConnPerRouteBean(MAX_CONNECTIONS_PER_ROUTE));
+        ConnManagerParams.setTimeout(params, TIMEOUT_MILLIS);
+        HttpConnectionParams.setConnectionTimeout(params, TIMEOUT_MILLIS);
+        HttpConnectionParams.setSoTimeout(params, TIMEOUT_MILLIS);
+        HttpConnectionParams.setSocketBufferSize(params, SOCKET_BUFFER_SIZE);
+        // Pooled connections might have been closed by the server meanwhile
+        HttpConnectionParams.setStaleCheckingEnabled(params, true);
+        if (appName != null) {
+            HttpProtocolParams.setUserAgent(params, createUserAgent());
+        }
+
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", PlainSocketFactory
+                .getSocketFactory(), 80));
+        schemeRegistry.register(new Scheme("https", SSLSocketFactory
+                .getSocketFactory(), 443));
+
+        DefaultHttpClient httpClient = new DefaultHttpClient(
+                new ThreadSafeClientConnManager(params, schemeRegistry), params);
+        httpClient.addRequestInterceptor(new GzipRequestInterceptor());
+        ResponseCacheInterceptor responseCacheInterceptor = new ResponseCacheInterceptor(
+                responseCache);
+        httpClient.addRequestInterceptor(responseCacheInterceptor);
+        // Order matters: Cache decompressed content
+        httpClient.addResponseInterceptor(new GzipResponseInterceptor());
+        httpClient.addResponseInterceptor(responseCacheInterceptor);
+        httpClient.addResponseInterceptor(new RateLimitResponseInterceptor(
+                rateLimiter));
+        return httpClient;
+    }
+
+    /**
+     * @return the user agent in the format requested by MusicBrainz, e.g.
+     *         <code>nusic/1.0 ( http://example.com )</code>
+     */
+    private String createUserAgent() {
+        StringBuilder userAgent = new StringBuilder(appName);
+        if (appVersion != null) {
+            userAgent.append('/').append(appVersion);
+        }
+        if (appContact != null) {
+            userAgent.append(" ( ").append(appContact).append(" )");
+        }
+        return userAgent.toString();
+    }
+
+    /**
+     * Asks for compressed responses, unless the request does so already.
+     */
+    private static class GzipRequestInterceptor implements
+            HttpRequestInterceptor {
+        @Override
+        public void process(HttpRequest request, HttpContext context)
+                throws HttpException, IOException {
+            if (!request.containsHeader(HEADER_ACCEPT_ENCODING)) {
+                request.addHeader(HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
+            }
+        }
+    }
+
+    /**
+     * Transparently decompresses responses that were compressed.
+     */
+    private static class GzipResponseInterceptor implements
+            HttpResponseInterceptor {
+        @Override
+        public void process(HttpResponse response, HttpContext context)
+                throws HttpException, IOException {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return;
+            }
+            Header contentEncoding = entity.getContentEncoding();
+            if (contentEncoding == null) {
+                return;
+            }
+            for (HeaderElement element : contentEncoding.getElements()) {
+                if (ENCODING_GZIP.equalsIgnoreCase(element.getName())) {
+                    response.setEntity(new GzipDecompressingEntity(entity));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests MusicBrainz conditionally, if there is a cached response. If
+     * the server answers that it has not changed, the cached response is
+     * returned instead. Otherwise the new response is stored, if it can be
+     * revalidated later on.
+     */
+    private static class ResponseCacheInterceptor implements
+            HttpRequestInterceptor, HttpResponseInterceptor {
+        private final HttpResponseCache responseCache;
+
+        public ResponseCacheInterceptor(HttpResponseCache responseCache) {
+            this.responseCache = responseCache;
+        }
+
+        @Override
+        public void process(HttpRequest request, HttpContext context)
+                throws HttpException, IOException {
+            HttpHost host = (HttpHost) context
+                    .getAttribute(ExecutionContext.HTTP_TARGET_HOST);
+            if (!isMusicBrainz(host)
+                    || !METHOD_GET.equals(request.getRequestLine().getMethod())) {
+                return;
+            }
+            String key = HttpResponseCache.createKey(host.toURI()
+                    + request.getRequestLine().getUri());
+            context.setAttribute(ATTRIBUTE_CACHE_KEY, key);
+            CachedResponse cachedResponse = responseCache.get(key);
+            if (cachedResponse == null) {
+                return;
+            }
+            // Keep it, it might be evicted until the response arrives
+            context.setAttribute(ATTRIBUTE_CACHED_RESPONSE, cachedResponse);
+            if (cachedResponse.getETag() != null) {
+                request.setHeader(HEADER_IF_NONE_MATCH,
+                        cachedResponse.getETag());
+            }
+            if (cachedResponse.getLastModified() != null) {
+                request.setHeader(HEADER_IF_MODIFIED_SINCE,
+                        cachedResponse.getLastModified());
+            }
+        }
+
+        @Override
+        public void process(HttpResponse response, HttpContext context)
+                throws HttpException, IOException {
+            String key = (String) context.getAttribute(ATTRIBUTE_CACHE_KEY);
+            if (key == null) {
+                return;
+            }
+            int statusCode = response.getStatusLine().getStatusCode();
+            CachedResponse cachedResponse = (CachedResponse) context
+                    .getAttribute(ATTRIBUTE_CACHED_RESPONSE);
+            if (statusCode == HttpStatus.SC_NOT_MODIFIED
+                    && cachedResponse != null) {
+                response.setStatusLine(response.getStatusLine()
+                        .getProtocolVersion(), HttpStatus.SC_OK, "OK");
+                response.setEntity(createEntity(cachedResponse));
+                responseCache.touch(key);
+            } else if (statusCode == HttpStatus.SC_OK
+                    && response.getEntity() != null) {
+                Header eTag = response.getFirstHeader(HEADER_ETAG);
+                Header lastModified = response
+                        .getFirstHeader(HEADER_LAST_MODIFIED);
+                if (eTag == null && lastModified == null) {
+                    // Can't be revalidated
+                    responseCache.remove(key);
+                    return;
+                }
+                Header contentType = response.getEntity().getContentType();
+                CachedResponse newResponse = new CachedResponse(
+                        getValue(eTag), getValue(lastModified),
+                        getValue(contentType),
+                        EntityUtils.toByteArray(response.getEntity()));
+                responseCache.put(key, newResponse);
+                // The original content has been consumed
+                response.setEntity(createEntity(newResponse));
+            }
+        }
+
+        private static ByteArrayEntity createEntity(
+                CachedResponse cachedResponse) {
+            ByteArrayEntity entity = new ByteArrayEntity(
+                    cachedResponse.getBody());
+            entity.setContentType(cachedResponse.getContentType());
+            return entity;
+        }
+
+        private static String getValue(Header header) {
+            return header != null ? header.getValue() : null;
+        }
+    }
+
+    private static boolean isMusicBrainz(HttpHost host) {
+        return host != null && host.getHostName().endsWith(HOST_MUSIC_BRAINZ);
+    }
+
+    /**
+     * Tells the {@link AdaptiveRateLimiter} whether MusicBrainz accepted a
+     * request or asked to slow down.
+     */
+    private static class RateLimitResponseInterceptor implements
+            HttpResponseInterceptor {
+        private final AdaptiveRateLimiter rateLimiter;
+
+        public RateLimitResponseInterceptor(AdaptiveRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+        }
+
+        @Override
+        public void process(HttpResponse response, HttpContext context)
+                throws HttpException, IOException {
+            HttpHost host = (HttpHost) context
+                    .getAttribute(ExecutionContext.HTTP_TARGET_HOST);
+            if (!isMusicBrainz(host)) {
+                return;
+            }
+            int statusCode = response.getStatusLine().getStatusCode();
+            Header retryAfter = response.getFirstHeader(HEADER_RETRY_AFTER);
+            if (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
+                    || statusCode == SC_TOO_MANY_REQUESTS
+                    || retryAfter != null) {
+                rateLimiter.onThrottled(parseRetryAfterMillis(retryAfter));
+            } else if (statusCode < HttpStatus.SC_BAD_REQUEST) {
+                rateLimiter.onSuccess();
+            }
+        }
+
+        /**
+         * @return the pause requested in milliseconds or <code>0</code> if
+         *         none (or an HTTP date, which MusicBrainz does not send)
+         */
+        private static long parseRetryAfterMillis(Header retryAfter) {
+            if (retryAfter == null) {
+                return 0;
+            }
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter
+                        .getValue().trim()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    private static class GzipDecompressingEntity extends HttpEntityWrapper {
+        public GzipDecompressingEntity(HttpEntity entity) {
+            super(entity);
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new GZIPInputStream(wrappedEntity.getContent());
+        }
+
+        @Override
+        public long getContentLength() {
+            // The length of the decompressed content is unknown
+            return -1;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            // The content returned is no longer encoded
+            return null;
+        }
+    }
+}
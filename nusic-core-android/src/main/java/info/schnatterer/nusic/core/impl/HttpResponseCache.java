@@ -0,0 +1,264 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import info.schnatterer.nusic.util.LruFileIndex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import android.content.Context;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * Stores HTTP responses on disk, together with their <code>ETag</code> and
+ * <code>Last-Modified</code> headers. This allows for requesting them
+ * conditionally, so the server only sends a response if it has changed since.
+ * <br/>
+ * <br/>
+ * The size of the cache is bounded. When it is exceeded, the least recently
+ * used responses are deleted first, as tracked by a {@link LruFileIndex}.
+ *
+ * @author schnatterer
+ *
+ */
+@Singleton
+public class HttpResponseCache {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(HttpResponseCache.class);
+
+    public static final String BASEDIR_PATH = "http";
+
+    @Inject
+    private Context context;
+    @Inject
+    @Named("HttpCacheMaxBytes")
+    private Long maxBytes;
+
+    private File dir;
+    private final LruFileIndex index = new LruFileIndex();
+
+    HttpResponseCache() {
+    }
+
+    HttpResponseCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        index.init(dir);
+    }
+
+    @Inject
+    private void init() {
+        dir = new File(context.getCacheDir(), BASEDIR_PATH);
+        index.init(dir);
+    }
+
+    /**
+     * @param uri
+     *            the URI of the request, including host and query
+     * @return the key of the response to a request. Requests that differ only
+     *         in the order of the query parameters have the same key.
+     */
+    public static String createKey(String uri) {
+        String normalizedUri = uri;
+        int queryIndex = uri.indexOf('?');
+        if (queryIndex >= 0) {
+            String[] params = uri.substring(queryIndex + 1).split("&");
+            Arrays.sort(params);
+            StringBuilder builder = new StringBuilder(uri.substring(0,
+                    queryIndex + 1));
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    builder.append('&');
+                }
+                builder.append(params[i]);
+            }
+            normalizedUri = builder.toString();
+        }
+        return Hashing.sha1().hashString(normalizedUri, Charsets.UTF_8)
+                .toString();
+    }
+
+    /**
+     * @return the response stored for the key or <code>null</code> if none
+     */
+    public synchronized CachedResponse get(String key) {
+        if (!index.contains(key)) {
+            return null;
+        }
+        File file = new File(dir, key);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+            String eTag = readNullableString(in);
+            String lastModified = readNullableString(in);
+            String contentType = readNullableString(in);
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedResponse(eTag, lastModified, contentType, body);
+        } catch (IOException e) {
+            LOG.warn("Unable to read cached response, deleting " + file, e);
+            remove(key);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Stores a response, evicting least recently used responses if the cache
+     * gets too large.
+     */
+    public synchronized void put(String key, CachedResponse response) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            LOG.warn("Unable to create cache directory " + dir);
+            return;
+        }
+        File file = new File(dir, key);
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(file)));
+            writeNullableString(out, response.getETag());
+            writeNullableString(out, response.getLastModified());
+            writeNullableString(out, response.getContentType());
+            out.writeInt(response.getBody().length);
+            out.write(response.getBody());
+            out.close();
+        } catch (IOException e) {
+            LOG.warn("Unable to write cached response " + file, e);
+            closeQuietly(out);
+            remove(key);
+            return;
+        }
+        List<String> evicted = index.put(key, file.length(),
+                System.currentTimeMillis(), maxBytes);
+        for (String evictedKey : evicted) {
+            delete(new File(dir, evictedKey));
+        }
+    }
+
+    /**
+     * Marks a response as used, so it is evicted last.
+     */
+    public synchronized void touch(String key) {
+        long now = System.currentTimeMillis();
+        if (index.touch(key, now)) {
+            new File(dir, key).setLastModified(now);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        index.remove(key);
+        File file = new File(dir, key);
+        if (file.exists()) {
+            delete(file);
+        }
+    }
+
+    synchronized long getTotalBytes() {
+        return index.getTotalBytes();
+    }
+
+    private void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            LOG.warn("Unable to delete cached response " + file);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            LOG.debug("Unable to close stream", e);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String s)
+            throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in)
+            throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * The body of a response and the headers needed for revalidating it.
+     */
+    public static class CachedResponse {
+        private final String eTag;
+        private final String lastModified;
+        private final String contentType;
+        private final byte[] body;
+
+        public CachedResponse(String eTag, String lastModified,
+                String contentType, byte[] body) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import info.schnatterer.nusic.core.PendingArtworkService;
+import info.schnatterer.nusic.core.RemoteMusicDatabaseService;
+import info.schnatterer.nusic.core.ServiceException;
+import info.schnatterer.nusic.core.i18n.CoreMessageKey;
+import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.dao.ArtworkDao;
+import info.schnatterer.nusic.data.dao.PendingArtworkDao;
+import info.schnatterer.nusic.data.dao.ReleaseDao;
+import info.schnatterer.nusic.data.model.ArtworkType;
+import info.schnatterer.nusic.data.model.PendingArtwork;
+import info.schnatterer.nusic.data.model.Release;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link PendingArtworkService}. Downloads the
+ * artwork using a pool of worker threads, while all database access takes
+ * place in the calling thread.
+ *
+ * @author schnatterer
+ *
+ */
+public class PendingArtworkServiceImpl implements PendingArtworkService {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(PendingArtworkServiceImpl.class);
+
+    /** Threads downloading artwork, independent of the rate limit. */
+    private static final int DOWNLOAD_THREADS = 2;
+    /** Max number of pending artworks loaded from the database at once. */
+    private static final int BATCH_SIZE = 20;
+    /** Delay before the first retry. Doubled with each further attempt. */
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES
+            .toMillis(30);
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.DAYS
+            .toMillis(7);
+    /** Artwork is removed from the queue after this number of failures. */
+    private static final int MAX_ATTEMPTS = 8;
+    /**
+     * Delay before checking again whether artwork was added for a release that
+     * had none.
+     */
+    private static final long NO_ARTWORK_RETRY_DELAY_MILLIS = TimeUnit.DAYS
+            .toMillis(30);
+
+    @Inject
+    private PendingArtworkDao pendingArtworkDao;
+    @Inject
+    private ReleaseDao releaseDao;
+    @Inject
+    private ArtworkDao artworkDao;
+    @Inject
+    private RemoteMusicDatabaseService remoteMusicDatabaseService;
+
+    @Override
+    public void addPendingArtwork(List<Release> releases)
+            throws ServiceException {
+        List<PendingArtwork> pendingArtworks = new ArrayList<PendingArtwork>(
+                releases.size());
+        try {
+            for (Release release : releases) {
+                // Looks up the artwork index in memory, not the file system
+                if (release.getId() != null
+                        && release.getMusicBrainzId() != null
+                        && !artworkDao.exists(release, ArtworkType.SMALL)) {
+                    pendingArtworks.add(new PendingArtwork(release));
+                }
+            }
+            pendingArtworkDao.saveIfAbsent(pendingArtworks);
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
+        }
+    }
+
+    @Override
+    public int downloadPendingArtwork() throws ServiceException {
+        int nDownloaded = 0;
+        // Artwork failing from now on is scheduled after now, so this ends
+        Date now = new Date();
+        ExecutorService executor = Executors
+                .newFixedThreadPool(DOWNLOAD_THREADS);
+        try {
+            List<PendingArtwork> pendingArtworks;
+            while (!(pendingArtworks = pendingArtworkDao
+                    .findByDateNextAttemptLessThanEquals(now.getTime(),
+                            BATCH_SIZE)).isEmpty()) {
+                List<Future<Boolean>> downloads = new ArrayList<Future<Boolean>>(
+                        pendingArtworks.size());
+                for (PendingArtwork pendingArtwork : pendingArtworks) {
+                    downloads.add(executor.submit(new DownloadTask(
+                            pendingArtwork.getRelease())));
+                }
+                for (int i = 0; i < pendingArtworks.size(); i++) {
+                    PendingArtwork pendingArtwork = pendingArtworks.get(i);
+                    try {
+                        if (downloads.get(i).get()) {
+                            downloaded(pendingArtwork);
+                            nDownloaded++;
+                        } else {
+                            noArtwork(pendingArtwork, now);
+                        }
+                    } catch (ExecutionException e) {
+                        failed(pendingArtwork, now, e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.debug("Download of pending artwork interrupted", e);
+            Thread.currentThread().interrupt();
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return nDownloaded;
+    }
+
+    @Override
+    public int deleteOrphanedArtwork() throws ServiceException {
+        try {
+            return artworkDao.deleteByMusicBrainzIdNotIn(releaseDao
+                    .findAllMusicBrainzIds());
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
+        }
+    }
+
+    private void downloaded(PendingArtwork pendingArtwork)
+            throws DatabaseException {
+        Release release = pendingArtwork.getRelease();
+        if (release.getCoverartArchiveId() != null) {
+            releaseDao.setCoverartArchiveId(release.getId(),
+                    release.getCoverartArchiveId());
+        }
+        pendingArtworkDao.delete(pendingArtwork);
+    }
+
+    /**
+     * Keeps the release in the queue, so it is not queued again with each
+     * sync, but only checks again after {@link #NO_ARTWORK_RETRY_DELAY_MILLIS}
+     * whether artwork was added meanwhile.
+     */
+    private void noArtwork(PendingArtwork pendingArtwork, Date now)
+            throws DatabaseException {
+        LOG.debug("No artwork for release, checking again later: "
+                + pendingArtwork.getRelease());
+        pendingArtwork.setAttempts(0);
+        pendingArtwork.setDateNextAttempt(new Date(now.getTime()
+                + NO_ARTWORK_RETRY_DELAY_MILLIS));
+        pendingArtworkDao.update(pendingArtwork);
+    }
+
+    /**
+     * Schedules the next attempt using an exponential backoff or removes the
+     * artwork from the queue after {@link #MAX_ATTEMPTS}.
+     */
+    private void failed(PendingArtwork pendingArtwork, Date now,
+            Throwable cause) throws DatabaseException {
+        int attempts = pendingArtwork.getAttempts() + 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            LOG.warn("Unable to download artwork, giving up after " + attempts
+                    + " attempts: " + pendingArtwork.getRelease(), cause);
+            pendingArtworkDao.delete(pendingArtwork);
+            return;
+        }
+        LOG.debug("Unable to download artwork, retrying later: "
+                + pendingArtwork.getRelease(), cause);
+        long delay = Math.min(RETRY_DELAY_MILLIS << (attempts - 1),
+                MAX_RETRY_DELAY_MILLIS);
+        pendingArtwork.setAttempts(attempts);
+        pendingArtwork.setDateNextAttempt(new Date(now.getTime() + delay));
+        pendingArtworkDao.update(pendingArtwork);
+    }
+
+    /**
+     * Downloads the artwork of one release, without accessing the database.
+     */
+    private class DownloadTask implements Callable<Boolean> {
+        private final Release release;
+
+        public DownloadTask(Release release) {
+            this.release = release;
+        }
+
+        @Override
+        public Boolean call() throws ServiceException {
+            return remoteMusicDatabaseService.downloadArtwork(release);
+        }
+    }
+}
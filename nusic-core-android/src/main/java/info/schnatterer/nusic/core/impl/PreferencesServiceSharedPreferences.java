@@ -58,6 +58,25 @@ public class PreferencesServiceSharedPreferences implements PreferencesService,
     public final String KEY_LAST_RELEASES_REFRESH = "last_release_refresh";
     public final Date DEFAULT_LAST_RELEASES_REFRESH = null;
 
+    public final String KEY_LAST_FULL_RELEASES_REFRESH = "last_full_release_refresh";
+    public final Date DEFAULT_LAST_FULL_RELEASES_REFRESH = null;
+
+    public final String KEY_LAST_FULL_RELEASES_REFRESH_TIME_PERIOD = "last_full_release_refresh_time_period";
+    public final int DEFAULT_LAST_FULL_RELEASES_REFRESH_TIME_PERIOD = 0;
+
+    private final String KEY_FULL_RELEASES_REFRESH_PERIOD = "full_release_refresh_period";
+    private final int DEFAULT_FULL_RELEASES_REFRESH_PERIOD = 30;
+
+    public final String KEY_SYNC_CHECKPOINT_RUN_DATE = "sync_checkpoint_run_date";
+    public final String KEY_SYNC_CHECKPOINT_START_DATE = "sync_checkpoint_start_date";
+    public final String KEY_SYNC_CHECKPOINT_END_DATE = "sync_checkpoint_end_date";
+    public final String KEY_SYNC_CHECKPOINT_FULL_SYNC = "sync_checkpoint_full_sync";
+    public final String KEY_SYNC_CHECKPOINT_INDEX = "sync_checkpoint_index";
+    public final int DEFAULT_SYNC_CHECKPOINT_INDEX = -1;
+
+    public final String KEY_MUSIC_BRAINZ_REQUEST_RATE = "music_brainz_request_rate";
+    public final float DEFAULT_MUSIC_BRAINZ_REQUEST_RATE = 0f;
+
     public final String KEY_NEXT_RELEASES_REFRESH = "next_release_refresh";
     public final Date DEFAULT_NEXT_RELEASES_REFRESH = null;
 
@@ -200,6 +219,125 @@ public class PreferencesServiceSharedPreferences implements PreferencesService,
                 .commit();
     }
 
+    @Override
+    public Date getLastFullReleaseRefresh() {
+        long lastFullReleaseRefreshMillis = sharedPreferences.getLong(
+                KEY_LAST_FULL_RELEASES_REFRESH, 0);
+        if (lastFullReleaseRefreshMillis == 0) {
+            return DEFAULT_LAST_FULL_RELEASES_REFRESH;
+        }
+        return DateUtil.toDate(lastFullReleaseRefreshMillis);
+    }
+
+    @Override
+    public int getLastFullReleaseRefreshTimePeriod() {
+        return sharedPreferences.getInt(
+                KEY_LAST_FULL_RELEASES_REFRESH_TIME_PERIOD,
+                DEFAULT_LAST_FULL_RELEASES_REFRESH_TIME_PERIOD);
+    }
+
+    @Override
+    public boolean setLastFullReleaseRefresh(Date date,
+            int downloadReleasesTimePeriod) {
+        return sharedPreferences
+                .edit()
+                .putLong(KEY_LAST_FULL_RELEASES_REFRESH, DateUtil.toLong(date))
+                .putInt(KEY_LAST_FULL_RELEASES_REFRESH_TIME_PERIOD,
+                        downloadReleasesTimePeriod).commit();
+    }
+
+    @Override
+    public int getFullReleaseRefreshPeriod() {
+        return sharedPreferences.getInt(KEY_FULL_RELEASES_REFRESH_PERIOD,
+                DEFAULT_FULL_RELEASES_REFRESH_PERIOD);
+    }
+
+    @Override
+    public Date getSyncCheckpointRunDate() {
+        return getDateOrNull(KEY_SYNC_CHECKPOINT_RUN_DATE);
+    }
+
+    @Override
+    public Date getSyncCheckpointStartDate() {
+        return getDateOrNull(KEY_SYNC_CHECKPOINT_START_DATE);
+    }
+
+    @Override
+    public Date getSyncCheckpointEndDate() {
+        return getDateOrNull(KEY_SYNC_CHECKPOINT_END_DATE);
+    }
+
+    @Override
+    public boolean isSyncCheckpointFullSync() {
+        return sharedPreferences.getBoolean(KEY_SYNC_CHECKPOINT_FULL_SYNC,
+                false);
+    }
+
+    @Override
+    public int getSyncCheckpointIndex() {
+        return sharedPreferences.getInt(KEY_SYNC_CHECKPOINT_INDEX,
+                DEFAULT_SYNC_CHECKPOINT_INDEX);
+    }
+
+    @Override
+    public boolean setSyncCheckpoint(Date runDate, Date startDate,
+            Date endDate, boolean fullSync) {
+        SharedPreferences.Editor editor = sharedPreferences.edit()
+                .putLong(KEY_SYNC_CHECKPOINT_RUN_DATE, runDate.getTime())
+                .putBoolean(KEY_SYNC_CHECKPOINT_FULL_SYNC, fullSync)
+                .putInt(KEY_SYNC_CHECKPOINT_INDEX, DEFAULT_SYNC_CHECKPOINT_INDEX);
+        putDateOrRemove(editor, KEY_SYNC_CHECKPOINT_START_DATE, startDate);
+        putDateOrRemove(editor, KEY_SYNC_CHECKPOINT_END_DATE, endDate);
+        return editor.commit();
+    }
+
+    @Override
+    public boolean setSyncCheckpointIndex(int index) {
+        return sharedPreferences.edit()
+                .putInt(KEY_SYNC_CHECKPOINT_INDEX, index).commit();
+    }
+
+    @Override
+    public boolean clearSyncCheckpoint() {
+        return sharedPreferences.edit().remove(KEY_SYNC_CHECKPOINT_RUN_DATE)
+                .remove(KEY_SYNC_CHECKPOINT_START_DATE)
+                .remove(KEY_SYNC_CHECKPOINT_END_DATE)
+                .remove(KEY_SYNC_CHECKPOINT_FULL_SYNC)
+                .remove(KEY_SYNC_CHECKPOINT_INDEX).commit();
+    }
+
+    @Override
+    public float getMusicBrainzRequestRate() {
+        return sharedPreferences.getFloat(KEY_MUSIC_BRAINZ_REQUEST_RATE,
+                DEFAULT_MUSIC_BRAINZ_REQUEST_RATE);
+    }
+
+    @Override
+    public boolean setMusicBrainzRequestRate(float rate) {
+        return sharedPreferences.edit()
+                .putFloat(KEY_MUSIC_BRAINZ_REQUEST_RATE, rate).commit();
+    }
+
+    /**
+     * @return the date stored at <code>key</code> or <code>null</code> if
+     *         none
+     */
+    private Date getDateOrNull(String key) {
+        if (!sharedPreferences.contains(key)) {
+            return null;
+        }
+        return DateUtil.toDate(sharedPreferences.getLong(key, 0));
+    }
+
+    private static void putDateOrRemove(SharedPreferences.Editor editor,
+            String key, Date date) {
+        if (date != null) {
+            editor.putLong(key, date.getTime());
+        } else {
+            editor.remove(key);
+        }
+    }
+
     @Override
     public Date getNextReleaseRefresh() {
         long nextReleaseRefreshMillis = sharedPreferences.getLong(
@@ -0,0 +1,222 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import info.schnatterer.nusic.data.model.Release;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+/**
+ * Holds the first page of each release list in memory, see
+ * {@link CachingReleaseService}. The cache grows with the number of releases
+ * displayed, not with the number of releases in the database.<br/>
+ * <br/>
+ * A {@link Window} is never modified, changes replace it. So callers can keep
+ * working on the window they got, while the cache is changed. The cache does
+ * not depend on any other object, so it can be a {@link Singleton} without
+ * holding any context.
+ * 
+ * @author schnatterer
+ *
+ */
+@Singleton
+public class ReleaseCache {
+    /** Windows by list. */
+    private final Map<String, Window> windows = new HashMap<String, Window>();
+    /** Incremented on each change, so outdated loads are not cached. */
+    private int generation = 0;
+
+    /**
+     * @param list
+     *            identifies the release list
+     * @param bounds
+     *            the bounds of the list's predicate (e.g. today's date) the
+     *            window must have been loaded with
+     * @return the first page of the release list or <code>null</code> if it
+     *         has to be loaded first
+     */
+    public synchronized Window get(String list, String bounds) {
+        Window window = windows.get(list);
+        if (window == null || !window.bounds.equals(bounds)) {
+            return null;
+        }
+        return window;
+    }
+
+    /**
+     * @return the value to pass to {@link #put(String, Window, int)}. Read it
+     *         before loading the releases.
+     */
+    public synchronized int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the first page of a release list, unless the cache was changed
+     * since <code>generation</code> was read, because then the releases might
+     * be outdated.
+     * 
+     * @param list
+     *            identifies the release list
+     * @param window
+     *            the first page of the list
+     * @param generation
+     *            the result of {@link #getGeneration()} before loading
+     *            <code>window</code>
+     */
+    public synchronized void put(String list, Window window, int generation) {
+        if (generation == this.generation) {
+            windows.put(list, window);
+        }
+    }
+
+    /**
+     * Reflects a change of a single release, e.g. hiding it. Hidden releases
+     * are removed from the windows. A release that is visible might move to
+     * another position or into a window, so all windows are dropped.
+     */
+    public synchronized void update(Release release) {
+        generation++;
+        if (release.getId() == null) {
+            return;
+        }
+        if (isVisible(release)) {
+            windows.clear();
+            return;
+        }
+        Iterator<Map.Entry<String, Window>> it = windows.entrySet()
+                .iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Window> entry = it.next();
+            List<Release> releases = new ArrayList<Release>(entry.getValue()
+                    .getReleases());
+            if (remove(releases, release.getId())) {
+                entry.setValue(entry.getValue().replace(releases));
+            }
+        }
+    }
+
+    /**
+     * Reflects deleting all releases of an artist.
+     */
+    public synchronized void removeByArtistId(long artistId) {
+        generation++;
+        Iterator<Map.Entry<String, Window>> it = windows.entrySet()
+                .iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Window> entry = it.next();
+            List<Release> releases = new ArrayList<Release>(entry.getValue()
+                    .getReleases());
+            boolean removed = false;
+            Iterator<Release> releaseIt = releases.iterator();
+            while (releaseIt.hasNext()) {
+                Release release = releaseIt.next();
+                if (release.getArtist() != null
+                        && Long.valueOf(artistId).equals(
+                                release.getArtist().getId())) {
+                    releaseIt.remove();
+                    removed = true;
+                }
+            }
+            if (removed) {
+                entry.setValue(entry.getValue().replace(releases));
+            }
+        }
+    }
+
+    /**
+     * Makes sure the releases are loaded again on next access.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        windows.clear();
+    }
+
+    private static boolean remove(List<Release> releases, long id) {
+        Iterator<Release> it = releases.iterator();
+        while (it.hasNext()) {
+            if (Long.valueOf(id).equals(it.next().getId())) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVisible(Release release) {
+        return !Boolean.TRUE.equals(release.isHidden())
+                && release.getReleaseDate() != null
+                && (release.getArtist() == null || !Boolean.TRUE
+                        .equals(release.getArtist().isHidden()));
+    }
+
+    /**
+     * The first releases of a release list, in the order of the list.
+     */
+    public static class Window {
+        private final String bounds;
+        private final List<Release> releases;
+        private final boolean isComplete;
+
+        /**
+         * @param bounds
+         *            the bounds of the list's predicate the releases were
+         *            loaded with
+         * @param releases
+         *            the first releases of the list
+         * @param isComplete
+         *            <code>true</code> if <code>releases</code> is the whole
+         *            list
+         */
+        public Window(String bounds, List<Release> releases,
+                boolean isComplete) {
+            this.bounds = bounds;
+            this.releases = Collections
+                    .unmodifiableList(new ArrayList<Release>(releases));
+            this.isComplete = isComplete;
+        }
+
+        public List<Release> getReleases() {
+            return releases;
+        }
+
+        /**
+         * @return <code>true</code> if the window contains the whole list.
+         *         <code>false</code> if there might be releases after the last
+         *         one of the window.
+         */
+        public boolean isComplete() {
+            return isComplete;
+        }
+
+        private Window replace(List<Release> newReleases) {
+            return new Window(bounds, newReleases, isComplete);
+        }
+    }
+}
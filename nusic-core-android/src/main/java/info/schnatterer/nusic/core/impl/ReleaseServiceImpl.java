@@ -21,8 +21,9 @@
  */
 package info.schnatterer.nusic.core.impl;
 
-import static info.schnatterer.nusic.util.DateUtil.todayMidnightUtc;
-import static info.schnatterer.nusic.util.DateUtil.tomorrowMidnightUtc;
+import static info.schnatterer.nusic.util.DateUtil.MILLIS_PER_DAY;
+import static info.schnatterer.nusic.util.DateUtil.toEpochDay;
+import static info.schnatterer.nusic.util.DateUtil.todayEpochDay;
 import info.schnatterer.nusic.core.PreferencesService;
 import info.schnatterer.nusic.core.ReleaseService;
 import info.schnatterer.nusic.core.ServiceException;
@@ -30,10 +31,14 @@ import info.schnatterer.nusic.core.i18n.CoreMessageKey;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.dao.ArtistDao;
 import info.schnatterer.nusic.data.dao.ReleaseDao;
+import info.schnatterer.nusic.data.dao.TransactionManager;
 import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
 
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.TimeZone;
 
 import javax.inject.Inject;
 
@@ -50,6 +55,8 @@ public class ReleaseServiceImpl implements ReleaseService {
     private ArtistDao artistDao;
     @Inject
     private PreferencesService preferencesService;
+    @Inject
+    private TransactionManager transactionManager;
 
     @Override
     public int update(Release release) throws ServiceException {
@@ -74,46 +81,38 @@ public class ReleaseServiceImpl implements ReleaseService {
             return;
         }
 
-        for (Release release : releases) {
+        try {
+            transactionManager.beginTransaction();
             try {
-                /* Get existing artist */
-                if (release.getArtist() == null && saveArtist) {
-                    if (release.getArtist().getId() == null) {
-                        Long existingArtist = artistDao
-                                .findIdByAndroidId(release.getArtist()
-                                        .getAndroidAudioArtistId());
-                        if (existingArtist == null) {
-                            artistDao.save(release.getArtist());
+                for (Release release : releases) {
+                    /* Get existing artist */
+                    if (release.getArtist() == null && saveArtist) {
+                        if (release.getArtist().getId() == null) {
+                            Long existingArtist = artistDao
+                                    .findIdByAndroidId(release.getArtist()
+                                            .getAndroidAudioArtistId());
+                            if (existingArtist == null) {
+                                artistDao.save(release.getArtist());
+                            }
                         }
                     }
                 }
-
-                saveOrUpdate(release);
-            } catch (Exception e) {
-                throw new AndroidServiceException(
-                        CoreMessageKey.ERROR_WRITING_TO_DB, e);
+                // Upsert by MusicBrainz ID, never overwrites date created
+                releaseDao.saveOrUpdateAll(releases);
+                transactionManager.setTransactionSuccessful();
+            } finally {
+                transactionManager.endTransaction();
             }
+        } catch (Exception e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
         }
     }
 
     @Override
     public long saveOrUpdate(Release release) throws ServiceException {
-        // Does release exist?
         try {
-            if (release.getId() == null) {
-                Release existingRelease = releaseDao
-                        .findByMusicBrainzId(release.getMusicBrainzId());
-                if (existingRelease != null) {
-                    release.setId(existingRelease.getId());
-                    // Never overwrite date created!
-                    release.setDateCreated(existingRelease.getDateCreated());
-                }
-            }
-            if (release.getId() == null) {
-                releaseDao.save(release);
-            } else {
-                releaseDao.update(release);
-            }
+            releaseDao.saveOrUpdateAll(Collections.singletonList(release));
             return release.getId();
         } catch (DatabaseException e) {
             throw new AndroidServiceException(
@@ -123,10 +122,19 @@ public class ReleaseServiceImpl implements ReleaseService {
 
     @Override
     public List<Release> findJustCreated() throws ServiceException {
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.DAY_OF_MONTH,
-                -preferencesService.getJustAddedTimePeriod());
-        return findByDateCreatedGreaterThan(cal.getTimeInMillis());
+        return findByDateCreatedGreaterThan(createDateCreatedLowerLimit());
+    }
+
+    @Override
+    public List<Release> findJustCreated(Release after, int limit)
+            throws ServiceException {
+        try {
+            return releaseDao.findByDateCreatedGreaterThanAndIsHiddenNotTrue(
+                    createDateCreatedLowerLimit(), after, limit);
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_READING_FROM_DB, e);
+        }
     }
 
     @Override
@@ -145,14 +153,15 @@ public class ReleaseServiceImpl implements ReleaseService {
     public List<Release> findReleasedToday() throws ServiceException {
         try {
             /*
-             * Find all releases that are released between today 00:00:00h and
-             * before tomorrow 00:00:00h. As the dates are strored as UTC
-             * values, find out the dates in UTC first.
+             * Find all releases that are released on the local date. As the
+             * dates are stored as UTC values, the release day is the local
+             * date's day.
              */
             // Don't care about the order
+            int today = todayEpochDay();
             return releaseDao
-                    .findByReleaseDateGreaterThanEqualsAndReleaseDateLessThanAndIsHiddenNotTrue(
-                            todayMidnightUtc(), tomorrowMidnightUtc());
+                    .findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+                            today, today + 1);
         } catch (DatabaseException e) {
             throw new AndroidServiceException(
                     CoreMessageKey.ERROR_READING_FROM_DB, e);
@@ -165,13 +174,34 @@ public class ReleaseServiceImpl implements ReleaseService {
         try {
             if (isAvailable) {
                 return releaseDao
-                        .findByReleaseDateGreaterThanEqualsAndReleaseDateLessThanAndIsHiddenNotTrue(
-                                createReleaseDateLowerLimit(),
-                                tomorrowMidnightUtc());
+                        .findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+                                createReleaseDayLowerLimit(),
+                                todayEpochDay() + 1);
+            } else {
+                // Announced
+                return releaseDao
+                        .findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(todayEpochDay() + 1);
+            }
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_READING_FROM_DB, e);
+        }
+    }
+
+    @Override
+    public List<Release> findAvailableToday(boolean isAvailable,
+            Release after, int limit) throws ServiceException {
+        try {
+            if (isAvailable) {
+                return releaseDao
+                        .findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+                                createReleaseDayLowerLimit(),
+                                todayEpochDay() + 1, after, limit);
             } else {
                 // Announced
                 return releaseDao
-                        .findByReleaseDateGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(tomorrowMidnightUtc());
+                        .findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
+                                todayEpochDay() + 1, after, limit);
             }
         } catch (DatabaseException e) {
             throw new AndroidServiceException(
@@ -183,13 +213,78 @@ public class ReleaseServiceImpl implements ReleaseService {
     public List<Release> findAllNotHidden() throws ServiceException {
         try {
             return releaseDao
-                    .findByReleaseDateGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(createReleaseDateLowerLimit());
+                    .findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(createReleaseDayLowerLimit());
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_READING_FROM_DB, e);
+        }
+    }
+
+    @Override
+    public List<Release> findAllNotHidden(Release after, int limit)
+            throws ServiceException {
+        try {
+            return releaseDao
+                    .findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
+                            createReleaseDayLowerLimit(), after, limit);
         } catch (DatabaseException e) {
             throw new AndroidServiceException(
                     CoreMessageKey.ERROR_READING_FROM_DB, e);
         }
     }
 
+    @Override
+    public ReleaseCursor queryAllNotHidden() throws ServiceException {
+        try {
+            return releaseDao
+                    .queryByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(createReleaseDayLowerLimit());
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_READING_FROM_DB, e);
+        }
+    }
+
+    @Override
+    public ReleaseCursor queryJustCreated() throws ServiceException {
+        try {
+            return releaseDao
+                    .queryByDateCreatedGreaterThanAndIsHiddenNotTrue(createDateCreatedLowerLimit());
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_READING_FROM_DB, e);
+        }
+    }
+
+    @Override
+    public ReleaseCursor queryAvailableToday(boolean isAvailable)
+            throws ServiceException {
+        try {
+            if (isAvailable) {
+                return releaseDao
+                        .queryByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+                                createReleaseDayLowerLimit(),
+                                todayEpochDay() + 1);
+            } else {
+                // Announced
+                return releaseDao
+                        .queryByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(todayEpochDay() + 1);
+            }
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_READING_FROM_DB, e);
+        }
+    }
+
+    @Override
+    public void deleteByArtistId(long artistId) throws ServiceException {
+        try {
+            releaseDao.deleteByArtistId(artistId);
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
+        }
+    }
+
     @Override
     public void showAll() throws ServiceException {
         try {
@@ -202,7 +297,7 @@ public class ReleaseServiceImpl implements ReleaseService {
     }
 
     /**
-     * Calculates the date where the release time period begins.<br/>
+     * Calculates the day where the release time period begins.<br/>
      * 
      * Releases tha were released in the past are only downloaded and displayed
      * if there were release within a certain time period. This
@@ -211,16 +306,31 @@ public class ReleaseServiceImpl implements ReleaseService {
      * displayed. So there is a lower limit for the release date.<br/>
      * All releases that were release before this limit are not displayed.
      * 
-     * @return all releases that were released before this date are not
-     *         displayed.
+     * @return all releases that were released before this day (days since
+     *         1970-01-01) are not displayed.
      */
-    private long createReleaseDateLowerLimit() {
+    int createReleaseDayLowerLimit() {
         int months = preferencesService.getDownloadReleasesTimePeriod();
         if (months <= 0) {
-            return Long.MIN_VALUE;
+            return Integer.MIN_VALUE;
         }
-        Calendar cal = Calendar.getInstance();
+        // Only the months need a calendar, days are counted in UTC
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.setTimeInMillis(todayEpochDay() * MILLIS_PER_DAY);
         cal.add(Calendar.MONTH, -months);
+        return toEpochDay(cal.getTimeInMillis());
+    }
+
+    /**
+     * Calculates the date where the "just added" time period begins.
+     * 
+     * @return all releases that were created before this date are not "just
+     *         added".
+     */
+    long createDateCreatedLowerLimit() {
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DAY_OF_MONTH,
+                -preferencesService.getJustAddedTimePeriod());
         return cal.getTimeInMillis();
     }
 }
@@ -23,6 +23,7 @@ package info.schnatterer.nusic.core.impl;
 
 import fm.last.musicbrainz.coverart.CoverArt;
 import fm.last.musicbrainz.coverart.CoverArtArchiveClient;
+import fm.last.musicbrainz.coverart.CoverArtException;
 import fm.last.musicbrainz.coverart.CoverArtImage;
 import fm.last.musicbrainz.coverart.impl.DefaultCoverArtArchiveClient;
 import info.schnatterer.nusic.core.RemoteMusicDatabaseService;
@@ -30,20 +31,24 @@ import info.schnatterer.nusic.core.ServiceException;
 import info.schnatterer.nusic.core.i18n.CoreMessageKey;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.dao.ArtworkDao;
-import info.schnatterer.nusic.data.dao.ArtworkDao.ArtworkType;
 import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.ArtworkType;
 import info.schnatterer.nusic.data.model.Release;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.net.URLEncoder;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -51,15 +56,16 @@ import java.util.UUID;
 
 import javax.inject.Inject;
 
+import org.apache.http.impl.client.AbstractHttpClient;
 import org.musicbrainz.MBWS2Exception;
 import org.musicbrainz.model.ArtistCreditWs2;
 import org.musicbrainz.model.NameCreditWs2;
-import org.musicbrainz.model.entity.ReleaseWs2;
-import org.musicbrainz.model.searchresult.ReleaseResultWs2;
+import org.musicbrainz.model.entity.ReleaseGroupWs2;
+import org.musicbrainz.model.searchresult.ReleaseGroupResultWs2;
+import org.musicbrainz.webservice.impl.HttpClientWebServiceWs2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.BindingAnnotation;
 
 /**
@@ -74,25 +80,51 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
     private static final Logger LOG = LoggerFactory
             .getLogger(RemoteMusicDatabaseServiceMusicBrainz.class);
     /**
-     * See http://musicbrainz.org/doc/Development/XML_Web_Service/Version_2#
-     * Release_Type_and_Status
+     * Release groups are searched by their primary type. The date of a
+     * release group is the date of its first release.
      */
-    private static final String SEARCH_BASE = "type:album";
-    private static final String SEARCH_DATE_BASE = " AND date:[";
+    private static final String SEARCH_RELEASE_GROUP_BASE = "primarytype:album";
+    private static final String SEARCH_FIRST_RELEASE_DATE_BASE = " AND firstreleasedate:[";
     private static final String SEARCH_DATE_TO = " TO ";
     private static final String SEARCH_DATE_OPEN_END = "?";
     private static final String SEARCH_DATE_FINAL = "]";
-    private static final String SEARCH_ARTIST_1 = " AND artist:\"";
+    private static final String SEARCH_ARTIST_1 = "artist:\"";
     private static final String SEARCH_ARTIST_2 = "\"";
+    /**
+     * Artists whose MusicBrainz ID is known are queried by ID, which does not
+     * return releases of other artists with the same name.
+     */
+    private static final String SEARCH_ARTIST_ID_1 = "arid:\"";
+    private static final String SEARCH_ARTISTS_BASE = " AND (";
+    private static final String SEARCH_ARTISTS_OR = " OR ";
+    private static final String SEARCH_ARTISTS_FINAL = ")";
 
     /**
-     * MusicBrainz allows at max 22 requests in 20 seconds. However, we still
-     * get 503s then. Try 1 request per second.
+     * The query for multiple artists is passed as URL parameter. Make sure
+     * the URL does not exceed this length.
+     */
+    static final int MAX_URL_LENGTH = 2048;
+    /**
+     * Length of the request URL without the query parameter's value, e.g.
+     * <code>https://musicbrainz.org/ws/2/release-group/?query=&limit=100&offset=1000</code>
+     * . Rounded up generously.
      */
-    private static final double PERMITS_PER_SECOND = 1.0;
-    private final RateLimiter rateLimiter = RateLimiter
-            .create(PERMITS_PER_SECOND);
-    private CoverArtArchiveClient client = new DefaultCoverArtArchiveClient();
+    static final int URL_BASE_LENGTH = 100;
+    static final String URL_ENCODING = "UTF-8";
+
+    /**
+     * Adapts the request rate to the responses of MusicBrainz, which are
+     * reported by the {@link HttpClientProvider}.
+     */
+    @Inject
+    AdaptiveRateLimiter rateLimiter;
+    /**
+     * Shared by all queries and artwork downloads, see
+     * {@link HttpClientProvider}. Thread safe, so releases might be queried
+     * and artwork might be downloaded from several threads concurrently.
+     */
+    private AbstractHttpClient httpClient;
+    private CoverArtArchiveClient coverArtClient;
 
     /** Application name used in user agent string of request. */
     private String appName;
@@ -128,48 +160,200 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
         this.appContact = appContact;
     }
 
-    private DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+    @Inject
+    void setHttpClient(AbstractHttpClient httpClient) {
+        this.httpClient = httpClient;
+        coverArtClient = new DefaultCoverArtArchiveClient(false, httpClient);
+    }
+
+    private static ThreadLocal<DateFormat> dateFormatHolder = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        }
+    };
 
     @Override
-    public Artist findReleases(Artist artist, Date fromDate, Date endDate)
-            throws ServiceException {
-        if (artist == null || artist.getArtistName() == null) {
-            return null;
+    public List<Artist> findReleaseGroups(List<Artist> artists,
+            Date fromDate, Date endDate) throws ServiceException {
+        return findInBatches(artists,
+                appendDate(fromDate, endDate,
+                        new StringBuffer(SEARCH_RELEASE_GROUP_BASE))
+                        .toString());
+    }
+
+    /**
+     * Combines as many artists as possible into one query.
+     *
+     * @param artists
+     *            the artists to query
+     * @param queryBase
+     *            the query without the artists
+     * @return the artists passed, <code>null</code> for the ones that could
+     *         not be queried
+     * @throws ServiceException
+     */
+    private List<Artist> findInBatches(List<Artist> artists,
+            String queryBase) throws ServiceException {
+        List<Artist> ret = new ArrayList<Artist>(artists.size());
+        queryBase += SEARCH_ARTISTS_BASE;
+        int urlLengthBase = URL_BASE_LENGTH
+                + urlEncodedLength(queryBase + SEARCH_ARTISTS_FINAL);
+
+        // Artists of the current query, by normalized name
+        Map<String, Artist> batch = new LinkedHashMap<String, Artist>();
+        StringBuffer query = new StringBuffer(queryBase);
+        int urlLength = urlLengthBase;
+        for (Artist artist : artists) {
+            if (artist == null || artist.getArtistName() == null) {
+                ret.add(null);
+                continue;
+            }
+            ret.add(artist);
+            String artistKey = createArtistKey(artist);
+            String clause = appendArtistClause(new StringBuffer(), artist)
+                    .toString();
+            int clauseLength = urlEncodedLength(SEARCH_ARTISTS_OR + clause);
+
+            if (!batch.isEmpty()
+                    && (urlLength + clauseLength > MAX_URL_LENGTH
+                    // Results could not be told apart
+                    || batch.containsKey(artistKey))) {
+                findReleaseGroups(query.append(SEARCH_ARTISTS_FINAL)
+                        .toString(), batch);
+                batch.clear();
+                query = new StringBuffer(queryBase);
+                urlLength = urlLengthBase;
+            }
+            if (!batch.isEmpty()) {
+                query.append(SEARCH_ARTISTS_OR);
+            }
+            query.append(clause);
+            urlLength += clauseLength;
+            batch.put(artistKey, artist);
         }
-        String artistName = artist.getArtistName();
+        if (!batch.isEmpty()) {
+            findReleaseGroups(query.append(SEARCH_ARTISTS_FINAL).toString(),
+                    batch);
+        }
+        return ret;
+    }
+
+    /**
+     * Queries all pages of a release group search and routes the results to
+     * the artists.
+     *
+     * @param query
+     *            the search query
+     * @param artists
+     *            the artists to add the releases to, mapped by
+     *            {@link #createArtistKey(Artist)}
+     * @throws ServiceException
+     */
+    private void findReleaseGroups(String query, Map<String, Artist> artists)
+            throws ServiceException {
         Map<String, Release> releases = new HashMap<String, Release>();
         try {
-            // List<ReleaseResultWs2> releaseResults = findReleases();
-            org.musicbrainz.controller.Release releaseSearch = createReleaseSearch(
+            org.musicbrainz.controller.ReleaseGroup releaseGroupSearch = createReleaseGroupSearch(
                     appName, appVersion, appContact);
-            releaseSearch.search(appendDate(fromDate, endDate,
-                    new StringBuffer(SEARCH_BASE)).append(SEARCH_ARTIST_1)
-                    .append(artistName).append(SEARCH_ARTIST_2).toString());
+            releaseGroupSearch.search(query);
 
             // Limit request rate to avoid server bans
             rateLimiter.acquire();
-            processReleaseResults(artistName, artist, releases,
-                    releaseSearch.getFirstSearchResultPage());
-
-            while (releaseSearch.hasMore()) {
-                // TODO check if internet connection still there?
+            processReleaseGroupResults(artists, releases,
+                    releaseGroupSearch.getFirstSearchResultPage());
 
+            while (releaseGroupSearch.hasMore()) {
                 // Limit request rate to avoid server bans
                 rateLimiter.acquire();
-                processReleaseResults(artistName, artist, releases,
-                        releaseSearch.getNextSearchResultPage());
+                processReleaseGroupResults(artists, releases,
+                        releaseGroupSearch.getNextSearchResultPage());
             }
         } catch (MBWS2Exception mBWS2Exception) {
             throw new AndroidServiceException(
                     CoreMessageKey.ERROR_QUERYING_MUSIC_BRAINZ, mBWS2Exception,
-                    artistName);
+                    getArtistNames(artists));
         } catch (SecurityException securityException) {
             throw securityException;
         } catch (Exception e) {
             throw new AndroidServiceException(
-                    CoreMessageKey.ERROR_FINDING_RELEASE_ARTIST, e, artistName);
+                    CoreMessageKey.ERROR_FINDING_RELEASE_ARTIST, e,
+                    getArtistNames(artists));
+        }
+    }
+
+    /**
+     * Appends an artist name to a query, escaping characters that have a
+     * special meaning within a phrase.
+     */
+    public StringBuffer appendArtist(StringBuffer stringBuffer, String artistName) {
+        for (int i = 0; i < artistName.length(); i++) {
+            char c = artistName.charAt(i);
+            if (c == '"' || c == '\\') {
+                stringBuffer.append('\\');
+            }
+            stringBuffer.append(c);
+        }
+        return stringBuffer;
+    }
+
+    private int urlEncodedLength(String queryPart) {
+        try {
+            return URLEncoder.encode(queryPart, URL_ENCODING).length();
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Appends the clause that selects the releases of an artist to a query:
+     * By MusicBrainz ID if known, by name otherwise.
+     */
+    private StringBuffer appendArtistClause(StringBuffer stringBuffer,
+            Artist artist) {
+        if (hasMusicBrainzId(artist)) {
+            return stringBuffer.append(SEARCH_ARTIST_ID_1)
+                    .append(artist.getMusicBrainzId()).append(SEARCH_ARTIST_2);
+        }
+        return appendArtist(stringBuffer.append(SEARCH_ARTIST_1),
+                artist.getArtistName()).append(SEARCH_ARTIST_2);
+    }
+
+    /**
+     * @return the key for matching an artist of the device with the artist
+     *         credit of a release returned by MusicBrainz: The MusicBrainz ID
+     *         if known, the normalized name otherwise.
+     */
+    private static String createArtistKey(Artist artist) {
+        if (hasMusicBrainzId(artist)) {
+            return artist.getMusicBrainzId();
+        }
+        return normalizeArtistName(artist.getArtistName());
+    }
+
+    private static boolean hasMusicBrainzId(Artist artist) {
+        return artist.getMusicBrainzId() != null
+                && !artist.getMusicBrainzId().isEmpty();
+    }
+
+    /**
+     * @return the key for matching an artist name of the device with an
+     *         artist credit returned by MusicBrainz.
+     */
+    private static String normalizeArtistName(String artistName) {
+        return artistName.trim().toLowerCase(Locale.US);
+    }
+
+    private static String getArtistNames(Map<String, Artist> artists) {
+        StringBuilder artistNames = new StringBuilder();
+        for (Artist artist : artists.values()) {
+            if (artistNames.length() > 0) {
+                artistNames.append(", ");
+            }
+            artistNames.append(artist.getArtistName());
         }
-        return artist;
+        return artistNames.toString();
     }
 
     public StringBuffer appendDate(Date startDate, Date endDate,
@@ -178,16 +362,16 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
             // Don't append anything
             return stringBuffer;
         }
-        stringBuffer.append(SEARCH_DATE_BASE);
+        stringBuffer.append(SEARCH_FIRST_RELEASE_DATE_BASE);
         if (startDate != null) {
-            stringBuffer.append(dateFormat.format(startDate));
+            stringBuffer.append(dateFormatHolder.get().format(startDate));
         } else {
             stringBuffer.append("0");
         }
 
         stringBuffer.append(SEARCH_DATE_TO);
         if (endDate != null) {
-            stringBuffer.append(dateFormat.format(endDate));
+            stringBuffer.append(dateFormatHolder.get().format(endDate));
         } else {
             stringBuffer.append(SEARCH_DATE_OPEN_END);
         }
@@ -196,7 +380,7 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
     }
 
     /**
-     * Creates an instance of the release search object.
+     * Creates an instance of the release group search object.
      *
      * @param userAgentName
      *            custom application name used in user agent string. If
@@ -208,71 +392,82 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
      *
      * @return a new instance of the web service implementation.
      */
-    protected org.musicbrainz.controller.Release createReleaseSearch(
+    protected org.musicbrainz.controller.ReleaseGroup createReleaseGroupSearch(
             String userAgentName, String userAgentVersion,
             String userAgentContact) {
-        return new org.musicbrainz.controller.Release(userAgentName,
-                userAgentVersion, userAgentContact);
+        if (httpClient == null) {
+            return new org.musicbrainz.controller.ReleaseGroup(userAgentName,
+                    userAgentVersion, userAgentContact);
+        }
+        /*
+         * The search keeps the state of the query, so create one per query.
+         * The web service client is cheap, as it uses the shared HTTP client
+         * that already sends the user agent.
+         */
+        org.musicbrainz.controller.ReleaseGroup releaseGroupSearch = new org.musicbrainz.controller.ReleaseGroup();
+        releaseGroupSearch.setQueryWs(new HttpClientWebServiceWs2(httpClient));
+        return releaseGroupSearch;
     }
 
     /**
-     * Iterates over the results of a MusicBrainz query and converts them to
-     * nusic entities. In addition, tries to download artwork for each release
-     * group.
+     * Converts the results of a MusicBrainz release group query to nusic
+     * entities. Does not download any artwork.
      *
-     * @param artistName
-     * @param artist
+     * @param artists
+     *            the artists queried, mapped by
+     *            {@link #createArtistKey(Artist)}
      * @param releases
-     * @param releaseResults
+     *            the releases converted so far, by release group ID
+     * @param releaseGroupResults
      */
-    protected void processReleaseResults(String artistName, Artist artist,
-            Map<String, Release> releases, List<ReleaseResultWs2> releaseResults) {
-        for (ReleaseResultWs2 releaseResultWs2 : releaseResults) {
+    protected void processReleaseGroupResults(Map<String, Artist> artists,
+            Map<String, Release> releases,
+            List<ReleaseGroupResultWs2> releaseGroupResults) {
+        for (ReleaseGroupResultWs2 releaseGroupResultWs2 : releaseGroupResults) {
+            ReleaseGroupWs2 releaseGroupResult = releaseGroupResultWs2
+                    .getReleaseGroup();
             // Make sure not to add other artists albums
-            ReleaseWs2 releaseResult = releaseResultWs2.getRelease();
-            if (releaseResult.getArtistCredit().getArtistCreditString().trim()
-                    .equalsIgnoreCase(artistName.trim())) {
-                if (artist.getMusicBrainzId() == null
-                        || artist.getMusicBrainzId().isEmpty()) {
-                    artist.setMusicBrainzId(getMusicBrainzId(releaseResult
-                            .getArtistCredit()));
+            Artist artist = findArtist(artists,
+                    releaseGroupResult.getArtistCredit());
+            String releaseGroupId = releaseGroupResult.getId().trim();
+            // Results might be repeated when paging shifts
+            if (artist != null && !releases.containsKey(releaseGroupId)) {
+                if (!hasMusicBrainzId(artist)) {
+                    artist.setMusicBrainzId(findMusicBrainzId(artist,
+                            releaseGroupResult.getArtistCredit()));
                 }
+                Release release = new Release();
+                release.setArtist(artist);
+                release.setReleaseName(releaseGroupResult.getTitle());
+                release.setReleaseDate(releaseGroupResult.getFirstReleaseDate());
+                release.setMusicBrainzId(releaseGroupId);
+                artist.getReleases().add(release);
+                releases.put(releaseGroupId, release);
+            }
+        }
+    }
 
-                // Use only the release with the "oldest" date of a release
-                // group
-                String releaseGroupId = releaseResult.getReleaseGroup().getId()
-                        .trim();
-                Release existingRelease = releases.get(releaseGroupId);
-                Date newDate = releaseResult.getDate();
-                if (existingRelease == null) {
-                    Release release = new Release();
-                    release.setArtist(artist);
-                    release.setReleaseName(releaseResult.getTitle());
-                    release.setReleaseDate(newDate);
-                    release.setMusicBrainzId(releaseGroupId);
-                    // LOG.debug("Release: " + artist.getArtistName()
-                    // + "-" + releaseResult.getTitle() + "-"
-                    // + releaseGroupId);
-                    try {
-                        downloadFrontCover(release);
-                    } catch (IOException e) {
-                        LOG.warn("Unable to download cover", e);
-                    } catch (DatabaseException e) {
-                        LOG.warn("Unable to store cover", e);
-                    }
+    @Override
+    public boolean downloadArtwork(Release release) throws ServiceException {
+        return downloadArtwork(release, ArtworkType.SMALL);
+    }
 
-                    // TODO store all release dates and their countries?
-                    artist.getReleases().add(release);
-                    releases.put(releaseGroupId, release);
-                } else {
-                    if (existingRelease.getReleaseDate() == null
-                            || (newDate != null && existingRelease
-                                    .getReleaseDate().after(newDate))) {
-                        // Change date of existing release
-                        existingRelease.setReleaseDate(newDate);
-                    }
-                }
-            }
+    @Override
+    public boolean downloadArtwork(Release release, ArtworkType type)
+            throws ServiceException {
+        try {
+            return downloadFrontCover(release, type);
+        } catch (IOException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_DOWNLOADING_ARTWORK, e,
+                    release.getReleaseName());
+        } catch (CoverArtException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_DOWNLOADING_ARTWORK, e,
+                    release.getReleaseName());
+        } catch (DatabaseException e) {
+            throw new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
         }
     }
 
@@ -280,25 +475,29 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
      * Downloads the front cover of the release and persists it.
      *
      * @param release
+     * @param type
+     *            the resolution to download
+     * @return <code>true</code> if the artwork exists locally now,
+     *         <code>false</code> if the release has no front cover
      * @throws IOException
      *             error downloading the artwork
      * @throws DatabaseException
      */
-    private void downloadFrontCover(Release release) throws IOException,
-            DatabaseException {
+    private boolean downloadFrontCover(Release release, ArtworkType type)
+            throws IOException, DatabaseException {
+        if (artworkDao.exists(release, type)) {
+            // Don't bother the remote service
+            return true;
+        }
         CoverArt coverArt = null;
         UUID mbid = UUID.fromString(release.getMusicBrainzId());
-        coverArt = client.getReleaseGroupByMbid(mbid);
+        coverArt = coverArtClient.getReleaseGroupByMbid(mbid);
 
         if (coverArt != null && coverArt.getImages() != null) {
             for (CoverArtImage coverArtImage : coverArt.getImages()) {
                 if (coverArtImage.isFront()) {
-                    /*
-                     * TODO load large thumbnail for certain screen resolutions?
-                     */
-                    if (!artworkDao.exists(release, ArtworkType.SMALL)) {
-                        InputStream smallThumbnail = coverArtImage
-                                .getSmallThumbnail();
+                    if (!artworkDao.exists(release, type)) {
+                        InputStream image = getImage(coverArtImage, type);
 
                         /*
                          * As transactions are not used yet, the cover that is
@@ -309,8 +508,7 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
                          * the artwork is needed anyway we might as well keep
                          * it.
                          */
-                        artworkDao.save(release, ArtworkType.SMALL,
-                                smallThumbnail);
+                        artworkDao.save(release, type, image);
 
                         release.setCoverartArchiveId(coverArtImage.getId());
                         // LOG.debug(
@@ -319,16 +517,68 @@ public class RemoteMusicDatabaseServiceMusicBrainz implements
                         // + release.getMusicBrainzId() + "_"
                         // + coverArtImage.getId() + ". Size: "
                         // + output.length());
-
-                        /*
-                         * We successfully downloaded the cover! Stop trying to
-                         * get another one
-                         */
-                        break;
                     }
+                    /*
+                     * We successfully downloaded the cover! Stop trying to get
+                     * another one
+                     */
+                    return true;
                 }
             }
         }
+        return false;
+    }
+
+    private InputStream getImage(CoverArtImage coverArtImage, ArtworkType type)
+            throws IOException {
+        switch (type) {
+        case SMALL:
+            return coverArtImage.getSmallThumbnail();
+        case LARGE:
+            return coverArtImage.getLargeThumbnail();
+        default:
+            throw new IllegalArgumentException("Unimplemented artwork type"
+                    + type);
+        }
+    }
+
+    /**
+     * @return the artist a release is credited to, matched by MusicBrainz ID
+     *         first and by name second. <code>null</code> if none of the
+     *         artists.
+     */
+    private Artist findArtist(Map<String, Artist> artists,
+            ArtistCreditWs2 artistCredit) {
+        String musicBrainzId = getMusicBrainzId(artistCredit);
+        if (musicBrainzId != null) {
+            Artist artist = artists.get(musicBrainzId);
+            if (artist != null) {
+                return artist;
+            }
+        }
+        return artists.get(normalizeArtistName(artistCredit
+                .getArtistCreditString()));
+    }
+
+    /**
+     * @return the MusicBrainz ID of <code>artist</code>, if the artist credit
+     *         consists of this artist only. <code>null</code> otherwise. For
+     *         instance, the first name credit of "A &amp; B" is the ID of "A",
+     *         which must not be stored for the artist "A &amp; B". Otherwise
+     *         the releases of "A" would be queried for "A &amp; B" from then
+     *         on.
+     */
+    private String findMusicBrainzId(Artist artist,
+            ArtistCreditWs2 artistCredit) {
+        if (artistCredit.getNameCredits().size() != 1
+                || artist.getArtistName() == null
+                || artistCredit.getArtistCreditString() == null
+                || !normalizeArtistName(artist.getArtistName()).equals(
+                        normalizeArtistName(artistCredit
+                                .getArtistCreditString()))) {
+            return null;
+        }
+        return getMusicBrainzId(artistCredit);
     }
 
     private String getMusicBrainzId(ArtistCreditWs2 artistCredit) {
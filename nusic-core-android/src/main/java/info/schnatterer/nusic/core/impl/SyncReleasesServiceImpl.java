@@ -22,7 +22,10 @@
 package info.schnatterer.nusic.core.impl;
 
 import info.schnatterer.nusic.core.ArtistService;
+import info.schnatterer.nusic.core.ArtistService.Reconciliation;
 import info.schnatterer.nusic.core.DeviceMusicService;
+import info.schnatterer.nusic.core.DeviceMusicService.ArtistIterator;
+import info.schnatterer.nusic.core.PendingArtworkService;
 import info.schnatterer.nusic.core.PreferencesService;
 import info.schnatterer.nusic.core.RemoteMusicDatabaseService;
 import info.schnatterer.nusic.core.ServiceException;
@@ -32,12 +35,24 @@ import info.schnatterer.nusic.core.event.ProgressListener;
 import info.schnatterer.nusic.core.event.ProgressUpdater;
 import info.schnatterer.nusic.core.i18n.CoreMessageKey;
 import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.dao.TransactionManager;
 import info.schnatterer.nusic.data.model.Artist;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 
@@ -53,6 +68,29 @@ import org.slf4j.LoggerFactory;
 public class SyncReleasesServiceImpl implements SyncReleasesService {
     private static final Logger LOG = LoggerFactory
             .getLogger(SyncReleasesServiceImpl.class);
+    /**
+     * Threads querying releases. The actual request rate is bounded by the
+     * rate limiter of the {@link RemoteMusicDatabaseService}. More than one
+     * thread allows for processing a response while waiting for the next one.
+     */
+    private static final int FETCH_THREADS = 2;
+    /**
+     * Max number of artists passed to the fetch stage at once. The
+     * {@link RemoteMusicDatabaseService} queries as many of them as possible
+     * with one request.
+     */
+    private static final int ARTISTS_PER_BATCH = 25;
+    /**
+     * Max number of batches of artists that are processed ahead of the writing
+     * stage.
+     */
+    private static final int PIPELINE_CAPACITY = 4;
+    /**
+     * Days before {@link Artist#getDateLastSynced()} that are queried again
+     * during an incremental sync, in order to catch releases whose release date
+     * is entered in the remote database after their release.
+     */
+    private static final int INCREMENTAL_SYNC_OVERLAP_DAYS = 30;
 
     @Inject
     private RemoteMusicDatabaseService remoteMusicDatabaseService;
@@ -62,6 +100,12 @@ public class SyncReleasesServiceImpl implements SyncReleasesService {
     private PreferencesService preferencesService;
     @Inject
     private ArtistService artistService;
+    @Inject
+    private PendingArtworkService pendingArtworkService;
+    @Inject
+    private TransactionManager transactionManager;
+    @Inject
+    private AdaptiveRateLimiter rateLimiter;
     private Set<ProgressListener<Artist, Boolean>> listenerList = new HashSet<ProgressListener<Artist, Boolean>>();
     private ProgressUpdater<Artist, Boolean> progressUpdater = new ProgressUpdater<Artist, Boolean>(
             listenerList) {
@@ -69,106 +113,605 @@ public class SyncReleasesServiceImpl implements SyncReleasesService {
 
     @Override
     public void syncReleases() {
-        Date startDate = createStartDate(preferencesService
-                .getDownloadReleasesTimePeriod());
+        int months = preferencesService.getDownloadReleasesTimePeriod();
+        Date startDate;
+        Date endDate;
+        boolean fullSync;
 
-        // Use a date before the refresh to store afterwards in order to
-        Date dateCreated = new Date();
-        refreshReleases(startDate, null);
+        /*
+         * Use a date before the refresh to store afterwards in order to not
+         * miss anything that changes during the refresh with the next one.
+         */
+        Date dateCreated = preferencesService.getSyncCheckpointRunDate();
+        if (dateCreated != null && isCheckpointExpired(dateCreated)) {
+            LOG.info("Discarding sync checkpoint from {}, starting over",
+                    dateCreated);
+            preferencesService.clearSyncCheckpoint();
+            dateCreated = null;
+        }
+        boolean resume = dateCreated != null;
+        if (resume) {
+            // Previous sync was interrupted, e.g. the process was killed
+            startDate = preferencesService.getSyncCheckpointStartDate();
+            endDate = preferencesService.getSyncCheckpointEndDate();
+            fullSync = preferencesService.isSyncCheckpointFullSync();
+            LOG.info(
+                    "Resuming sync started at {} after artist {}, full sync: {}",
+                    dateCreated, preferencesService.getSyncCheckpointIndex(),
+                    fullSync);
+        } else {
+            startDate = createStartDate(months);
+            endDate = null;
+            dateCreated = new Date();
+            fullSync = isFullSyncDue(months, dateCreated);
+            preferencesService.setSyncCheckpoint(dateCreated, startDate,
+                    endDate, fullSync);
+        }
+        int nThrottled = rateLimiter.getThrottledCount();
+        boolean finished = refreshReleases(startDate, endDate, fullSync,
+                dateCreated, resume);
+        LOG.info(
+                "Sync finished: {}, MusicBrainz request rate: {}/s, requests rejected: {}",
+                finished, rateLimiter.getRate(),
+                rateLimiter.getThrottledCount() - nThrottled);
+        preferencesService.clearSyncCheckpoint();
         preferencesService.setLastReleaseRefresh(dateCreated);
+        if (fullSync && finished) {
+            preferencesService.setLastFullReleaseRefresh(dateCreated, months);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the interrupted sync was started more than
+     *         {@link PreferencesService#getRefreshPeriod()} ago. Resuming it
+     *         would store an outdated {@link Artist#getDateLastSynced()} and
+     *         query an outdated time period.
+     */
+    private boolean isCheckpointExpired(Date checkpointRunDate) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(checkpointRunDate);
+        cal.add(Calendar.DAY_OF_MONTH, preferencesService.getRefreshPeriod());
+        return !new Date().before(cal.getTime());
     }
 
+    /**
+     * @return the first day of the month <code>months</code> ago. Rounded
+     *         down, so the queries stay the same for a month and can be
+     *         answered from the HTTP cache.
+     */
     private Date createStartDate(int months) {
         if (months <= 0) {
             return null;
         }
         Calendar cal = Calendar.getInstance();
         cal.add(Calendar.MONTH, -months);
+        return truncateToMonth(cal);
+    }
+
+    /**
+     * @return the first day of the month of <code>cal</code>, at midnight
+     */
+    private static Date truncateToMonth(Calendar cal) {
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
         return cal.getTime();
     }
 
-    private void refreshReleases(Date startDate, Date endDate) {
+    /**
+     * @return <code>true</code> if the releases of all artists have to be
+     *         queried for the whole time period, because
+     *         {@link PreferencesService#getFullReleaseRefreshPeriod()} elapsed
+     *         or the time period was extended since the last full sync.
+     */
+    private boolean isFullSyncDue(int months, Date now) {
+        Date lastFullSync = preferencesService.getLastFullReleaseRefresh();
+        if (lastFullSync == null) {
+            return true;
+        }
+        int lastMonths = preferencesService
+                .getLastFullReleaseRefreshTimePeriod();
+        if (lastMonths > 0 && (months <= 0 || months > lastMonths)) {
+            return true;
+        }
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(lastFullSync);
+        cal.add(Calendar.DAY_OF_MONTH,
+                preferencesService.getFullReleaseRefreshPeriod());
+        return !now.before(cal.getTime());
+    }
+
+    /**
+     * @param fullSync
+     *            <code>false</code> queries the releases of artists that have
+     *            been synced before only since their
+     *            {@link Artist#getDateLastSynced()}
+     * @param dateSynced
+     *            the date that is stored as {@link Artist#getDateLastSynced()}
+     *            with each artist successfully synced
+     * @param resume
+     *            <code>true</code> skips the artists that were already synced
+     *            at <code>dateSynced</code>, before the sync was interrupted
+     * @return <code>true</code> if all artists were processed,
+     *         <code>false</code> if the sync was cancelled
+     */
+    private boolean refreshReleases(Date startDate, Date endDate,
+            boolean fullSync, Date dateSynced, boolean resume) {
 
         // TODO create service for checking wifi and available internet connection
 
-        Artist[] artists = queryArtists();
-        if (artists == null) {
-            return;
+        ArtistIterator deviceArtists = queryArtists();
+        if (deviceArtists == null) {
+            return false;
+        }
+        try {
+            return refreshReleases(deviceArtists, startDate, endDate,
+                    fullSync, dateSynced, resume);
+        } finally {
+            deviceArtists.close();
         }
+    }
 
-        progressUpdater.progressStarted(artists.length);
-        ServiceException potentialException = null;
-        for (int i = 0; i < artists.length; i++) {
+    private boolean refreshReleases(ArtistIterator deviceArtists,
+            Date startDate, Date endDate, boolean fullSync, Date dateSynced,
+            boolean resume) {
+        Reconciliation reconciliation = startReconciliation();
+        if (reconciliation == null) {
+            fullSync = true;
+        }
+        /*
+         * The artists are queried while they are read from the device, so they
+         * never are in memory all at once.
+         */
+        BatchReader artists = new BatchReader(deviceArtists, reconciliation,
+                !fullSync, resume ? dateSynced : null);
 
-            try {
-                potentialException = processArtist(artists, i, startDate, endDate);
-
-                if (potentialException != null &&
-                    potentialException.getCause() instanceof DatabaseException) {
-                    // Allow for displaying errors to the user.
-                    progressUpdater.progressFailed(artists[i], i + 1,
-                        new AndroidServiceException(CoreMessageKey.ERROR_WRITING_TO_DB, potentialException), null);
-                    return;
+        progressUpdater.progressStarted(deviceArtists.getCount());
+
+        ExecutorService fetchExecutor = Executors
+                .newFixedThreadPool(FETCH_THREADS);
+        /*
+         * Downloads the artwork queued by the writing stage while the next
+         * batches are fetched and written. One thread, so the downloads of the
+         * queue never run twice at the same time.
+         */
+        ExecutorService artworkExecutor = Executors.newSingleThreadExecutor();
+        Future<?> artworkDownload = null;
+        /*
+         * Batches of artists that are queried at the moment, in the order they
+         * were read. Taking from the head keeps the writing and the progress
+         * events in order. Bounds the work queue of the fetchExecutor as well.
+         */
+        Queue<Future<List<FetchResult>>> inFlight = new ArrayDeque<Future<List<FetchResult>>>(
+                PIPELINE_CAPACITY);
+        int nProcessed = 0;
+        try {
+            while (true) {
+                // Keep the fetch stage busy, but bound the amount of results
+                List<Artist> batch;
+                while (inFlight.size() < PIPELINE_CAPACITY
+                        && (batch = artists.nextBatch()) != null) {
+                    Date batchStartDate = fullSync ? startDate
+                            : createBatchStartDate(batch, startDate);
+                    inFlight.add(fetchExecutor.submit(new FetchTask(batch,
+                            batchStartDate, endDate)));
+                }
+                Future<List<FetchResult>> fetchResultsFuture = inFlight.poll();
+                if (fetchResultsFuture == null) {
+                    // All artists processed
+                    break;
                 }
-            } catch (Exception e) {
-                LOG.warn("Unexpected exception during sync, cancelling sync", e);
-                progressUpdater.progressFailed(artists[i], i + 1, e, null);
-                return;
-            }
 
-            progressUpdater.progress(artists[i], i + 1, potentialException);
+                List<FetchResult> fetchResults;
+                try {
+                    fetchResults = fetchResultsFuture.get();
+                    ServiceException writeException = processBatch(
+                            fetchResults, dateSynced);
+
+                    if (writeException != null) {
+                        // Allow for displaying errors to the user.
+                        progressUpdater.progressFailed(fetchResults.get(0).artist,
+                            nProcessed + artists.getSkipped() + 1,
+                            new AndroidServiceException(CoreMessageKey.ERROR_WRITING_TO_DB, writeException), null);
+                        return false;
+                    }
+                } catch (Exception e) {
+                    LOG.warn("Unexpected exception during sync, cancelling sync", e);
+                    progressUpdater.progressFailed(null,
+                            nProcessed + artists.getSkipped() + 1, unwrap(e), null);
+                    return false;
+                }
+
+                for (FetchResult fetchResult : fetchResults) {
+                    nProcessed++;
+                    progressUpdater.progress(fetchResult.artist, nProcessed
+                            + artists.getSkipped(), fetchResult.exception);
+                }
+                preferencesService.setSyncCheckpointIndex(nProcessed - 1);
+                if (artworkDownload == null || artworkDownload.isDone()) {
+                    artworkDownload = artworkExecutor
+                            .submit(new DownloadPendingArtworkTask());
+                }
+            }
+            if (reconciliation != null) {
+                // Only now all artists of the device have been matched
+                deleteUnmatched(reconciliation);
+            }
+            deleteOrphanedArtwork();
+            // Artwork queued since the last download started
+            await(artworkExecutor.submit(new DownloadPendingArtworkTask()));
+        } finally {
+            fetchExecutor.shutdownNow();
+            artworkExecutor.shutdownNow();
         }
         progressUpdater.progressFinished(true);
+        return true;
+    }
 
+    /**
+     * @return the reconciliation of the artists on the device with the ones
+     *         stored locally or <code>null</code> if the stored artists could
+     *         not be loaded, which requires a full sync
+     */
+    private Reconciliation startReconciliation() {
+        try {
+            return artistService.startReconciliation();
+        } catch (ServiceException e) {
+            LOG.warn("Unable to load stored artists, syncing all releases", e);
+            return null;
+        }
     }
 
     /**
-     * Finds releases for an artists and stores them. Logs {@link ServiceException}s and propagates
-     * them to the {@link #progressUpdater}.
-     * @return any {@link ServiceException} that might have occurred, or {@code null} if none occurred
+     * Deletes the artists that were removed from the device. Errors are not
+     * fatal, the artists are deleted during the next sync.
      */
-    private ServiceException processArtist(Artist[] artists, int i, Date startDate, Date endDate) {
-        Artist artist = artists[i];
-        /* TODO find out if its more efficient to concat all artist in one big query and then
-         * process it page by page (keep URL limit of 2048 chars in mind) */
+    private void deleteUnmatched(Reconciliation reconciliation) {
         try {
-            artist = remoteMusicDatabaseService.findReleases(artist, startDate, endDate);
-            if (artist == null) {
-                LOG.warn("Artist {} of {} is null.", i, artists.length);
-            } else if (artist.getReleases().size() > 0) {
-                artistService.saveOrUpdate(artist);
-                // After saving, release memory for releases
-                artist.setReleases(null);
+            int nDeleted = reconciliation.deleteUnmatched();
+            if (nDeleted > 0) {
+                LOG.info("Deleted {} artists that were removed from the device",
+                        nDeleted);
+            }
+        } catch (ServiceException e) {
+            LOG.warn("Unable to delete artists that were removed from the device", e);
+        }
+    }
+
+    /**
+     * Reads the artists from the device and groups them into batches of at
+     * most {@link #ARTISTS_PER_BATCH}, holding no more than two batches in
+     * memory.
+     */
+    private static class BatchReader {
+        private final Iterator<Artist> artists;
+        private final Reconciliation reconciliation;
+        private final boolean groupByDateLastSynced;
+        private final Date skipSyncedSince;
+        private List<Artist> neverSynced = new ArrayList<Artist>(
+                ARTISTS_PER_BATCH);
+        private List<Artist> synced = new ArrayList<Artist>(ARTISTS_PER_BATCH);
+        private int nSkipped = 0;
+
+        /**
+         * @param reconciliation
+         *            each artist is matched with this, if not
+         *            <code>null</code>
+         * @param groupByDateLastSynced
+         *            <code>true</code> puts artists that were never synced and
+         *            artists that were synced before into different batches,
+         *            so the artists of a batch can be queried for about the
+         *            same time period (see
+         *            {@link SyncReleasesServiceImpl#createBatchStartDate(List, Date)}
+         *            )
+         * @param skipSyncedSince
+         *            if not <code>null</code>, artists that were synced at or
+         *            after this date are skipped, e.g. because they were
+         *            committed before the sync was interrupted
+         */
+        public BatchReader(Iterator<Artist> artists,
+                Reconciliation reconciliation, boolean groupByDateLastSynced,
+                Date skipSyncedSince) {
+            this.artists = artists;
+            this.reconciliation = reconciliation;
+            this.groupByDateLastSynced = groupByDateLastSynced;
+            this.skipSyncedSince = skipSyncedSince;
+        }
+
+        /**
+         * @return the next batch of artists or <code>null</code> if there are
+         *         no more
+         */
+        public List<Artist> nextBatch() {
+            while (artists.hasNext()) {
+                Artist artist = artists.next();
+                if (reconciliation != null) {
+                    reconciliation.match(artist);
+                }
+                Date dateLastSynced = artist.getDateLastSynced();
+                if (skipSyncedSince != null && dateLastSynced != null
+                        && !dateLastSynced.before(skipSyncedSince)) {
+                    nSkipped++;
+                    continue;
+                }
+                List<Artist> batch = groupByDateLastSynced
+                        && dateLastSynced == null ? neverSynced : synced;
+                batch.add(artist);
+                if (batch.size() == ARTISTS_PER_BATCH) {
+                    return takeBatch(batch);
+                }
+            }
+            if (!neverSynced.isEmpty()) {
+                return takeBatch(neverSynced);
+            }
+            if (!synced.isEmpty()) {
+                return takeBatch(synced);
+            }
+            return null;
+        }
+
+        /**
+         * @return the number of artists skipped so far
+         */
+        public int getSkipped() {
+            return nSkipped;
+        }
+
+        private List<Artist> takeBatch(List<Artist> batch) {
+            List<Artist> taken = new ArrayList<Artist>(batch);
+            batch.clear();
+            return taken;
+        }
+    }
+
+    /**
+     * Calculates the start of the time period that is queried for a batch of
+     * artists during an incremental sync: The
+     * {@link #INCREMENTAL_SYNC_OVERLAP_DAYS} before the earliest
+     * {@link Artist#getDateLastSynced()} within the batch, rounded down to the
+     * first day of the month, but not before <code>startDate</code>. Rounding
+     * keeps the query stable between syncs, so it can be answered from the
+     * HTTP cache.
+     *
+     * @param startDate
+     *            start date of a full sync
+     */
+    private static Date createBatchStartDate(List<Artist> batch,
+            Date startDate) {
+        Date earliestDateLastSynced = null;
+        for (Artist artist : batch) {
+            Date dateLastSynced = artist.getDateLastSynced();
+            if (dateLastSynced == null) {
+                // Never synced before
+                return startDate;
+            }
+            if (earliestDateLastSynced == null
+                    || dateLastSynced.before(earliestDateLastSynced)) {
+                earliestDateLastSynced = dateLastSynced;
+            }
+        }
+        if (earliestDateLastSynced == null) {
+            return startDate;
+        }
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(earliestDateLastSynced);
+        cal.add(Calendar.DAY_OF_MONTH, -INCREMENTAL_SYNC_OVERLAP_DAYS);
+        Date batchStartDate = truncateToMonth(cal);
+        if (startDate != null && batchStartDate.before(startDate)) {
+            return startDate;
+        }
+        return batchStartDate;
+    }
+
+    /**
+     * Stores the releases that were found for a batch of artists within one
+     * transaction. This is the (single threaded) writing stage of the pipeline,
+     * where all access to the local database takes place. Logs the
+     * {@link ServiceException}s of the fetch stage, which are propagated to the
+     * {@link #progressUpdater} by the caller.
+     *
+     * @param dateSynced
+     *            stored as {@link Artist#getDateLastSynced()}, even if no
+     *            releases were found
+     * @return the {@link ServiceException} that occurred while writing, or
+     *         {@code null} if none occurred. Nothing of the batch is written in
+     *         this case.
+     */
+    private ServiceException processBatch(List<FetchResult> fetchResults,
+            Date dateSynced) {
+        List<Artist> artists = new ArrayList<Artist>(fetchResults.size());
+        for (FetchResult fetchResult : fetchResults) {
+            if (fetchResult.exception != null) {
+                LOG.warn(fetchResult.exception.getMessage(),
+                        fetchResult.exception.getCause());
+            } else if (fetchResult.artist == null) {
+                LOG.warn("Artist of batch is null.");
+            } else {
+                fetchResult.artist.setDateLastSynced(dateSynced);
+                artists.add(fetchResult.artist);
             }
-            // Release memory for artist
-            artists[i] = null;
+        }
 
+        try {
+            transactionManager.beginTransaction();
+            try {
+                artistService.saveOrUpdate(artists);
+                for (Artist artist : artists) {
+                    // Downloaded by the artwork worker of the pipeline
+                    pendingArtworkService.addPendingArtwork(artist
+                            .getReleases());
+                }
+                transactionManager.setTransactionSuccessful();
+            } finally {
+                transactionManager.endTransaction();
+            }
+        } catch (DatabaseException e) {
+            LOG.warn(e.getMessage(), e);
+            return new AndroidServiceException(
+                    CoreMessageKey.ERROR_WRITING_TO_DB, e);
         } catch (ServiceException e) {
             LOG.warn(e.getMessage(), e.getCause());
             return e;
         }
+
+        for (Artist artist : artists) {
+            // After saving, release memory for releases
+            artist.setReleases(null);
+        }
         return null;
     }
 
+    /**
+     * Downloads the artwork of the releases found, as well as the artwork whose
+     * download failed during previous syncs. Errors are not fatal, as the
+     * releases can be displayed without artwork.
+     */
+    private void downloadPendingArtwork() {
+        try {
+            int nDownloaded = pendingArtworkService.downloadPendingArtwork();
+            LOG.debug("Downloaded {} pending artworks", nDownloaded);
+        } catch (ServiceException e) {
+            LOG.warn("Unable to download pending artwork", e);
+        }
+    }
+
+    /**
+     * Frees the space of the artwork whose releases were deleted. Errors are
+     * not fatal, the artwork is deleted during a later sync or evicted when
+     * space is needed.
+     */
+    private void deleteOrphanedArtwork() {
+        try {
+            int nDeleted = pendingArtworkService.deleteOrphanedArtwork();
+            LOG.debug("Deleted {} orphaned artworks", nDeleted);
+        } catch (ServiceException e) {
+            LOG.warn("Unable to delete orphaned artwork", e);
+        }
+    }
+
+    /**
+     * Waits for the artwork worker to finish. Errors are not fatal, as the
+     * releases can be displayed without artwork.
+     */
+    private static void await(Future<?> artworkDownload) {
+        try {
+            artworkDownload.get();
+        } catch (InterruptedException e) {
+            LOG.debug("Download of pending artwork interrupted", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.warn("Unable to download pending artwork", e.getCause());
+        }
+    }
+
+    /**
+     * @return the cause of an {@link ExecutionException} thrown by one of the
+     *         pipeline's stages, or <code>e</code> itself.
+     */
+    private static Throwable unwrap(Exception e) {
+        if (e instanceof ExecutionException && e.getCause() != null) {
+            return e.getCause();
+        }
+        return e;
+    }
+
+    /**
+     * Artwork worker of the pipeline: Downloads the artwork that is queued in
+     * the meantime. Releases are only visible to it once their batch was
+     * committed by the writing stage.
+     */
+    private class DownloadPendingArtworkTask implements Runnable {
+        @Override
+        public void run() {
+            downloadPendingArtwork();
+        }
+    }
+
+    /**
+     * Fetch stage of the pipeline: Finds releases for a batch of artists.
+     */
+    private class FetchTask implements Callable<List<FetchResult>> {
+        private final List<Artist> artists;
+        private final Date startDate;
+        private final Date endDate;
+
+        public FetchTask(List<Artist> artists, Date startDate, Date endDate) {
+            this.artists = artists;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        @Override
+        public List<FetchResult> call() {
+            List<FetchResult> fetchResults = new ArrayList<FetchResult>(
+                    artists.size());
+            try {
+                // One result per album instead of one per edition
+                for (Artist artist : remoteMusicDatabaseService
+                        .findReleaseGroups(artists, startDate, endDate)) {
+                    fetchResults.add(createFetchResult(artist));
+                }
+            } catch (ServiceException e) {
+                LOG.debug(
+                        "Querying batch of artists failed, querying each artist separately",
+                        e);
+                fetchResults.clear();
+                for (Artist artist : artists) {
+                    // Drop releases from pages queried before the failure
+                    artist.setReleases(null);
+                    fetchResults.add(findReleaseGroups(artist));
+                }
+            }
+            return fetchResults;
+        }
+
+        private FetchResult findReleaseGroups(Artist artist) {
+            try {
+                return createFetchResult(remoteMusicDatabaseService
+                        .findReleaseGroups(Collections.singletonList(artist),
+                                startDate, endDate).get(0));
+            } catch (ServiceException e) {
+                FetchResult fetchResult = createFetchResult(artist);
+                fetchResult.exception = e;
+                return fetchResult;
+            }
+        }
+
+        private FetchResult createFetchResult(Artist artist) {
+            FetchResult fetchResult = new FetchResult();
+            fetchResult.artist = artist;
+            return fetchResult;
+        }
+    }
+
+    /**
+     * Result of the fetch stage of the pipeline that is passed on to the
+     * writing stage.
+     */
+    private static class FetchResult {
+        private Artist artist;
+        private ServiceException exception;
+    }
+
     /**
      * Queries artists from device. Logs all errors and propagates to {@link #progressUpdater}.
      *
-     * @return a list of artists. Empty list if none found, <code>null</code> on error.
+     * @return an iterator over the artists, <code>null</code> on error.
      */
-    private Artist[] queryArtists() {
-        Artist[] artists = null;
+    private ArtistIterator queryArtists() {
         try {
-            artists = deviceMusicService.getArtists();
-            if (artists == null) {
+            ArtistIterator artists = deviceMusicService.getArtistIterator();
+            if (artists.getCount() == 0) {
                 LOG.warn("No artists were returned. No music files on device?");
-                artists = new Artist[0];
             }
+            return artists;
         } catch (Exception e) {
             LOG.warn("Error querying artists from device", e);
             progressUpdater.progressFailed(null, 0, e, null);
+            return null;
         }
-
-        return artists;
     }
 
     @Override
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import static info.schnatterer.nusic.core.impl.AdaptiveRateLimiter.ADDITIVE_INCREASE;
+import static info.schnatterer.nusic.core.impl.AdaptiveRateLimiter.DEFAULT_PERMITS_PER_SECOND;
+import static info.schnatterer.nusic.core.impl.AdaptiveRateLimiter.MAX_PERMITS_PER_SECOND;
+import static info.schnatterer.nusic.core.impl.AdaptiveRateLimiter.MIN_PERMITS_PER_SECOND;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+// Test is faster without dependency Injection!
+public class AdaptiveRateLimiterTest {
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void testDefaultRate() {
+        assertEquals(DEFAULT_PERMITS_PER_SECOND,
+                new AdaptiveRateLimiter(null, 0).getRate(), DELTA);
+    }
+
+    @Test
+    public void testIncreaseUpToMax() {
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(null, 0.5);
+        rateLimiter.onSuccess();
+        assertEquals(0.5 + ADDITIVE_INCREASE, rateLimiter.getRate(), DELTA);
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.onSuccess();
+        }
+        assertEquals(MAX_PERMITS_PER_SECOND, rateLimiter.getRate(), DELTA);
+    }
+
+    @Test
+    public void testDecreaseOncePerInterval() {
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(null, 1.0);
+        rateLimiter.onThrottled(1);
+        assertEquals(0.5, rateLimiter.getRate(), DELTA);
+        // Concurrent requests rejected at once
+        rateLimiter.onThrottled(1);
+        assertEquals(0.5, rateLimiter.getRate(), DELTA);
+        assertEquals(2, rateLimiter.getThrottledCount());
+    }
+
+    @Test
+    public void testMinRate() {
+        assertEquals(MIN_PERMITS_PER_SECOND,
+                new AdaptiveRateLimiter(null, MIN_PERMITS_PER_SECOND / 2)
+                        .getRate(), DELTA);
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.Release;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+// Test is faster without dependency Injection!
+public class CachingReleaseServiceTest {
+    private ReleaseServiceUnderTest delegate;
+    private CachingReleaseService cachingReleaseService;
+
+    /** Sorted like the database returns them. */
+    private List<Release> releases;
+
+    @Before
+    public void setUp() throws Exception {
+        releases = Arrays.asList(createRelease(4L, 3000),
+                createRelease(2L, 3000), createRelease(3L, 2000),
+                createRelease(1L, 1000));
+        delegate = new ReleaseServiceUnderTest();
+        cachingReleaseService = new CachingReleaseService(delegate,
+                new ReleaseCache());
+    }
+
+    @Test
+    public void testFirstPageLoadsOnce() throws Exception {
+        assertIds(cachingReleaseService.findAllNotHidden(null, 3), 4L, 2L, 3L);
+        assertIds(cachingReleaseService.findAllNotHidden(null, 2), 4L, 2L);
+        assertIds(cachingReleaseService.findAllNotHidden(null, 3), 4L, 2L, 3L);
+
+        assertEquals(1, delegate.nFind);
+    }
+
+    @Test
+    public void testNextPagesAreNotCached() throws Exception {
+        List<Release> firstPage = cachingReleaseService.findAllNotHidden(null,
+                3);
+        assertIds(cachingReleaseService.findAllNotHidden(firstPage.get(2), 3),
+                1L);
+        assertIds(cachingReleaseService.findAllNotHidden(firstPage.get(2), 3),
+                1L);
+
+        assertEquals(3, delegate.nFind);
+    }
+
+    @Test
+    public void testUpdateHidden() throws Exception {
+        cachingReleaseService.findAllNotHidden(null, 3);
+        Release release = releases.get(1);
+        release.setHidden(true);
+
+        cachingReleaseService.update(release);
+
+        // Only the missing release is queried
+        assertIds(cachingReleaseService.findAllNotHidden(null, 3), 4L, 3L, 1L);
+        assertEquals(2, delegate.nFind);
+        assertEquals(1, delegate.lastLimit);
+    }
+
+    @Test
+    public void testSaveOrUpdateInvalidates() throws Exception {
+        cachingReleaseService.findAllNotHidden(null, 3);
+
+        cachingReleaseService.saveOrUpdate(releases, false);
+        cachingReleaseService.findAllNotHidden(null, 3);
+
+        assertEquals(2, delegate.nFind);
+        assertEquals(3, delegate.lastLimit);
+    }
+
+    @Test
+    public void testDeleteByArtistId() throws Exception {
+        cachingReleaseService.findAllNotHidden(null, 10);
+
+        cachingReleaseService.deleteByArtistId(3L);
+
+        // The window contains the whole list, nothing to query
+        assertIds(cachingReleaseService.findAllNotHidden(null, 10), 4L, 2L,
+                1L);
+        assertEquals(1, delegate.nFind);
+    }
+
+    private static Release createRelease(Long id, long releaseDate) {
+        Artist artist = new Artist();
+        artist.setId(id);
+        Release release = new Release();
+        release.setId(id);
+        release.setArtist(artist);
+        release.setReleaseDate(new Date(releaseDate));
+        return release;
+    }
+
+    private static void assertIds(List<Release> actual, Long... expectedIds) {
+        List<Long> actualIds = new ArrayList<Long>();
+        for (Release release : actual) {
+            actualIds.add(release.getId());
+        }
+        assertEquals(Arrays.asList(expectedIds), actualIds);
+    }
+
+    /**
+     * Pages {@link CachingReleaseServiceTest#releases} instead of accessing
+     * the database.
+     */
+    private class ReleaseServiceUnderTest extends ReleaseServiceImpl {
+        private int nFind = 0;
+        private int lastLimit = 0;
+
+        @Override
+        public List<Release> findAllNotHidden(Release after, int limit) {
+            nFind++;
+            lastLimit = limit;
+            List<Release> page = new ArrayList<Release>();
+            boolean isAfter = after == null;
+            for (Release release : releases) {
+                if (isAfter && !Boolean.TRUE.equals(release.isHidden())
+                        && page.size() < limit) {
+                    page.add(release);
+                }
+                isAfter |= release == after;
+            }
+            return page;
+        }
+
+        @Override
+        int createReleaseDayLowerLimit() {
+            return 0;
+        }
+
+        @Override
+        public int update(Release release) {
+            return 1;
+        }
+
+        @Override
+        public void saveOrUpdate(List<Release> releases, boolean saveArtist) {
+        }
+
+        @Override
+        public void deleteByArtistId(long artistId) {
+        }
+    }
+}
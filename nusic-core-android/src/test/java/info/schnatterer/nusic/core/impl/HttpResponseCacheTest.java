@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import info.schnatterer.nusic.core.impl.HttpResponseCache.CachedResponse;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HttpResponseCacheTest {
+    private static final String URI = "http://musicbrainz.org/ws/2/release/?query=a&limit=100&offset=0";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCreateKeyIgnoresParameterOrder() {
+        assertEquals(HttpResponseCache.createKey(URI),
+                HttpResponseCache.createKey("http://musicbrainz.org/ws/2/release/?offset=0&query=a&limit=100"));
+        assertNotEquals(HttpResponseCache.createKey(URI),
+                HttpResponseCache.createKey("http://musicbrainz.org/ws/2/release/?query=a&limit=100&offset=100"));
+    }
+
+    @Test
+    public void testPutGet() {
+        HttpResponseCache cache = new HttpResponseCache(folder.getRoot(), 1000);
+        String key = HttpResponseCache.createKey(URI);
+        cache.put(key, new CachedResponse("\"etag\"", null, "text/xml",
+                new byte[] { 1, 2, 3 }));
+
+        CachedResponse actual = cache.get(key);
+        assertEquals("\"etag\"", actual.getETag());
+        assertNull(actual.getLastModified());
+        assertEquals("text/xml", actual.getContentType());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, actual.getBody());
+        assertNull(cache.get(HttpResponseCache.createKey(URI + "1")));
+    }
+
+    @Test
+    public void testPutEvictsLeastRecentlyUsed() {
+        HttpResponseCache cache = new HttpResponseCache(folder.getRoot(), 320);
+        cache.put("a", createResponse(100));
+        cache.put("b", createResponse(100));
+        cache.touch("a");
+        cache.put("c", createResponse(100));
+
+        assertNull(cache.get("b"));
+        assertFalse(new File(folder.getRoot(), "b").exists());
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(new File(folder.getRoot(), "a").length()
+                + new File(folder.getRoot(), "c").length(),
+                cache.getTotalBytes());
+    }
+
+    private CachedResponse createResponse(int size) {
+        return new CachedResponse("etag", null, null, new byte[size]);
+    }
+}
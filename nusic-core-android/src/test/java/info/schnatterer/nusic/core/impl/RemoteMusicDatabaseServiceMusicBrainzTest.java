@@ -22,18 +22,31 @@
 package info.schnatterer.nusic.core.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.Release;
 
+import java.net.URLEncoder;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.musicbrainz.MBWS2Exception;
-import org.musicbrainz.model.entity.ReleaseWs2;
-import org.musicbrainz.model.searchresult.ReleaseResultWs2;
+import org.musicbrainz.model.ArtistCreditWs2;
+import org.musicbrainz.model.NameCreditWs2;
+import org.musicbrainz.model.entity.ArtistWs2;
+import org.musicbrainz.model.entity.ReleaseGroupWs2;
+import org.musicbrainz.model.searchresult.ReleaseGroupResultWs2;
 
 import android.annotation.SuppressLint;
 
@@ -48,7 +61,7 @@ public class RemoteMusicDatabaseServiceMusicBrainzTest {
     private Date expectedFromDate = null;
     private final String expectedToDateStr = "9000-12-30";
     private Date expectedToDate = null;
-    private String EXPECTED_STRING_BASE = " AND date:[";
+    private String EXPECTED_STRING_BASE = " AND firstreleasedate:[";
     private String EXPECTED_STRING_OPEN_BEGINNING = EXPECTED_STRING_BASE
             + "0 TO " + expectedToDateStr + "]";
     private String EXPECTED_STRING_OPEN_END = EXPECTED_STRING_BASE
@@ -95,33 +108,251 @@ public class RemoteMusicDatabaseServiceMusicBrainzTest {
                 EXPECTED_STRING_REGULAR_DATES, actual.toString());
     }
 
+    @Test
+    public void testAppendArtist() {
+        StringBuffer actual = new StringBuffer();
+        remoteMusicDatabaseServiceMusicBrainz.appendArtist(actual,
+                "The \"Band\" \\ Co");
+        assertEquals("Unexpected result for artist with special characters",
+                "The \\\"Band\\\" \\\\ Co", actual.toString());
+    }
+
+    @Test
+    public void testFindReleasesByMusicBrainzId() throws Exception {
+        QueryMusicMetadataServiceMusicUnderTest service = new QueryMusicMetadataServiceMusicUnderTest();
+        Artist resolved = new Artist();
+        resolved.setArtistName("Resolved");
+        resolved.setMusicBrainzId("5b11f4ce-a62d-471e-81fc-a69a8278c7da");
+        Artist unresolved = new Artist();
+        unresolved.setArtistName("Unresolved");
+
+        service.findReleaseGroups(Arrays.asList(resolved, unresolved), null,
+                null);
+
+        assertEquals("Unexpected query",
+                "primarytype:album AND (arid:\"5b11f4ce-a62d-471e-81fc-a69a8278c7da\""
+                        + " OR artist:\"Unresolved\")",
+                service.getLastSearchText());
+    }
+
+    @Test
+    public void testFindReleaseGroups() throws Exception {
+        QueryMusicMetadataServiceMusicUnderTest service = new QueryMusicMetadataServiceMusicUnderTest();
+        Artist artist = new Artist();
+        artist.setArtistName("Artist");
+
+        service.findReleaseGroups(Arrays.asList(artist), expectedFromDate,
+                null);
+
+        assertEquals("Unexpected query", "primarytype:album"
+                + " AND firstreleasedate:[" + expectedFromDateStr + " TO ?]"
+                + " AND (artist:\"Artist\")", service.getLastSearchText());
+    }
+
+    @Test
+    public void testFindReleaseGroupsPacksArtistsUpToMaxUrlLength()
+            throws Exception {
+        QueryMusicMetadataServiceMusicUnderTest service = new QueryMusicMetadataServiceMusicUnderTest();
+        List<Artist> artists = new ArrayList<Artist>();
+        for (int i = 0; i < 100; i++) {
+            Artist artist = new Artist();
+            // Same length for all artists
+            artist.setArtistName(String.format(
+                    "Artist %03d with a rather long name", i));
+            artists.add(artist);
+        }
+
+        service.findReleaseGroups(artists, expectedFromDate, null);
+
+        List<String> queries = service.getSearchTexts();
+        assertTrue("Artists not split into several queries",
+                queries.size() > 1);
+        int nArtists = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            int urlLength = RemoteMusicDatabaseServiceMusicBrainz.URL_BASE_LENGTH
+                    + urlEncodedLength(query);
+            assertTrue("URL too long: " + urlLength,
+                    urlLength <= RemoteMusicDatabaseServiceMusicBrainz.MAX_URL_LENGTH);
+            nArtists += query.split("artist:").length - 1;
+            if (i < queries.size() - 1) {
+                int nextClauseLength = urlEncodedLength(" OR artist:\""
+                        + artists.get(nArtists).getArtistName() + "\"");
+                assertTrue(
+                        "Next artist would have fit into query " + i,
+                        urlLength + nextClauseLength > RemoteMusicDatabaseServiceMusicBrainz.MAX_URL_LENGTH);
+            }
+        }
+        assertEquals("Unexpected number of artists queried", artists.size(),
+                nArtists);
+    }
+
+    @Test
+    public void testFindReleaseGroupsSplitsArtistsWithSameKey()
+            throws Exception {
+        QueryMusicMetadataServiceMusicUnderTest service = new QueryMusicMetadataServiceMusicUnderTest();
+        Artist artist = new Artist();
+        artist.setArtistName("Artist");
+        Artist sameName = new Artist();
+        sameName.setArtistName(" artist ");
+        Artist other = new Artist();
+        other.setArtistName("Other");
+
+        service.findReleaseGroups(Arrays.asList(artist, other, sameName),
+                null, null);
+
+        assertEquals("Unexpected queries", Arrays.asList(
+                "primarytype:album AND (artist:\"Artist\" OR artist:\"Other\")",
+                "primarytype:album AND (artist:\" artist \")"),
+                service.getSearchTexts());
+    }
+
+    @Test
+    public void testFindReleaseGroupsRoutesResultsToArtists()
+            throws Exception {
+        QueryMusicMetadataServiceMusicUnderTest service = new QueryMusicMetadataServiceMusicUnderTest();
+        service.setMockedReleaseGroups(Arrays.asList(
+                createReleaseGroupResult("rgA", "A", "idA"),
+                createReleaseGroupResult("rgB", "B", "idB"),
+                createReleaseGroupResult("rgC", "C", "idC")));
+        Artist a = new Artist();
+        a.setArtistName("A");
+        Artist b = new Artist();
+        b.setArtistName("B");
+
+        List<Artist> actual = service.findReleaseGroups(
+                Arrays.asList(a, null, b), null, null);
+
+        assertEquals("Unexpected number of queries", 1, service
+                .getSearchTexts().size());
+        assertEquals(3, actual.size());
+        assertSame(a, actual.get(0));
+        assertNull(actual.get(1));
+        assertSame(b, actual.get(2));
+        assertEquals(1, a.getReleases().size());
+        assertEquals("rgA", a.getReleases().get(0).getMusicBrainzId());
+        assertSame(a, a.getReleases().get(0).getArtist());
+        assertEquals("idA", a.getMusicBrainzId());
+        assertEquals(1, b.getReleases().size());
+        assertEquals("rgB", b.getReleases().get(0).getMusicBrainzId());
+        assertSame(b, b.getReleases().get(0).getArtist());
+        assertEquals("idB", b.getMusicBrainzId());
+    }
+
+    @Test
+    public void testMusicBrainzIdOnlyLearnedFromSingleArtistCredit()
+            throws Exception {
+        Artist collaboration = new Artist();
+        collaboration.setArtistName("A & B");
+        Artist solo = new Artist();
+        solo.setArtistName("A");
+        Map<String, Artist> artists = new HashMap<String, Artist>();
+        artists.put("a & b", collaboration);
+        artists.put("a", solo);
+
+        remoteMusicDatabaseServiceMusicBrainz.processReleaseGroupResults(
+                artists, new HashMap<String, Release>(), Arrays.asList(
+                        createReleaseGroupResult("rg1", "A & B", "idA", "idB"),
+                        createReleaseGroupResult("rg2", "A", "idA")));
+
+        assertEquals(1, collaboration.getReleases().size());
+        assertNull("ID of first name credit learned for collaboration",
+                collaboration.getMusicBrainzId());
+        assertEquals(1, solo.getReleases().size());
+        assertEquals("idA", solo.getMusicBrainzId());
+    }
+
+    private static int urlEncodedLength(String queryPart) throws Exception {
+        return URLEncoder.encode(queryPart,
+                RemoteMusicDatabaseServiceMusicBrainz.URL_ENCODING).length();
+    }
+
+    /**
+     * Creates a search result by overriding the getters, as the MusicBrainz
+     * entities are only meant to be filled by the web service.
+     */
+    private static ReleaseGroupResultWs2 createReleaseGroupResult(
+            final String releaseGroupId, final String artistCreditString,
+            final String... artistIds) {
+        final List<NameCreditWs2> nameCredits = new LinkedList<NameCreditWs2>();
+        for (final String artistId : artistIds) {
+            nameCredits.add(new NameCreditWs2() {
+                @Override
+                public ArtistWs2 getArtist() {
+                    return new ArtistWs2() {
+                        @Override
+                        public String getId() {
+                            return artistId;
+                        }
+                    };
+                }
+            });
+        }
+        final ArtistCreditWs2 artistCredit = new ArtistCreditWs2() {
+            @Override
+            public String getArtistCreditString() {
+                return artistCreditString;
+            }
+
+            @Override
+            public List<NameCreditWs2> getNameCredits() {
+                return nameCredits;
+            }
+        };
+        ReleaseGroupResultWs2 result = new ReleaseGroupResultWs2();
+        result.setReleaseGroup(new ReleaseGroupWs2() {
+            @Override
+            public String getId() {
+                return releaseGroupId;
+            }
+
+            @Override
+            public String getTitle() {
+                return releaseGroupId;
+            }
+
+            @Override
+            public Date getFirstReleaseDate() {
+                return new Date(0);
+            }
+
+            @Override
+            public ArtistCreditWs2 getArtistCredit() {
+                return artistCredit;
+            }
+        });
+        return result;
+    }
+
     public class QueryMusicMetadataServiceMusicUnderTest extends
             RemoteMusicDatabaseServiceMusicBrainz {
 
         public QueryMusicMetadataServiceMusicUnderTest() {
             super(null, null, null);
+            rateLimiter = new AdaptiveRateLimiter(null, 0);
         }
 
-        private String lastSearchText;
-        private List<ReleaseWs2> mockedReleases;
+        private List<String> searchTexts = new LinkedList<String>();
+        private List<ReleaseGroupResultWs2> mockedReleaseGroups = new LinkedList<ReleaseGroupResultWs2>();
 
         public String getLastSearchText() {
-            return lastSearchText;
+            return searchTexts.get(searchTexts.size() - 1);
         }
 
-        public List<ReleaseWs2> getMockedReleases() {
-            return mockedReleases;
+        public List<String> getSearchTexts() {
+            return searchTexts;
         }
 
-        public void setMockedReleases(List<ReleaseWs2> mockedReleases) {
-            this.mockedReleases = mockedReleases;
+        public void setMockedReleaseGroups(
+                List<ReleaseGroupResultWs2> mockedReleaseGroups) {
+            this.mockedReleaseGroups = mockedReleaseGroups;
         }
 
         @Override
-        protected org.musicbrainz.controller.Release createReleaseSearch(
+        protected org.musicbrainz.controller.ReleaseGroup createReleaseGroupSearch(
                 String userAgentName, String userAgentVersion,
                 String userAgentContact) {
-            return new org.musicbrainz.controller.Release() {
+            return new org.musicbrainz.controller.ReleaseGroup() {
                 @Override
                 public boolean hasMore() {
                     return false;
@@ -130,21 +361,13 @@ public class RemoteMusicDatabaseServiceMusicBrainzTest {
                 @Override
                 public void search(String searchText) {
                     super.search(searchText);
-                    lastSearchText = searchText;
+                    searchTexts.add(searchText);
                 }
 
                 @Override
-                public List<ReleaseResultWs2> getFirstSearchResultPage()
+                public List<ReleaseGroupResultWs2> getFirstSearchResultPage()
                         throws MBWS2Exception {
-                    List<ReleaseResultWs2> ret = new LinkedList<ReleaseResultWs2>();
-                    for (ReleaseWs2 releaseWs2 : mockedReleases) {
-                        ReleaseResultWs2 result = new ReleaseResultWs2();
-                        result.setRelease(releaseWs2);
-                        result.getEntity().setIdUri("someId");
-                        ret.add(result);
-                    }
-
-                    return ret;
+                    return mockedReleaseGroups;
                 }
             };
         }
@@ -23,6 +23,8 @@ package info.schnatterer.nusic.core;
 
 import info.schnatterer.nusic.data.model.Artist;
 
+import java.util.List;
+
 /**
  * Provides access to the {@link Artist}s stored locally. This would be the
  * place to implement transaction handling.
@@ -35,6 +37,19 @@ public interface ArtistService {
 
     int update(Artist artist) throws ServiceException;
 
+    /**
+     * Writes only {@link Artist#isHidden()} of an artist. In contrast to
+     * {@link #update(Artist)}, this does not overwrite the other columns with
+     * the values of <code>artist</code>, which might be outdated (e.g. if a
+     * sync stored new values in the meantime).
+     * 
+     * @param artist
+     *            an artist that was stored before
+     * @return the number of artists updated
+     * @throws ServiceException
+     */
+    int updateIsHidden(Artist artist) throws ServiceException;
+
     /**
      * Creates a new {@link Artist} or updates an existing one (matching by
      * {@link Artist#getAndroidAudioArtistId()}).
@@ -45,4 +60,65 @@ public interface ArtistService {
      */
     long saveOrUpdate(Artist artist) throws ServiceException;
 
-}
\ No newline at end of file
+    /**
+     * Creates new {@link Artist}s or updates existing ones (matching by
+     * {@link Artist#getAndroidAudioArtistId()}), including their
+     * {@link Artist#getReleases()}. All of them are written within one
+     * transaction, which is a lot faster than calling
+     * {@link #saveOrUpdate(Artist)} for each artist.
+     * 
+     * @param artists
+     * @throws ServiceException
+     *             error writing any of the artists. None of them is written
+     *             then.
+     */
+    void saveOrUpdate(List<Artist> artists) throws ServiceException;
+
+    /**
+     * Starts reconciling the artists found on the device with the ones stored
+     * locally, reading all stored artists with one query instead of one query
+     * per artist. The artists found on the device can then be passed to the
+     * {@link Reconciliation} one at a time, while they are read.
+     * 
+     * @return a new reconciliation
+     * @throws ServiceException
+     */
+    Reconciliation startReconciliation() throws ServiceException;
+
+    /**
+     * Reconciles the artists found on the device with the ones stored locally.
+     * Not thread-safe.
+     */
+    public static interface Reconciliation {
+        /**
+         * Matches a device artist with a stored artist by
+         * {@link Artist#getAndroidAudioArtistId()}, if their names match as
+         * well. Otherwise by name only, because the android IDs change when
+         * the device's media store is rebuilt (e.g. after a rescan or
+         * remounting the SD card) and might then be reused for other
+         * artists.<br/>
+         * <br/>
+         * Artists that are stored already get their {@link Artist#getId()},
+         * {@link Artist#getDateCreated()} and {@link Artist#getDateLastSynced()}
+         * set, so they are updated by {@link ArtistService#saveOrUpdate(List)}
+         * without any further lookup. Artists whose ID remains
+         * <code>null</code> are new and are inserted by
+         * {@link ArtistService#saveOrUpdate(List)}.
+         * 
+         * @param deviceArtist
+         *            an artist found on the device
+         */
+        void match(Artist deviceArtist);
+
+        /**
+         * Deletes the stored artists that were not matched, i.e. that are no
+         * longer on the device, including their releases. Only call this after
+         * all artists found on the device have been matched! If no artists
+         * were matched at all, nothing is deleted.
+         * 
+         * @return the number of artists deleted
+         * @throws ServiceException
+         */
+        int deleteUnmatched() throws ServiceException;
+    }
+}
@@ -23,6 +23,8 @@ package info.schnatterer.nusic.core;
 
 import info.schnatterer.nusic.data.model.Artist;
 
+import java.util.Iterator;
+
 /**
  * Provides access to music located on the local device.
  * 
@@ -39,4 +41,30 @@ public interface DeviceMusicService {
      */
     Artist[] getArtists() throws ServiceException;
 
+    /**
+     * Reads the artists stored on local device one at a time, instead of
+     * creating all of them at once like {@link #getArtists()}. <b>Make sure to
+     * close the iterator when finished!</b>
+     * 
+     * @return an iterator over all artists. Never <code>null</code>.
+     * @throws ServiceException
+     */
+    ArtistIterator getArtistIterator() throws ServiceException;
+
+    /**
+     * Iterates the artists stored on the device, while they are read.
+     * {@link #remove()} is not supported.
+     */
+    public static interface ArtistIterator extends Iterator<Artist> {
+        /**
+         * @return the number of artists that are iterated in total
+         */
+        int getCount();
+
+        /**
+         * Releases the resources of the iterator. Calling it more than once
+         * has no effect.
+         */
+        void close();
+    }
 }
\ No newline at end of file
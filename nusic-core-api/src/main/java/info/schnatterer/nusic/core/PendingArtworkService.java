@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.core;
+
+import info.schnatterer.nusic.data.model.Release;
+
+import java.util.List;
+
+/**
+ * Manages a persistent queue of artwork that is still to be downloaded. This
+ * decouples the download of the artwork from finding the releases (see
+ * {@link RemoteMusicDatabaseService}) and allows for retrying failed downloads
+ * later on, without having to query the releases again.
+ *
+ * @author schnatterer
+ *
+ */
+public interface PendingArtworkService {
+
+    /**
+     * Adds the artwork of releases to the queue, unless it was downloaded
+     * before or is already queued.
+     *
+     * @param releases
+     *            releases that have already been saved, i.e. that have an
+     *            {@link Release#getId()}
+     * @throws ServiceException
+     */
+    void addPendingArtwork(List<Release> releases) throws ServiceException;
+
+    /**
+     * Downloads all artwork in the queue that is due. Failed downloads are
+     * retried by later calls, after a delay that increases with each attempt.
+     * Releases that have no artwork remain in the queue, so they are not
+     * queued again, and are checked again after a long delay.
+     *
+     * @return the number of artworks that were downloaded
+     * @throws ServiceException
+     *             error reading or writing the queue
+     */
+    int downloadPendingArtwork() throws ServiceException;
+
+    /**
+     * Deletes the downloaded artwork whose release no longer exists.
+     *
+     * @return the number of artworks deleted
+     * @throws ServiceException
+     */
+    int deleteOrphanedArtwork() throws ServiceException;
+}
@@ -56,6 +56,128 @@ public interface PreferencesService {
      */
     boolean setLastReleaseRefresh(Date date);
 
+    /**
+     * Gets the last time the {@link Release}s of all artists have been loaded
+     * from the internet for the whole
+     * {@link #getDownloadReleasesTimePeriod()}, as opposed to the incremental
+     * refreshs in between.
+     *
+     * @return the date or <code>null</code> if there never was a full refresh
+     */
+    Date getLastFullReleaseRefresh();
+
+    /**
+     * @return the {@link #getDownloadReleasesTimePeriod()} that was valid
+     *         during {@link #getLastFullReleaseRefresh()}.
+     */
+    int getLastFullReleaseRefreshTimePeriod();
+
+    /**
+     * Sets the last time the {@link Release}s of all artists have been loaded
+     * from the internet for the whole time period.
+     *
+     * @param date
+     * @param downloadReleasesTimePeriod
+     *            the {@link #getDownloadReleasesTimePeriod()} that was used for
+     *            the refresh
+     * @return <code>true</code> if the new values were successfully written to
+     *         persistent storage
+     */
+    boolean setLastFullReleaseRefresh(Date date, int downloadReleasesTimePeriod);
+
+    /**
+     * @return amount of days between two full refreshs of the releases.
+     *         Refreshs in between only query releases since the last refresh
+     *         of each artist.
+     */
+    int getFullReleaseRefreshPeriod();
+
+    /**
+     * Gets the date when the sync of releases that is currently running or was
+     * interrupted (e.g. because the process was killed) was started. Together
+     * with the other <code>SyncCheckpoint</code> values, this allows for
+     * resuming the sync.
+     *
+     * @return the date or <code>null</code> if the last sync was completed
+     */
+    Date getSyncCheckpointRunDate();
+
+    /**
+     * @return the start date of the time period queried by the sync of
+     *         {@link #getSyncCheckpointRunDate()}. <code>null</code> if
+     *         unbounded.
+     */
+    Date getSyncCheckpointStartDate();
+
+    /**
+     * @return the end date of the time period queried by the sync of
+     *         {@link #getSyncCheckpointRunDate()}. <code>null</code> if
+     *         unbounded.
+     */
+    Date getSyncCheckpointEndDate();
+
+    /**
+     * @return <code>true</code> if the sync of
+     *         {@link #getSyncCheckpointRunDate()} is a full sync
+     */
+    boolean isSyncCheckpointFullSync();
+
+    /**
+     * @return the index of the last artist that was written to the database by
+     *         the sync of {@link #getSyncCheckpointRunDate()}, <code>-1</code>
+     *         if none
+     */
+    int getSyncCheckpointIndex();
+
+    /**
+     * Stores the checkpoint of a sync that was just started.
+     *
+     * @param runDate
+     *            the date the sync was started
+     * @param startDate
+     *            start of the time period queried, <code>null</code> if
+     *            unbounded
+     * @param endDate
+     *            end of the time period queried, <code>null</code> if
+     *            unbounded
+     * @param fullSync
+     * @return <code>true</code> if the new values were successfully written to
+     *         persistent storage
+     */
+    boolean setSyncCheckpoint(Date runDate, Date startDate, Date endDate,
+            boolean fullSync);
+
+    /**
+     * @param index
+     *            the index of the last artist that was written to the database
+     * @return <code>true</code> if the new values were successfully written to
+     *         persistent storage
+     */
+    boolean setSyncCheckpointIndex(int index);
+
+    /**
+     * Removes the checkpoint after the sync has ended.
+     *
+     * @return <code>true</code> if the new values were successfully written to
+     *         persistent storage
+     */
+    boolean clearSyncCheckpoint();
+
+    /**
+     * @return the number of requests per second MusicBrainz accepted during
+     *         the last sync, <code>0</code> if not known yet
+     */
+    float getMusicBrainzRequestRate();
+
+    /**
+     * @param rate
+     *            the number of requests per second MusicBrainz currently
+     *            accepts
+     * @return <code>true</code> if the new values were successfully written to
+     *         persistent storage
+     */
+    boolean setMusicBrainzRequestRate(float rate);
+
     /**
      * @return <code>true</code> if the user has checked to only download images
      *         on Wi-Fi. Otherwise <code>false</code>
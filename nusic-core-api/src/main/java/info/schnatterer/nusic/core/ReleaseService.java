@@ -23,6 +23,7 @@ package info.schnatterer.nusic.core;
 
 import info.schnatterer.nusic.data.model.Artist;
 import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
 
 import java.util.List;
 
@@ -110,6 +111,18 @@ public interface ReleaseService {
     List<Release> findAvailableToday(boolean isAvailable)
             throws ServiceException;
 
+    /**
+     * Pages {@link #findAvailableToday(boolean)}.
+     * 
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases returned
+     */
+    List<Release> findAvailableToday(boolean isAvailable, Release after,
+            int limit) throws ServiceException;
+
     /**
      * Finds all releases that are not hidden.
      * 
@@ -118,6 +131,27 @@ public interface ReleaseService {
      */
     List<Release> findAllNotHidden() throws ServiceException;
 
+    /**
+     * Pages {@link #findAllNotHidden()}.
+     * 
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases returned
+     */
+    List<Release> findAllNotHidden(Release after, int limit)
+            throws ServiceException;
+
+    /**
+     * Deletes all releases of an artist.
+     * 
+     * @param artistId
+     *            {@link Artist#getId()}
+     * @throws ServiceException
+     */
+    void deleteByArtistId(long artistId) throws ServiceException;
+
     /**
      * Set <code>isHidden</code> to <code>false</code> for all {@link Release}s
      * <b>and {@link Artist}s</b>.
@@ -126,4 +160,38 @@ public interface ReleaseService {
 
     List<Release> findJustCreated() throws ServiceException;
 
+    /**
+     * Pages {@link #findJustCreated()}.
+     * 
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases returned
+     */
+    List<Release> findJustCreated(Release after, int limit)
+            throws ServiceException;
+
+    /**
+     * Same as {@link #findAllNotHidden()}, but returns a cursor instead of
+     * creating all releases. <b>Make sure to close the cursor when
+     * finished!</b>
+     */
+    ReleaseCursor queryAllNotHidden() throws ServiceException;
+
+    /**
+     * Same as {@link #findJustCreated()}, but returns a cursor instead of
+     * creating all releases. <b>Make sure to close the cursor when
+     * finished!</b>
+     */
+    ReleaseCursor queryJustCreated() throws ServiceException;
+
+    /**
+     * Same as {@link #findAvailableToday(boolean)}, but returns a cursor
+     * instead of creating all releases. <b>Make sure to close the cursor when
+     * finished!</b>
+     */
+    ReleaseCursor queryAvailableToday(boolean isAvailable)
+            throws ServiceException;
+
 }
\ No newline at end of file
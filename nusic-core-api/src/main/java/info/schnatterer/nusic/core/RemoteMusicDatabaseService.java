@@ -22,9 +22,11 @@
 package info.schnatterer.nusic.core;
 
 import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.ArtworkType;
 import info.schnatterer.nusic.data.model.Release;
 
 import java.util.Date;
+import java.util.List;
 
 /**
  * Wraps access to a remote service that provides information about releases.
@@ -37,20 +39,66 @@ import java.util.Date;
 public interface RemoteMusicDatabaseService {
 
     /**
-     * Finds releases by artist.
+     * Finds the releases of several artists on the level of release groups
+     * (i.e. albums) instead of individual releases (i.e. the different
+     * editions, countries and formats of an album). This returns about one
+     * result per album. Combines as many artists as possible into one query,
+     * which requires less requests than querying each artist on its own. Does
+     * not download the artwork, see {@link #downloadArtwork(Release)}.
      * 
-     * @param artist
-     *            the artist to query releases for.
+     * The date of each release is the date the album was first released.
+     * Albums that were first released before <code>fromDate</code> are not
+     * returned, even if one of their editions was released within the time
+     * range.
+     * 
+     * @param artists
+     *            the artists to query releases for.
      * @param fromDate
-     *            the lower boundary of the time range in which release were
-     *            published
+     *            the lower boundary of the time range in which the albums
+     *            were first released
      * @param endDate
-     *            the upper boundary of the time range in which release were
-     *            published
-     * @return an artists object that contains all the releases that were
-     *         published in the specified time range
+     *            the upper boundary of the time range in which the albums
+     *            were first released
+     * @return the artists passed in the same order, each containing the
+     *         releases that were first released in the specified time range.
+     *         An element is <code>null</code>, if the corresponding artist
+     *         could not be queried (e.g. because it has no name).
+     * @throws ServiceException
+     *             error querying any of the artists
+     */
+    List<Artist> findReleaseGroups(List<Artist> artists, Date fromDate,
+            Date endDate) throws ServiceException;
+
+    /**
+     * Downloads the artwork of a release that was returned by
+     * {@link #findReleaseGroups(List, Date, Date)} and stores it locally.
+     * 
+     * @param release
+     *            the release to download the artwork for
+     * @return <code>true</code> if the artwork exists locally now,
+     *         <code>false</code> if the remote database has no artwork for
+     *         the release
+     * @throws ServiceException
+     *             error downloading or storing the artwork
+     */
+    boolean downloadArtwork(Release release) throws ServiceException;
+
+    /**
+     * Same as {@link #downloadArtwork(Release)}, but downloads the artwork in
+     * a specific resolution. Meant for downloading the resolutions other than
+     * {@link ArtworkType#SMALL} on demand. Does nothing if the artwork already
+     * exists.
+     * 
+     * @param release
+     *            the release to download the artwork for
+     * @param type
+     *            the resolution to download
+     * @return <code>true</code> if the artwork exists locally now,
+     *         <code>false</code> if the remote database has no artwork for
+     *         the release
      * @throws ServiceException
+     *             error downloading or storing the artwork
      */
-    Artist findReleases(Artist artist, Date fromDate, Date endDate)
+    boolean downloadArtwork(Release release, ArtworkType type)
             throws ServiceException;
 }
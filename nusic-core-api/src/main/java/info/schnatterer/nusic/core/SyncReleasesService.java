@@ -37,8 +37,10 @@ public interface SyncReleasesService {
     /**
      * Synchronizes the releases in the local database with the one from the
      * internet. The time period queried depends on
-     * {@link PreferencesService#getDownloadReleasesTimePeriod()} and
-     * {@link PreferencesService#getLastReleaseRefresh()}.
+     * {@link PreferencesService#getDownloadReleasesTimePeriod()}.<br/>
+     * Artists that were synced before are only queried for releases since
+     * their {@link Artist#getDateLastSynced()}, unless a full sync is due (see
+     * {@link PreferencesService#getFullReleaseRefreshPeriod()}).
      *
      */
     void syncReleases();
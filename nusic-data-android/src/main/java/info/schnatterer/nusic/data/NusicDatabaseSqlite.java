@@ -22,6 +22,7 @@
 package info.schnatterer.nusic.data;
 
 import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.PendingArtwork;
 import info.schnatterer.nusic.data.model.Release;
 import info.schnatterer.nusic.data.util.SqliteUtil;
 import info.schnatterer.nusic.util.DateUtil;
@@ -59,7 +60,7 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "nusic";
 
     /** Last app version that needed a database update. */
-    private static final int DATABASE_VERSION = SqliteDatabaseVersion.V6;
+    private static final int DATABASE_VERSION = SqliteDatabaseVersion.V11;
 
     private static final String DATABASE_TABLE_CREATE = "CREATE TABLE ";
     private static final String DATABASE_TABLE_DROP = "DROP TABLE ";
@@ -68,7 +69,7 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
     private static final String DATABASE_REFERENCES = "REFERENCES ";
 
     @Inject
-    private static Provider<Context> contextProvider;
+    static Provider<Context> contextProvider;
 
     public NusicDatabaseSqlite() {
         super(contextProvider.get(), DATABASE_NAME, null, DATABASE_VERSION);
@@ -90,6 +91,9 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(TableArtist.create());
         db.execSQL(TableRelease.create());
+        db.execSQL(TableRelease.createIndexMbId());
+        db.execSQL(TablePendingArtwork.create());
+        createIndexes(db);
     }
 
     @Override
@@ -129,9 +133,57 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                     TableRelease.COLUMN_COVERARTARCHIVE_ID,
                     TableRelease.TYPE_COLUMN_COVERARTARCHIVE_ID));
         }
+        if (oldVersion < SqliteDatabaseVersion.V7) {
+            // Null results in a full sync of the artist
+            db.execSQL(addColumn(TableArtist.NAME,
+                    TableArtist.COLUMN_DATE_LAST_SYNCED,
+                    TableArtist.TYPE_COLUMN_DATE_LAST_SYNCED));
+        }
+        if (oldVersion < SqliteDatabaseVersion.V8) {
+            db.execSQL(TablePendingArtwork.create());
+        }
+        if (oldVersion < SqliteDatabaseVersion.V9) {
+            /*
+             * Earlier versions might have stored the same release more than
+             * once. Keep the oldest one in order to keep its date created.
+             */
+            db.execSQL(TablePendingArtwork.deleteByReleaseIdNotIn(TableRelease
+                    .selectOldestIdsByMbId()));
+            db.execSQL(TableRelease.deleteByIdNotIn(TableRelease
+                    .selectOldestIdsByMbId()));
+            db.execSQL(TableRelease.createIndexMbId());
+        }
+        if (oldVersion < SqliteDatabaseVersion.V10) {
+            db.execSQL(TableArtist.createIndexAndroidId());
+            db.execSQL(TableRelease.createIndexFkIdArtist());
+            db.execSQL(TableRelease.createIndexDateReleased());
+            db.execSQL(TableRelease.createIndexDateCreated());
+        }
+        if (oldVersion < SqliteDatabaseVersion.V11) {
+            db.execSQL(addColumn(TableRelease.NAME,
+                    TableRelease.COLUMN_DAY_RELEASED,
+                    TableRelease.TYPE_COLUMN_DAY_RELEASED));
+            db.execSQL(TableRelease.updateDayReleased());
+            // The release lists filter and sort by day now
+            db.execSQL(dropIndex(TableRelease.INDEX_NAME_DATE_RELEASED));
+            db.execSQL(TableRelease.createIndexDayReleased());
+        }
         // When changing the database, don't forget to create a new version
     }
 
+    /**
+     * Creates the secondary indexes for the columns that are used for lookups
+     * during sync and for filtering and sorting the release lists.
+     * 
+     * @param db
+     */
+    static void createIndexes(SQLiteDatabase db) {
+        db.execSQL(TableArtist.createIndexAndroidId());
+        db.execSQL(TableRelease.createIndexFkIdArtist());
+        db.execSQL(TableRelease.createIndexDayReleased());
+        db.execSQL(TableRelease.createIndexDateCreated());
+    }
+
     /**
      * Adds a column at the end of a table.
      * 
@@ -176,6 +228,44 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
         return sql.toString();
     }
 
+    /**
+     * Facilitates creation of a createIndex String
+     * 
+     * @param unique
+     *            <code>true</code> creates a unique index
+     * @param indexName
+     *            the index name
+     * @param tableName
+     *            the table name
+     * @param columns
+     *            at least one column, the order matters
+     * @return an SQL string that creates the index
+     */
+    static String createIndex(boolean unique, String indexName,
+            String tableName, String... columns) {
+        StringBuffer sql = new StringBuffer("CREATE ");
+        if (unique) {
+            sql.append("UNIQUE ");
+        }
+        sql.append("INDEX ").append(indexName).append(" ON ")
+                .append(tableName).append("(").append(columns[0]);
+        for (int i = 1; i < columns.length; i++) {
+            sql.append(", ").append(columns[i]);
+        }
+        sql.append(");");
+        return sql.toString();
+    }
+
+    /**
+     * @param indexName
+     *            the index to drop
+     * @return an SQL string that drops the index, if it exists
+     */
+    static String dropIndex(String indexName) {
+        return new StringBuffer("DROP INDEX IF EXISTS ").append(indexName)
+                .toString();
+    }
+
     public static interface SqliteDatabaseVersion {
         /**
          * Very first release of this app
@@ -197,6 +287,19 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
         int V5 = 5;
         /** Added column for release cover art archive ID. */
         int V6 = 6;
+        /** Added column for the last successful sync of an artist. */
+        int V7 = 7;
+        /** Added table for artwork that is still to be downloaded. */
+        int V8 = 8;
+        /** Made release.mbId unique, removing duplicate releases. */
+        int V9 = 9;
+        /** Added indexes for lookups, joins and the release lists. */
+        int V10 = 10;
+        /**
+         * Added {@link TableRelease#COLUMN_DAY_RELEASED}, the release lists are
+         * queried by day instead of by timestamp.
+         */
+        int V11 = 11;
     }
 
     /**
@@ -250,11 +353,26 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
         public static final String TYPE_COLUMN_COVERARTARCHIVE_ID = "INTEGER";
         public static final int INDEX_COLUMN_COVERARTARCHIVE_ID = 8;
 
+        /**
+         * Days since 1970-01-01 of {@link #COLUMN_DATE_RELEASED}. Derived on
+         * each write, so the release lists can be queried by day.
+         */
+        public static final String COLUMN_DAY_RELEASED = "dayReleased";
+        public static final String TYPE_COLUMN_DAY_RELEASED = "INTEGER";
+        public static final int INDEX_COLUMN_DAY_RELEASED = 9;
+
+        public static final String INDEX_NAME_MB_ID = "idx_release_mbId";
+        public static final String INDEX_NAME_FK_ID_ARTIST = "idx_release_fkIdArtist";
+        public static final String INDEX_NAME_DATE_RELEASED = "idx_release_dateReleased";
+        public static final String INDEX_NAME_DATE_CREATED = "idx_release_dateCreated";
+        public static final String INDEX_NAME_DAY_RELEASED = "idx_release_dayReleased";
+
         public static final List<String> COLUMNS = Collections.unmodifiableList(
                 Arrays.asList(COLUMN_ID, COLUMN_MB_ID,
                 COLUMN_NAME, COLUMN_DATE_RELEASED, COLUMN_DATE_CREATED,
                 COLUMN_RELEASEARTWORK_PATH, COLUMN_FK_ID_ARTIST,
-                COLUMN_IS_HIDDEN, COLUMN_COVERARTARCHIVE_ID));
+                COLUMN_IS_HIDDEN, COLUMN_COVERARTARCHIVE_ID,
+                COLUMN_DAY_RELEASED));
 
         public static final String COLUMNS_ALL = new StringBuilder(NAME)
                 .append(".").append(COLUMN_ID).append(",").append(NAME)
@@ -267,7 +385,8 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                 .append(".").append(COLUMN_FK_ID_ARTIST).append(",")
                 .append(NAME).append(".").append(COLUMN_IS_HIDDEN).append(",")
                 .append(NAME).append(".").append(COLUMN_COVERARTARCHIVE_ID)
-                .toString();
+                .append(",").append(NAME).append(".")
+                .append(COLUMN_DAY_RELEASED).toString();
 
         public static Long toId(Cursor cursor, int startIndex) {
             return cursor.getLong(startIndex + INDEX_COLUMN_RELEASEID);
@@ -285,10 +404,10 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                     + INDEX_COLUMN_RELEASEDATE_RELEASED));
             release.setReleaseName(cursor.getString(startIndex
                     + INDEX_COLUMN_RELEASENAME));
-            release.setHidden(SqliteUtil.loadBoolean(cursor,
-                    INDEX_COLUMN_IS_HIDDEN));
-            release.setCoverartArchiveId(cursor
-                    .getLong(INDEX_COLUMN_COVERARTARCHIVE_ID));
+            release.setHidden(SqliteUtil.loadBoolean(cursor, startIndex
+                    + INDEX_COLUMN_IS_HIDDEN));
+            release.setCoverartArchiveId(cursor.getLong(startIndex
+                    + INDEX_COLUMN_COVERARTARCHIVE_ID));
 
             return release;
         }
@@ -301,6 +420,8 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                     release.getReleaseName());
             SqliteUtil.putIfNotNull(values, COLUMN_DATE_RELEASED,
                     DateUtil.toLong(release.getReleaseDate()));
+            SqliteUtil.putIfNotNull(values, COLUMN_DAY_RELEASED,
+                    DateUtil.toEpochDay(release.getReleaseDate()));
             SqliteUtil.putIfNotNull(values, COLUMN_DATE_CREATED,
                     DateUtil.toLong(release.getDateCreated()));
             // SqliteUtil.putIfNotNull(values, COLUMN_RELEASEARTWORK_PATH,
@@ -323,11 +444,108 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                     TYPE_COLUMN_RELEASEARTWORK_PATH, COLUMN_FK_ID_ARTIST,
                     TYPE_COLUMN_FK_ID_ARTIST, COLUMN_IS_HIDDEN,
                     TYPE_COLUMN_IS_HIDDEN, COLUMN_COVERARTARCHIVE_ID,
-                    TYPE_COLUMN_COVERARTARCHIVE_ID,
+                    TYPE_COLUMN_COVERARTARCHIVE_ID, COLUMN_DAY_RELEASED,
+                    TYPE_COLUMN_DAY_RELEASED,
                     // Constraints
                     TYPE_COLUMN_FK_ID_CONSTRAINT_FK,
                     TYPE_COLUMN_FK_ID_CONSTRAINT_REFERENCES);
         }
+
+        /**
+         * @return an SQL string that creates a unique index on
+         *         {@link #COLUMN_MB_ID}, which is the conflict target of
+         *         <code>INSERT OR IGNORE</code> statements.
+         */
+        public static String createIndexMbId() {
+            return createIndex(true, INDEX_NAME_MB_ID, NAME, COLUMN_MB_ID);
+        }
+
+        /**
+         * @return an SQL string that creates an index on
+         *         {@link #COLUMN_FK_ID_ARTIST} for joining with
+         *         {@link TableArtist}.
+         */
+        public static String createIndexFkIdArtist() {
+            return createIndex(false, INDEX_NAME_FK_ID_ARTIST, NAME,
+                    COLUMN_FK_ID_ARTIST);
+        }
+
+        /**
+         * @return an SQL string that creates an index for querying and sorting
+         *         by {@link #COLUMN_DATE_RELEASED}. Contains
+         *         {@link #COLUMN_IS_HIDDEN}, so hidden releases can be filtered
+         *         without reading the table row.
+         */
+        public static String createIndexDateReleased() {
+            return createIndex(false, INDEX_NAME_DATE_RELEASED, NAME,
+                    COLUMN_DATE_RELEASED, COLUMN_IS_HIDDEN);
+        }
+
+        /**
+         * @return an SQL string that creates an index for querying by
+         *         {@link #COLUMN_DAY_RELEASED}. Contains
+         *         {@link #COLUMN_DATE_RELEASED} (and implicitly
+         *         {@link #COLUMN_ID}), so the release lists can be sorted
+         *         without a temporary B-tree.
+         */
+        public static String createIndexDayReleased() {
+            return createIndex(false, INDEX_NAME_DAY_RELEASED, NAME,
+                    COLUMN_DAY_RELEASED, COLUMN_DATE_RELEASED);
+        }
+
+        /**
+         * @return an SQL string that creates an index for querying by
+         *         {@link #COLUMN_DATE_CREATED}. Contains
+         *         {@link #COLUMN_IS_HIDDEN}, so hidden releases can be filtered
+         *         without reading the table row.
+         */
+        public static String createIndexDateCreated() {
+            return createIndex(false, INDEX_NAME_DATE_CREATED, NAME,
+                    COLUMN_DATE_CREATED, COLUMN_IS_HIDDEN);
+        }
+
+        /**
+         * @return an SQL string that derives {@link #COLUMN_DAY_RELEASED} from
+         *         {@link #COLUMN_DATE_RELEASED} for all existing releases.
+         *         Rounds towards negative infinity like
+         *         {@link DateUtil#toEpochDay(long)}.
+         */
+        static String updateDayReleased() {
+            long day = DateUtil.MILLIS_PER_DAY;
+            return new StringBuilder("UPDATE ").append(NAME).append(" SET ")
+                    .append(COLUMN_DAY_RELEASED).append(" = CASE WHEN ")
+                    .append(COLUMN_DATE_RELEASED).append(" >= 0 THEN ")
+                    .append(COLUMN_DATE_RELEASED).append(" / ").append(day)
+                    .append(" ELSE (").append(COLUMN_DATE_RELEASED)
+                    .append(" - ").append(day - 1).append(") / ").append(day)
+                    .append(" END WHERE ").append(COLUMN_DATE_RELEASED)
+                    .append(" IS NOT NULL").toString();
+        }
+
+        /**
+         * @return an SQL string that selects the ID of the oldest release per
+         *         {@link #COLUMN_MB_ID}. Releases without MusicBrainz ID are
+         *         all selected.
+         */
+        static String selectOldestIdsByMbId() {
+            return new StringBuilder("SELECT MIN(").append(COLUMN_ID)
+                    .append(") FROM ").append(NAME).append(" GROUP BY ")
+                    .append(COLUMN_MB_ID).append(" UNION SELECT ")
+                    .append(COLUMN_ID).append(" FROM ").append(NAME)
+                    .append(" WHERE ").append(COLUMN_MB_ID).append(" IS NULL")
+                    .toString();
+        }
+
+        /**
+         * @param selectIds
+         *            SQL string that selects the IDs of the releases to keep
+         * @return an SQL string that deletes all other releases
+         */
+        static String deleteByIdNotIn(String selectIds) {
+            return new StringBuilder("DELETE FROM ").append(NAME)
+                    .append(" WHERE ").append(COLUMN_ID).append(" NOT IN (")
+                    .append(selectIds).append(")").toString();
+        }
     }
 
     /**
@@ -364,13 +582,21 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
         public static final String TYPE_COLUMN_IS_HIDDEN = "INTEGER";
         public static final int INDEX_COLUMN_IS_HIDDEN = 5;
 
+        public static final String COLUMN_DATE_LAST_SYNCED = "dateLastSynced";
+        public static final String TYPE_COLUMN_DATE_LAST_SYNCED = "INTEGER";
+        public static final int INDEX_COLUMN_DATE_LAST_SYNCED = 6;
+
+        public static final String INDEX_NAME_ANDROID_ID = "idx_artist_androidId";
+
         public static final String COLUMNS_ALL = new StringBuilder(NAME)
                 .append(".").append(COLUMN_ID).append(",").append(NAME)
                 .append(".").append(COLUMN_ANDROID_ID).append(",").append(NAME)
                 .append(".").append(COLUMN_MB_ID).append(",").append(NAME)
                 .append(".").append(COLUMN_NAME).append(",").append(NAME)
                 .append(".").append(COLUMN_DATE_CREATED).append(",")
-                .append(NAME).append(".").append(COLUMN_IS_HIDDEN).toString();
+                .append(NAME).append(".").append(COLUMN_IS_HIDDEN).append(",")
+                .append(NAME).append(".").append(COLUMN_DATE_LAST_SYNCED)
+                .toString();
 
         public static Long toId(Cursor cursor, int startIndex) {
             return cursor.getLong(startIndex + INDEX_COLUMN_ID);
@@ -387,8 +613,10 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                     + INDEX_COLUMN_MB_ID));
             artist.setArtistName(cursor.getString(startIndex
                     + INDEX_COLUMN_NAME));
-            artist.setHidden(SqliteUtil.loadBoolean(cursor,
-                    INDEX_COLUMN_IS_HIDDEN));
+            artist.setHidden(SqliteUtil.loadBoolean(cursor, startIndex
+                    + INDEX_COLUMN_IS_HIDDEN));
+            artist.setDateLastSynced(SqliteUtil.loadDate(cursor, startIndex
+                    + INDEX_COLUMN_DATE_LAST_SYNCED));
             return artist;
         }
 
@@ -397,7 +625,17 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                     COLUMN_ANDROID_ID, TYPE_COLUMN_ANDROID_ID, COLUMN_MB_ID,
                     TYPE_COLUMN_MB_ID, COLUMN_NAME, TYPE_COLUMN_NAME,
                     COLUMN_DATE_CREATED, TYPE_COLUMN_DATE_CREATED,
-                    COLUMN_IS_HIDDEN, TYPE_COLUMN_IS_HIDDEN);
+                    COLUMN_IS_HIDDEN, TYPE_COLUMN_IS_HIDDEN,
+                    COLUMN_DATE_LAST_SYNCED, TYPE_COLUMN_DATE_LAST_SYNCED);
+        }
+
+        /**
+         * @return an SQL string that creates an index for looking up artists
+         *         by {@link #COLUMN_ANDROID_ID}.
+         */
+        public static String createIndexAndroidId() {
+            return createIndex(false, INDEX_NAME_ANDROID_ID, NAME,
+                    COLUMN_ANDROID_ID);
         }
 
         public static ContentValues toContentValues(Artist artist) {
@@ -412,7 +650,109 @@ public class NusicDatabaseSqlite extends SQLiteOpenHelper {
                     DateUtil.toLong(artist.getDateCreated()));
             SqliteUtil
                     .putIfNotNull(values, COLUMN_IS_HIDDEN, artist.isHidden());
+            SqliteUtil.putIfNotNull(values, COLUMN_DATE_LAST_SYNCED,
+                    DateUtil.toLong(artist.getDateLastSynced()));
             return values;
         }
     }
+
+    /**
+     * Definition and basic mappings for table corresponding to
+     * {@link PendingArtwork} entity.
+     * 
+     * @author schnatterer
+     * 
+     */
+    public static class TablePendingArtwork {
+        public static final String NAME = "pending_artwork";
+
+        public static final String COLUMN_ID = BaseColumns._ID;
+        public static final String TYPE_COLUMN_ID = "INTEGER PRIMARY KEY AUTOINCREMENT";
+        public static final int INDEX_COLUMN_ID = 0;
+
+        public static final String COLUMN_FK_ID_RELEASE = "fkIdRelease";
+        public static final String TYPE_COLUMN_FK_ID_RELEASE = "INTEGER NOT NULL UNIQUE";
+        public static final String TYPE_COLUMN_FK_ID_CONSTRAINT_FK = DATABASE_FOREIGN_KEY
+                + COLUMN_FK_ID_RELEASE + ")";
+        public static final String TYPE_COLUMN_FK_ID_CONSTRAINT_REFERENCES = DATABASE_REFERENCES
+                + TableRelease.NAME + "(" + TableRelease.COLUMN_ID + ")";
+        public static final int INDEX_COLUMN_FK_ID_RELEASE = 1;
+
+        public static final String COLUMN_ATTEMPTS = "attempts";
+        public static final String TYPE_COLUMN_ATTEMPTS = "INTEGER NOT NULL";
+        public static final int INDEX_COLUMN_ATTEMPTS = 2;
+
+        public static final String COLUMN_DATE_NEXT_ATTEMPT = "dateNextAttempt";
+        public static final String TYPE_COLUMN_DATE_NEXT_ATTEMPT = "INTEGER NOT NULL";
+        public static final int INDEX_COLUMN_DATE_NEXT_ATTEMPT = 3;
+
+        public static final String COLUMN_DATE_CREATED = "dateCreated";
+        public static final String TYPE_COLUMN_DATE_CREATED = "INTEGER NOT NULL";
+        public static final int INDEX_COLUMN_DATE_CREATED = 4;
+
+        public static final String COLUMNS_ALL = new StringBuilder(NAME)
+                .append(".").append(COLUMN_ID).append(",").append(NAME)
+                .append(".").append(COLUMN_FK_ID_RELEASE).append(",")
+                .append(NAME).append(".").append(COLUMN_ATTEMPTS).append(",")
+                .append(NAME).append(".").append(COLUMN_DATE_NEXT_ATTEMPT)
+                .append(",").append(NAME).append(".")
+                .append(COLUMN_DATE_CREATED).toString();
+
+        public static Long toId(Cursor cursor, int startIndex) {
+            return cursor.getLong(startIndex + INDEX_COLUMN_ID);
+        }
+
+        /**
+         * Does not fill in the {@link PendingArtwork#getRelease()}.
+         */
+        public static PendingArtwork toEntity(Cursor cursor, int startIndex) {
+            PendingArtwork pendingArtwork = new PendingArtwork();
+            pendingArtwork.setId(toId(cursor, startIndex));
+            pendingArtwork.setAttempts(SqliteUtil.loadInteger(cursor,
+                    startIndex + INDEX_COLUMN_ATTEMPTS));
+            pendingArtwork.setDateNextAttempt(SqliteUtil.loadDate(cursor,
+                    startIndex + INDEX_COLUMN_DATE_NEXT_ATTEMPT));
+            pendingArtwork.setDateCreated(SqliteUtil.loadDate(cursor,
+                    startIndex + INDEX_COLUMN_DATE_CREATED));
+            return pendingArtwork;
+        }
+
+        public static ContentValues toContentValues(
+                PendingArtwork pendingArtwork) {
+            ContentValues values = new ContentValues();
+            SqliteUtil.putIfNotNull(values, COLUMN_FK_ID_RELEASE,
+                    pendingArtwork.getRelease().getId());
+            SqliteUtil.putIfNotNull(values, COLUMN_ATTEMPTS,
+                    pendingArtwork.getAttempts());
+            SqliteUtil.putIfNotNull(values, COLUMN_DATE_NEXT_ATTEMPT,
+                    DateUtil.toLong(pendingArtwork.getDateNextAttempt()));
+            SqliteUtil.putIfNotNull(values, COLUMN_DATE_CREATED,
+                    DateUtil.toLong(pendingArtwork.getDateCreated()));
+            return values;
+        }
+
+        public static String create() {
+            return createTable(NAME, COLUMN_ID, TYPE_COLUMN_ID,
+                    COLUMN_FK_ID_RELEASE, TYPE_COLUMN_FK_ID_RELEASE,
+                    COLUMN_ATTEMPTS, TYPE_COLUMN_ATTEMPTS,
+                    COLUMN_DATE_NEXT_ATTEMPT, TYPE_COLUMN_DATE_NEXT_ATTEMPT,
+                    COLUMN_DATE_CREATED, TYPE_COLUMN_DATE_CREATED,
+                    // Constraints
+                    TYPE_COLUMN_FK_ID_CONSTRAINT_FK,
+                    TYPE_COLUMN_FK_ID_CONSTRAINT_REFERENCES);
+        }
+
+        /**
+         * @param selectReleaseIds
+         *            SQL string that selects the IDs of the releases to keep
+         * @return an SQL string that deletes the pending artwork of all other
+         *         releases
+         */
+        static String deleteByReleaseIdNotIn(String selectReleaseIds) {
+            return new StringBuilder("DELETE FROM ").append(NAME)
+                    .append(" WHERE ").append(COLUMN_FK_ID_RELEASE)
+                    .append(" NOT IN (").append(selectReleaseIds).append(")")
+                    .toString();
+        }
+    }
 }
@@ -23,33 +23,75 @@ package info.schnatterer.nusic.data.dao.fs;
 
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.dao.ArtworkDao;
+import info.schnatterer.nusic.data.model.ArtworkType;
 import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.util.LruFileIndex;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import android.content.Context;
 
+/**
+ * Stores artwork as files in a private directory of the app. The directory is
+ * a cache bounded by {@link #maxBytes}: When saving artwork exceeds the
+ * budget, the least recently used artwork is deleted (see
+ * {@link ArtworkCacheIndex}). {@link ArtworkType#LARGE} artwork is stored in a
+ * sub directory, bounded by {@link #largeMaxBytes} (see
+ * {@link LargeArtworkCacheIndex}).
+ * 
+ * @author schnatterer
+ *
+ */
 public class ArtworkDaoFileSystem implements ArtworkDao {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ArtworkDaoFileSystem.class);
+
     public static final String FILE_SCHEME = "file://";
     public static final String BASEDIR_PATH = "artwork";
+    public static final String LARGE_DIR_PATH = "large";
+    /** Separates the MusicBrainz ID from the artwork type in file names. */
+    private static final char TYPE_SEPARATOR = '_';
 
     @Inject
     private Context context;
+    @Inject
+    private ArtworkCacheIndex index;
+    @Inject
+    private LargeArtworkCacheIndex largeIndex;
+    /** Maximum size of all {@link ArtworkType#SMALL} artwork files. */
+    @Inject
+    @Named("ArtworkCacheMaxBytes")
+    private Long maxBytes;
+    /** Maximum size of all {@link ArtworkType#LARGE} artwork files. */
+    @Inject
+    @Named("LargeArtworkCacheMaxBytes")
+    private Long largeMaxBytes;
 
     /** path to /data/data/../app_data/.. */
     private File BASEDIR;
+    private File LARGE_DIR;
 
     @Inject
     private void init() {
         BASEDIR = context.getDir(BASEDIR_PATH, Context.MODE_PRIVATE);
+        LARGE_DIR = new File(BASEDIR, LARGE_DIR_PATH);
+        index.init(BASEDIR);
+        largeIndex.init(LARGE_DIR);
     }
 
     @Override
@@ -61,31 +103,130 @@ public class ArtworkDaoFileSystem implements ArtworkDao {
                             + release);
         }
 
-        File output = new File(BASEDIR, createFileName(release, type));
-        if (output.exists()) {
+        String fileName = createFileName(release, type);
+        LruFileIndex typeIndex = getIndex(type);
+        if (typeIndex.contains(fileName)) {
             return false;
         } else {
+            File dir = getDir(type);
+            File output = new File(dir, fileName);
             try {
                 FileUtils.copyInputStreamToFile(artwork, output);
-                return true;
             } catch (IOException e) {
                 throw new DatabaseException(
                         "Unable to save artwork, error writing to file system."
                                 + release, e);
             }
+            List<String> evicted = typeIndex.put(fileName, output.length(),
+                    System.currentTimeMillis(),
+                    type == ArtworkType.LARGE ? largeMaxBytes : maxBytes);
+            for (String evictedFileName : evicted) {
+                delete(dir, evictedFileName);
+            }
+            if (!evicted.isEmpty()) {
+                LOG.debug("Evicted {} artworks, {} bytes remaining",
+                        evicted.size(), typeIndex.getTotalBytes());
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public int deleteByMusicBrainzIdNotIn(Collection<String> musicBrainzIds)
+            throws DatabaseException {
+        Set<String> keep = new HashSet<String>(musicBrainzIds);
+        return deleteByMusicBrainzIdNotIn(keep, index, BASEDIR)
+                + deleteByMusicBrainzIdNotIn(keep, largeIndex, LARGE_DIR);
+    }
+
+    private int deleteByMusicBrainzIdNotIn(Set<String> keep,
+            LruFileIndex index, File dir) {
+        int nDeleted = 0;
+        for (String fileName : index.getFileNames()) {
+            if (!keep.contains(toMusicBrainzId(fileName))) {
+                index.remove(fileName);
+                delete(dir, fileName);
+                nDeleted++;
+            }
+        }
+        return nDeleted;
+    }
+
+    @Override
+    public InputStream findStreamByUri(String uri) throws DatabaseException {
+        if (uri == null) {
+            return null;
+        }
+        String largePrefix = createUriPrefix(LARGE_DIR);
+        if (uri.startsWith(largePrefix)) {
+            return findStreamByFileName(ArtworkType.LARGE,
+                    uri.substring(largePrefix.length()));
+        }
+        String prefix = createUriPrefix(BASEDIR);
+        if (uri.startsWith(prefix)) {
+            return findStreamByFileName(ArtworkType.SMALL,
+                    uri.substring(prefix.length()));
+        }
+        return null;
+    }
+
+    private void delete(File dir, String fileName) {
+        File file = new File(dir, fileName);
+        if (!file.delete() && file.exists()) {
+            LOG.warn("Unable to delete artwork " + file);
         }
     }
 
+    /**
+     * Marks artwork as recently used.
+     */
+    private void touch(ArtworkType type, String fileName) {
+        long now = System.currentTimeMillis();
+        if (getIndex(type).touch(fileName, now)) {
+            new File(getDir(type), fileName).setLastModified(now);
+        }
+    }
+
+    private LruFileIndex getIndex(ArtworkType type) {
+        return type == ArtworkType.LARGE ? largeIndex : index;
+    }
+
+    private File getDir(ArtworkType type) {
+        return type == ArtworkType.LARGE ? LARGE_DIR : BASEDIR;
+    }
+
+    private static String createUriPrefix(File dir) {
+        return FILE_SCHEME + dir + '/';
+    }
+
     private String createFileName(Release release, ArtworkType type)
             throws DatabaseException {
+        return createFileName(release.getMusicBrainzId(), type);
+    }
+
+    static String createFileName(String musicBrainzId, ArtworkType type)
+            throws DatabaseException {
         switch (type) {
         case SMALL:
-            return release.getMusicBrainzId() + "_S";
+            return musicBrainzId + TYPE_SEPARATOR + "S";
+        case LARGE:
+            return musicBrainzId + TYPE_SEPARATOR + "L";
         default:
             throw new DatabaseException("Unimplemented artwork type" + type);
         }
     }
 
+    /**
+     * @return the MusicBrainz ID of the release an artwork file belongs to
+     */
+    static String toMusicBrainzId(String fileName) {
+        int separatorIndex = fileName.lastIndexOf(TYPE_SEPARATOR);
+        if (separatorIndex < 0) {
+            return fileName;
+        }
+        return fileName.substring(0, separatorIndex);
+    }
+
     @Override
     public boolean exists(Release release, ArtworkType type)
             throws DatabaseException {
@@ -93,19 +234,25 @@ public class ArtworkDaoFileSystem implements ArtworkDao {
             return false;
         }
 
-        return new File(BASEDIR, createFileName(release, type)).exists();
+        return getIndex(type).contains(createFileName(release, type));
     }
 
     @Override
     public String findUriByRelease(Release release, ArtworkType type)
             throws DatabaseException {
-        File possibleArtwork;
+        return findUriByMusicBrainzId(release.getMusicBrainzId(), type);
+    }
+
+    @Override
+    public String findUriByMusicBrainzId(String musicBrainzId,
+            ArtworkType type) throws DatabaseException {
         try {
-            possibleArtwork = new File(BASEDIR, createFileName(release, type));
-            if (!possibleArtwork.exists()) {
+            String fileName = createFileName(musicBrainzId, type);
+            if (!getIndex(type).contains(fileName)) {
                 return null;
             }
-            return FILE_SCHEME + BASEDIR + '/' + createFileName(release, type);
+            touch(type, fileName);
+            return createUriPrefix(getDir(type)) + fileName;
             // return possibleArtwork.toURI().toString(); // returns only
             // file:<path> but we want file://<path>
         } catch (DatabaseException e) {
@@ -118,15 +265,20 @@ public class ArtworkDaoFileSystem implements ArtworkDao {
     public InputStream findStreamByRelease(Release release, ArtworkType type)
             throws DatabaseException {
         if (release.getMusicBrainzId() != null) {
-            File possibleArtwork = new File(BASEDIR, createFileName(release,
-                    type));
-            if (possibleArtwork.exists()) {
-                try {
-                    return new FileInputStream(possibleArtwork);
-                } catch (FileNotFoundException e) {
-                    throw new DatabaseException(
-                            "Unable to read artwork from file system", e);
-                }
+            return findStreamByFileName(type, createFileName(release, type));
+        }
+        return null;
+    }
+
+    private InputStream findStreamByFileName(ArtworkType type,
+            String fileName) throws DatabaseException {
+        if (getIndex(type).contains(fileName)) {
+            touch(type, fileName);
+            try {
+                return new FileInputStream(new File(getDir(type), fileName));
+            } catch (FileNotFoundException e) {
+                throw new DatabaseException(
+                        "Unable to read artwork from file system", e);
             }
         }
         return null;
@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao.fs;
+
+import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.dao.ArtworkDao;
+import info.schnatterer.nusic.data.model.ArtworkType;
+import info.schnatterer.nusic.data.model.Release;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import android.content.Context;
+
+/**
+ * Stores all artwork in an {@link ArtworkPack}, which avoids a file (and a
+ * <code>stat()</code> per lookup) for each small artwork. Alternative to
+ * {@link ArtworkDaoFileSystem}.<br/>
+ * <br/>
+ * The URIs returned by this DAO use the {@link ArtworkDao#SCHEME_ARTWORK}
+ * scheme. Deleted artwork is compacted during
+ * {@link #deleteByMusicBrainzIdNotIn(Collection)}.
+ * 
+ * @author schnatterer
+ *
+ */
+public class ArtworkDaoPackFile implements ArtworkDao {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ArtworkDaoPackFile.class);
+
+    public static final String BASEDIR_PATH = "artworkpack";
+
+    @Inject
+    private Context context;
+    @Inject
+    private ArtworkPack pack;
+
+    @Override
+    public boolean save(Release release, ArtworkType type, InputStream artwork)
+            throws DatabaseException {
+        if (release.getMusicBrainzId() == null) {
+            throw new DatabaseException(
+                    "Unable to save artwork, corresponding release does not have a musicbrainz ID: "
+                            + release);
+        }
+        String key = createKey(release.getMusicBrainzId(), type);
+        if (getPack().contains(key)) {
+            return false;
+        }
+        try {
+            getPack().put(key, artwork);
+            return true;
+        } catch (IOException e) {
+            throw new DatabaseException(
+                    "Unable to save artwork, error writing to artwork pack."
+                            + release, e);
+        }
+    }
+
+    @Override
+    public InputStream findStreamByRelease(Release release, ArtworkType type)
+            throws DatabaseException {
+        if (release.getMusicBrainzId() == null) {
+            return null;
+        }
+        return findStreamByKey(createKey(release.getMusicBrainzId(), type));
+    }
+
+    @Override
+    public boolean exists(Release release, ArtworkType type)
+            throws DatabaseException {
+        if (release.getMusicBrainzId() == null) {
+            return false;
+        }
+        return getPack().contains(createKey(release.getMusicBrainzId(), type));
+    }
+
+    @Override
+    public String findUriByRelease(Release release, ArtworkType type)
+            throws DatabaseException {
+        return findUriByMusicBrainzId(release.getMusicBrainzId(), type);
+    }
+
+    @Override
+    public String findUriByMusicBrainzId(String musicBrainzId,
+            ArtworkType type) throws DatabaseException {
+        if (musicBrainzId == null) {
+            return null;
+        }
+        String key = createKey(musicBrainzId, type);
+        if (!getPack().contains(key)) {
+            return null;
+        }
+        return SCHEME_ARTWORK + key;
+    }
+
+    @Override
+    public InputStream findStreamByUri(String uri) throws DatabaseException {
+        if (uri == null || !uri.startsWith(SCHEME_ARTWORK)) {
+            return null;
+        }
+        return findStreamByKey(uri.substring(SCHEME_ARTWORK.length()));
+    }
+
+    @Override
+    public int deleteByMusicBrainzIdNotIn(Collection<String> musicBrainzIds)
+            throws DatabaseException {
+        Set<String> keep = new HashSet<String>(musicBrainzIds);
+        ArtworkPack pack = getPack();
+        int nDeleted = 0;
+        for (String key : pack.getKeys()) {
+            if (!keep.contains(ArtworkDaoFileSystem.toMusicBrainzId(key))) {
+                pack.delete(key);
+                nDeleted++;
+            }
+        }
+        try {
+            int nRemoved = pack.compact();
+            LOG.debug("Compacted {} artwork segments", nRemoved);
+        } catch (IOException e) {
+            throw new DatabaseException("Unable to compact artwork pack", e);
+        }
+        return nDeleted;
+    }
+
+    private InputStream findStreamByKey(String key) throws DatabaseException {
+        try {
+            return getPack().openStream(key);
+        } catch (IOException e) {
+            throw new DatabaseException(
+                    "Unable to read artwork from artwork pack", e);
+        }
+    }
+
+    /**
+     * Uses the same names as the files of {@link ArtworkDaoFileSystem}.
+     */
+    private static String createKey(String musicBrainzId, ArtworkType type)
+            throws DatabaseException {
+        return ArtworkDaoFileSystem.createFileName(musicBrainzId, type);
+    }
+
+    /**
+     * @return the pack, opened on first access
+     */
+    private ArtworkPack getPack() throws DatabaseException {
+        if (pack.isOpen()) {
+            return pack;
+        }
+        try {
+            pack.open(context.getDir(BASEDIR_PATH, Context.MODE_PRIVATE));
+            return pack;
+        } catch (IOException e) {
+            throw new DatabaseException("Unable to open artwork pack", e);
+        }
+    }
+}
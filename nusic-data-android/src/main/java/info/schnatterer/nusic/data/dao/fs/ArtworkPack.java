@@ -0,0 +1,454 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao.fs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores small binary objects (the artwork) in a few large files instead of one
+ * file each.<br/>
+ * <br/>
+ * The data is appended to segment files of at most {@link #maxSegmentBytes}.
+ * An index file maps each key to segment, offset and length. It consists of
+ * records of fixed size and is memory mapped, so adding or deleting a record
+ * only writes to memory. The segments are memory mapped as well, so appending
+ * data only writes to memory and the streams returned by
+ * {@link #openStream(String)} read directly from the page cache.<br/>
+ * <br/>
+ * Deleting only marks the record as deleted. {@link #compact()} moves the
+ * remaining data out of segments that are mostly deleted and removes them.
+ * 
+ * @author schnatterer
+ *
+ */
+@Singleton
+public class ArtworkPack {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ArtworkPack.class);
+
+    static final String INDEX_FILE_NAME = "index";
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".pack";
+    static final int DEFAULT_MAX_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    private static final Charset KEY_CHARSET = Charset.forName("US-ASCII");
+    /** Maximum length of a key. Shorter keys are padded with zeros. */
+    static final int KEY_BYTES = 48;
+    private static final int SEGMENT_POSITION = KEY_BYTES;
+    private static final int OFFSET_POSITION = SEGMENT_POSITION + 4;
+    private static final int LENGTH_POSITION = OFFSET_POSITION + 4;
+    /** Key, segment, offset, length. */
+    static final int RECORD_BYTES = LENGTH_POSITION + 4;
+    private static final int INITIAL_RECORDS = 256;
+    /** Length of a deleted record. */
+    private static final int DELETED = -1;
+
+    private final int maxSegmentBytes;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private final Map<Integer, Segment> segments = new HashMap<Integer, Segment>();
+    private File dir;
+    private MappedByteBuffer index;
+    private int nRecords;
+    private int currentSegment;
+
+    public ArtworkPack() {
+        this(DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    ArtworkPack(int maxSegmentBytes) {
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    /**
+     * Loads the index from <code>dir</code>, unless the pack has been opened
+     * before.
+     * 
+     * @param dir
+     *            the directory containing the index and the segments
+     */
+    synchronized void open(File dir) throws IOException {
+        if (this.dir != null) {
+            return;
+        }
+        // Start over, if opening failed before
+        entries.clear();
+        segments.clear();
+        currentSegment = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                Integer id = parseSegmentId(name);
+                if (id != null) {
+                    segments.put(id, new Segment(file, file.length()));
+                    currentSegment = Math.max(currentSegment, id);
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(currentSegment, new Segment(new File(dir,
+                    SEGMENT_PREFIX + currentSegment + SEGMENT_SUFFIX), 0));
+        }
+
+        File indexFile = new File(dir, INDEX_FILE_NAME);
+        index = map(indexFile, Math.max(INITIAL_RECORDS,
+                (int) (indexFile.length() / RECORD_BYTES)));
+        int capacity = index.capacity() / RECORD_BYTES;
+        nRecords = 0;
+        while (nRecords < capacity && index.get(nRecords * RECORD_BYTES) != 0) {
+            loadRecord(nRecords++);
+        }
+        /*
+         * The segment files are enlarged ahead of the data when mapped (see
+         * map()), so their size is no measure for the data. Append after the
+         * last live entry, overwriting the deleted data behind it.
+         */
+        for (Segment segment : segments.values()) {
+            segment.length = 0;
+        }
+        for (Entry entry : entries.values()) {
+            Segment segment = segments.get(entry.segment);
+            segment.length = Math.max(segment.length, entry.offset
+                    + entry.length);
+        }
+        this.dir = dir;
+    }
+
+    /**
+     * @return the ID of the segment file called <code>name</code> or
+     *         <code>null</code> if it is no segment file
+     */
+    private static Integer parseSegmentId(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return null;
+        }
+        try {
+            int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length()));
+            if (id >= 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        LOG.warn("Ignoring unexpected artwork segment file " + name);
+        return null;
+    }
+
+    private void loadRecord(int record) {
+        int position = record * RECORD_BYTES;
+        int length = index.getInt(position + LENGTH_POSITION);
+        if (length == DELETED) {
+            return;
+        }
+        Entry entry = new Entry(record, index.getInt(position
+                + SEGMENT_POSITION), index.getInt(position + OFFSET_POSITION),
+                length);
+        Segment segment = segments.get(entry.segment);
+        if (segment == null || entry.offset + entry.length > segment.length) {
+            // Data got lost, e.g. the app was killed while writing
+            markDeleted(record);
+            return;
+        }
+        segment.liveBytes += entry.length;
+        // Later records replace earlier ones, e.g. when compacting was killed
+        Entry previous = entries.put(readKey(position), entry);
+        if (previous != null) {
+            markDeleted(previous.record);
+            segments.get(previous.segment).liveBytes -= previous.length;
+        }
+    }
+
+    synchronized boolean isOpen() {
+        return dir != null;
+    }
+
+    synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * @return a snapshot of all keys
+     */
+    synchronized List<String> getKeys() {
+        return new ArrayList<String>(entries.keySet());
+    }
+
+    /**
+     * Stores the data of <code>in</code> for <code>key</code>, replacing
+     * existing data.
+     */
+    synchronized void put(String key, InputStream in) throws IOException {
+        checkOpen();
+        byte[] data = IOUtils.toByteArray(in);
+        delete(key);
+        write(key, data);
+    }
+
+    /**
+     * @return a stream reading the data of <code>key</code> directly from the
+     *         mapped segment or <code>null</code> if there is no such key
+     */
+    synchronized InputStream openStream(String key) throws IOException {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        return new ByteBufferInputStream(read(entry));
+    }
+
+    /**
+     * @return <code>true</code> if the key existed
+     */
+    synchronized boolean delete(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        markDeleted(entry.record);
+        segments.get(entry.segment).liveBytes -= entry.length;
+        return true;
+    }
+
+    /**
+     * Moves the data out of all segments that are at least half deleted and
+     * removes these segments. Also removes the deleted records from the index,
+     * if they are the majority.
+     * 
+     * @return the number of segments removed
+     */
+    synchronized int compact() throws IOException {
+        checkOpen();
+        int nRemoved = 0;
+        for (Integer id : new ArrayList<Integer>(segments.keySet())) {
+            Segment segment = segments.get(id);
+            if (id == currentSegment || segment.liveBytes * 2 > segment.length) {
+                continue;
+            }
+            for (Map.Entry<String, Entry> mapEntry : new ArrayList<Map.Entry<String, Entry>>(
+                    entries.entrySet())) {
+                Entry entry = mapEntry.getValue();
+                if (entry.segment == id) {
+                    ByteBuffer buffer = read(entry);
+                    byte[] data = new byte[buffer.remaining()];
+                    buffer.get(data);
+                    // Write first, so a killed app loses nothing
+                    write(mapEntry.getKey(), data);
+                    markDeleted(entry.record);
+                }
+            }
+            segments.remove(id);
+            if (!segment.file.delete()) {
+                LOG.warn("Unable to delete artwork segment " + segment.file);
+            }
+            nRemoved++;
+        }
+        if (nRecords - entries.size() > Math.max(entries.size(),
+                INITIAL_RECORDS)) {
+            compactIndex();
+        }
+        return nRemoved;
+    }
+
+    /**
+     * Moves the live records to the beginning of the index, keeping their
+     * order, and clears the rest.
+     */
+    private void compactIndex() {
+        List<Map.Entry<String, Entry>> live = new ArrayList<Map.Entry<String, Entry>>(
+                entries.entrySet());
+        Collections.sort(live, new Comparator<Map.Entry<String, Entry>>() {
+            @Override
+            public int compare(Map.Entry<String, Entry> lhs,
+                    Map.Entry<String, Entry> rhs) {
+                return lhs.getValue().record - rhs.getValue().record;
+            }
+        });
+        int record = 0;
+        for (Map.Entry<String, Entry> mapEntry : live) {
+            // Never overwrites a live record that is yet to be moved
+            mapEntry.getValue().record = record++;
+            writeRecord(mapEntry.getKey(), mapEntry.getValue());
+        }
+        for (int position = record * RECORD_BYTES; position < nRecords
+                * RECORD_BYTES; position++) {
+            index.put(position, (byte) 0);
+        }
+        nRecords = record;
+    }
+
+    /**
+     * Appends <code>data</code> to the current segment and adds a record.
+     */
+    private void write(String key, byte[] data) throws IOException {
+        byte[] keyBytes = key.getBytes(KEY_CHARSET);
+        if (keyBytes.length == 0 || keyBytes.length > KEY_BYTES) {
+            throw new IOException("Invalid artwork key: " + key);
+        }
+        Segment segment = segments.get(currentSegment);
+        if (segment.length > 0
+                && segment.length + data.length > maxSegmentBytes) {
+            currentSegment++;
+            segment = new Segment(new File(dir, SEGMENT_PREFIX
+                    + currentSegment + SEGMENT_SUFFIX), 0);
+            segments.put(currentSegment, segment);
+        }
+        ByteBuffer buffer = map(segment, segment.length + data.length)
+                .duplicate();
+        buffer.position((int) segment.length);
+        buffer.put(data);
+        if (nRecords == index.capacity() / RECORD_BYTES) {
+            index = map(new File(dir, INDEX_FILE_NAME), nRecords * 2);
+        }
+        Entry entry = new Entry(nRecords++, currentSegment,
+                (int) segment.length, data.length);
+        segment.length += data.length;
+        segment.liveBytes += data.length;
+        writeRecord(key, entry);
+        entries.put(key, entry);
+    }
+
+    private ByteBuffer read(Entry entry) throws IOException {
+        ByteBuffer buffer = map(segments.get(entry.segment),
+                entry.offset + entry.length).duplicate();
+        buffer.position(entry.offset);
+        buffer.limit(entry.offset + entry.length);
+        return buffer.slice();
+    }
+
+    private void writeRecord(String key, Entry entry) {
+        int position = entry.record * RECORD_BYTES;
+        byte[] keyBytes = key.getBytes(KEY_CHARSET);
+        for (int i = 0; i < KEY_BYTES; i++) {
+            index.put(position + i, i < keyBytes.length ? keyBytes[i] : 0);
+        }
+        index.putInt(position + SEGMENT_POSITION, entry.segment);
+        index.putInt(position + OFFSET_POSITION, entry.offset);
+        index.putInt(position + LENGTH_POSITION, entry.length);
+    }
+
+    private String readKey(int position) {
+        byte[] keyBytes = new byte[KEY_BYTES];
+        int length = 0;
+        while (length < KEY_BYTES && index.get(position + length) != 0) {
+            keyBytes[length] = index.get(position + length);
+            length++;
+        }
+        return new String(keyBytes, 0, length, KEY_CHARSET);
+    }
+
+    private void markDeleted(int record) {
+        index.putInt(record * RECORD_BYTES + LENGTH_POSITION, DELETED);
+    }
+
+    private void checkOpen() throws IOException {
+        if (dir == null) {
+            throw new IOException("Artwork pack has not been opened");
+        }
+    }
+
+    /**
+     * Returns the mapping of <code>segment</code>, making sure it spans at
+     * least <code>minBytes</code>. A segment is mapped only once, as long as
+     * it is not too small. If it is, the mapping is replaced by one of at
+     * least twice the size (up to {@link #maxSegmentBytes}), so appending to a
+     * segment rarely maps it again. This enlarges the file ahead of the data.
+     */
+    private MappedByteBuffer map(Segment segment, long minBytes)
+            throws IOException {
+        if (segment.map != null && segment.map.capacity() >= minBytes) {
+            return segment.map;
+        }
+        RandomAccessFile file = new RandomAccessFile(segment.file, "rw");
+        try {
+            long capacity = Math.max(minBytes, segment.map == null ? file
+                    .length() : Math.min(2L * segment.map.capacity(),
+                    maxSegmentBytes));
+            segment.map = file.getChannel().map(MapMode.READ_WRITE, 0,
+                    capacity);
+        } finally {
+            file.close();
+        }
+        return segment.map;
+    }
+
+    /**
+     * Maps <code>nRecords</code> records of the index file, enlarging the file
+     * if necessary.
+     */
+    private static MappedByteBuffer map(File indexFile, int nRecords)
+            throws IOException {
+        RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+        try {
+            return file.getChannel().map(MapMode.READ_WRITE, 0,
+                    (long) nRecords * RECORD_BYTES);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static class Entry {
+        private int record;
+        private final int segment;
+        private final int offset;
+        private final int length;
+
+        public Entry(int record, int segment, int offset, int length) {
+            this.record = record;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class Segment {
+        private final File file;
+        private long length;
+        private long liveBytes = 0;
+        /** Mapping of the file, <code>null</code> until first access. */
+        private MappedByteBuffer map;
+
+        public Segment(File file, long length) {
+            this.file = file;
+            this.length = length;
+        }
+    }
+}
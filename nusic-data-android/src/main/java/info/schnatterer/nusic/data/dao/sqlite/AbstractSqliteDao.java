@@ -26,6 +26,7 @@ import info.schnatterer.nusic.data.dao.GenericDao;
 import info.schnatterer.nusic.data.model.Entity;
 import info.schnatterer.nusic.data.util.SqliteUtil;
 
+import java.util.Collection;
 import java.util.Map;
 
 import android.content.AsyncTaskLoader;
@@ -34,6 +35,7 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabase.CursorFactory;
+import android.database.sqlite.SQLiteStatement;
 import android.os.CancellationSignal;
 import android.provider.BaseColumns;
 
@@ -140,6 +142,114 @@ public abstract class AbstractSqliteDao<T extends Entity> implements
         }
     }
 
+    @Override
+    public void saveAll(Collection<T> entities) throws DatabaseException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        beginTransaction();
+        try {
+            for (T entity : entities) {
+                save(entity);
+            }
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<T> entities) throws DatabaseException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        beginTransaction();
+        try {
+            for (T entity : entities) {
+                update(entity);
+            }
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * Delegates to {@link SQLiteDatabase#beginTransaction()}. Must be followed
+     * by {@link #endTransaction()} within a <code>finally</code> block.
+     */
+    protected void beginTransaction() throws DatabaseException {
+        try {
+            db.beginTransaction();
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to begin transaction", e);
+        }
+    }
+
+    /**
+     * Delegates to {@link SQLiteDatabase#setTransactionSuccessful()}.
+     */
+    protected void setTransactionSuccessful() {
+        db.setTransactionSuccessful();
+    }
+
+    /**
+     * Delegates to {@link SQLiteDatabase#endTransaction()}.
+     */
+    protected void endTransaction() {
+        db.endTransaction();
+    }
+
+    /**
+     * Delegates to {@link SQLiteDatabase#compileStatement(String)}. The caller
+     * is responsible for closing the statement.
+     */
+    protected SQLiteStatement compileStatement(String sql) {
+        return db.compileStatement(sql);
+    }
+
+    /**
+     * Closes a statement created by {@link #compileStatement(String)}, if not
+     * <code>null</code>.
+     */
+    protected static void closeStatement(SQLiteStatement statement) {
+        if (statement != null) {
+            statement.close();
+        }
+    }
+
+    @Override
+    public int delete(T entity) throws DatabaseException {
+        try {
+            Long id = getId(entity);
+            if (id == null) {
+                throw new DatabaseException(
+                        "Unable to delete because Id is null in entity: "
+                                + entity);
+            }
+            return db.delete(getTableName(), new StringBuffer(BaseColumns._ID)
+                    .append("=").append(id).toString(), null);
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to delete " + entity, e);
+        }
+    }
+
+    /**
+     * Delegates to {@link SQLiteDatabase#delete(String, String, String[])} for
+     * the table of this DAO.
+     * 
+     * @return the number of rows deleted
+     */
+    protected int delete(String whereClause, String[] whereArgs)
+            throws DatabaseException {
+        try {
+            return db.delete(getTableName(), whereClause, whereArgs);
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to execute delete. Where: "
+                    + whereClause + ", Args: " + whereArgs, e);
+        }
+    }
+
     @Override
     public int update(Map<String, Object> values, String whereClause,
             String[] whereArgs) throws DatabaseException {
@@ -265,6 +375,16 @@ public abstract class AbstractSqliteDao<T extends Entity> implements
         return newCursor(db.rawQuery(sql, selectionArgs));
     }
 
+    /**
+     * Delegates to {@link SQLiteDatabase#rawQuery(String, String[])}
+     * <b>without</b> storing a reference of the cursor. That is, the cursor is
+     * not closed by {@link #closeCursor()} or by the next query and the caller
+     * is responsible for closing it.
+     */
+    protected Cursor rawQueryDetached(String sql, String[] selectionArgs) {
+        return db.rawQuery(sql, selectionArgs);
+    }
+
     /**
      * Delegates to
      * {@link SQLiteDatabase#rawQuery(String, String[], CancellationSignal)},
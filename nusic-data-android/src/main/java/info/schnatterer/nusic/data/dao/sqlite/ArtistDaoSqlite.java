@@ -75,6 +75,34 @@ public class ArtistDaoSqlite extends AbstractSqliteDao<Artist> implements
         }
     }
 
+    @Override
+    public Map<Long, Artist> findAllByAndroidId() throws DatabaseException {
+        try {
+            Cursor cursor = query(TableArtist.NAME, new String[] {
+                    TableArtist.COLUMN_ID, TableArtist.COLUMN_ANDROID_ID,
+                    TableArtist.COLUMN_DATE_CREATED,
+                    TableArtist.COLUMN_DATE_LAST_SYNCED,
+                    TableArtist.COLUMN_MB_ID, TableArtist.COLUMN_NAME }, null,
+                    null, null, null, null);
+            Map<Long, Artist> artists = new HashMap<Long, Artist>(
+                    cursor.getCount());
+            while (cursor.moveToNext()) {
+                Artist artist = new Artist(SqliteUtil.loadDate(cursor, 2));
+                artist.setId(cursor.getLong(0));
+                artist.setAndroidAudioArtistId(cursor.getLong(1));
+                artist.setDateLastSynced(SqliteUtil.loadDate(cursor, 3));
+                artist.setMusicBrainzId(cursor.getString(4));
+                artist.setArtistName(cursor.getString(5));
+                artists.put(artist.getAndroidAudioArtistId(), artist);
+            }
+            return artists;
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to find all artists", e);
+        } finally {
+            closeCursor();
+        }
+    }
+
     @Override
     public Long toId(Cursor cursor, int startIndex) {
         return TableArtist.toId(cursor, startIndex);
@@ -107,6 +135,16 @@ public class ArtistDaoSqlite extends AbstractSqliteDao<Artist> implements
         update(contentValues, null, null);
     }
 
+    @Override
+    public int setIsHidden(long artistId, boolean isHidden)
+            throws DatabaseException {
+        Map<String, Object> contentValues = new HashMap<String, Object>();
+        contentValues.put(TableArtist.COLUMN_IS_HIDDEN,
+                isHidden ? SqliteUtil.TRUE : SqliteUtil.FALSE);
+        return update(contentValues, TableArtist.COLUMN_ID + " = " + artistId,
+                null);
+    }
+
     /**
      * Queries a specific artists ID and returns the cursor or <code>null</code>
      * if none present. <b>Make sure to close the cursor when finished!</b>
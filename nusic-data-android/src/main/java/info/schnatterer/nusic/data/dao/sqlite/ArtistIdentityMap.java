@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao.sqlite;
+
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableArtist;
+import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.Release;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import android.database.Cursor;
+
+/**
+ * Makes sure there is only one {@link Artist} instance per
+ * {@link Artist#getId()}, when mapping the rows of a query that joins
+ * {@link TableArtist}.<br/>
+ * <br/>
+ * An instance can be shared by several queries (e.g. the loaders of one
+ * activity) and is thread-safe. The artists are mapped from the first row
+ * that contains them and are not refreshed afterwards, so only share an
+ * instance within a limited scope and {@link #clear()} it when the content
+ * changes.
+ * 
+ * @author schnatterer
+ */
+public class ArtistIdentityMap {
+    private final Map<Long, Artist> artists = new HashMap<Long, Artist>();
+    /** IDs of the releases attached to the artists. */
+    private final Set<Long> releaseIds = new HashSet<Long>();
+
+    /**
+     * Returns the artist of the current row of a cursor, mapping it only if
+     * it was not mapped before.
+     * 
+     * @param cursor
+     * @param startIndex
+     *            index of the first column of {@link TableArtist#COLUMNS_ALL}
+     * @return the one instance of the artist
+     */
+    public synchronized Artist get(Cursor cursor, int startIndex) {
+        Long id = TableArtist.toId(cursor, startIndex);
+        Artist artist = artists.get(id);
+        if (artist == null) {
+            artist = TableArtist.toEntity(cursor, startIndex);
+            artists.put(id, artist);
+        }
+        return artist;
+    }
+
+    /**
+     * Adds a release to {@link Artist#getReleases()}, unless it was attached
+     * before. Queries that share the instance return the same release (e.g.
+     * in different lists), so each artist contains each of its releases only
+     * once.
+     * 
+     * @param artist
+     *            the artist returned by {@link #get(Cursor, int)}
+     * @param release
+     *            a release of the artist
+     */
+    public synchronized void attach(Artist artist, Release release) {
+        if (release.getId() == null || releaseIds.add(release.getId())) {
+            artist.getReleases().add(release);
+        }
+    }
+
+    /**
+     * Removes all artists, so they are mapped again.
+     */
+    public synchronized void clear() {
+        artists.clear();
+        releaseIds.clear();
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao.sqlite;
+
+import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TablePendingArtwork;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableRelease;
+import info.schnatterer.nusic.data.dao.PendingArtworkDao;
+import info.schnatterer.nusic.data.model.PendingArtwork;
+import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.util.SqliteUtil;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+public class PendingArtworkDaoSqlite extends AbstractSqliteDao<PendingArtwork>
+        implements PendingArtworkDao {
+
+    /** Release columns first, because they are mapped from index 0. */
+    public static final String QUERY_BY_DATE_NEXT_ATTEMPT = new StringBuilder(
+            "SELECT ").append(TableRelease.COLUMNS_ALL).append(",")
+            .append(TablePendingArtwork.COLUMNS_ALL).append(" FROM ")
+            .append(TablePendingArtwork.NAME).append(" INNER JOIN ")
+            .append(TableRelease.NAME).append(" ON ")
+            .append(TablePendingArtwork.NAME).append(".")
+            .append(TablePendingArtwork.COLUMN_FK_ID_RELEASE).append("=")
+            .append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_ID).append(" WHERE ")
+            .append(TablePendingArtwork.NAME).append(".")
+            .append(TablePendingArtwork.COLUMN_DATE_NEXT_ATTEMPT)
+            .append(" <= ?").append(" ORDER BY ")
+            .append(TablePendingArtwork.NAME).append(".")
+            .append(TablePendingArtwork.COLUMN_DATE_NEXT_ATTEMPT)
+            .append(" ASC LIMIT ?").toString();
+
+    /**
+     * Inserts pending artwork unless the artwork of the release is pending
+     * already (see {@link TablePendingArtwork#TYPE_COLUMN_FK_ID_RELEASE}).
+     */
+    private static final String INSERT_OR_IGNORE = new StringBuilder(
+            "INSERT OR IGNORE INTO ").append(TablePendingArtwork.NAME)
+            .append("(").append(TablePendingArtwork.COLUMN_FK_ID_RELEASE)
+            .append(",").append(TablePendingArtwork.COLUMN_ATTEMPTS)
+            .append(",").append(TablePendingArtwork.COLUMN_DATE_NEXT_ATTEMPT)
+            .append(",").append(TablePendingArtwork.COLUMN_DATE_CREATED)
+            .append(") VALUES (?1,?2,?3,?4)").toString();
+
+    public static final String WHERE_RELEASE_OF_ARTIST = new StringBuilder(
+            TablePendingArtwork.COLUMN_FK_ID_RELEASE).append(" IN (SELECT ")
+            .append(TableRelease.COLUMN_ID).append(" FROM ")
+            .append(TableRelease.NAME).append(" WHERE ")
+            .append(TableRelease.COLUMN_FK_ID_ARTIST).append(" = ?)")
+            .toString();
+
+    @Inject
+    public PendingArtworkDaoSqlite(Context context, NusicDatabaseSqlite db) {
+        super(context, db.getWritableDatabase());
+    }
+
+    @Override
+    public int saveIfAbsent(Collection<PendingArtwork> pendingArtworks)
+            throws DatabaseException {
+        if (pendingArtworks.isEmpty()) {
+            return 0;
+        }
+        int nSaved = 0;
+        beginTransaction();
+        SQLiteStatement insert = null;
+        try {
+            insert = compileStatement(INSERT_OR_IGNORE);
+            for (PendingArtwork pendingArtwork : pendingArtworks) {
+                pendingArtwork.prePersist();
+                insert.clearBindings();
+                SqliteUtil.bindOrNull(insert, 1, pendingArtwork.getRelease()
+                        .getId());
+                SqliteUtil.bindOrNull(insert, 2, pendingArtwork.getAttempts());
+                SqliteUtil.bindOrNull(insert, 3,
+                        pendingArtwork.getDateNextAttempt());
+                SqliteUtil.bindOrNull(insert, 4,
+                        pendingArtwork.getDateCreated());
+                long id = insert.executeInsert();
+                if (id != -1) {
+                    pendingArtwork.setId(id);
+                    nSaved++;
+                }
+            }
+            setTransactionSuccessful();
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to save pending artwork", e);
+        } finally {
+            closeStatement(insert);
+            endTransaction();
+        }
+        return nSaved;
+    }
+
+    @Override
+    public List<PendingArtwork> findByDateNextAttemptLessThanEquals(
+            long lteDateNextAttempt, int limit) throws DatabaseException {
+        List<PendingArtwork> pendingArtworks = new LinkedList<PendingArtwork>();
+        try {
+            Cursor cursor = rawQuery(QUERY_BY_DATE_NEXT_ATTEMPT, new String[] {
+                    String.valueOf(lteDateNextAttempt), String.valueOf(limit) });
+            while (cursor.moveToNext()) {
+                Release release = TableRelease.toEntity(cursor, 0);
+                PendingArtwork pendingArtwork = toEntity(cursor,
+                        TableRelease.COLUMNS.size());
+                pendingArtwork.setRelease(release);
+                pendingArtworks.add(pendingArtwork);
+            }
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to find pending artwork", e);
+        } finally {
+            closeCursor();
+        }
+        return pendingArtworks;
+    }
+
+    @Override
+    public int deleteByArtistId(long artistId) throws DatabaseException {
+        return delete(WHERE_RELEASE_OF_ARTIST,
+                new String[] { String.valueOf(artistId) });
+    }
+
+    @Override
+    public Long toId(Cursor cursor, int startIndex) {
+        return TablePendingArtwork.toId(cursor, startIndex);
+    }
+
+    @Override
+    public PendingArtwork toEntity(Cursor cursor, int startIndex) {
+        return TablePendingArtwork.toEntity(cursor, startIndex);
+    }
+
+    @Override
+    public ContentValues toContentValues(PendingArtwork pendingArtwork) {
+        return TablePendingArtwork.toContentValues(pendingArtwork);
+    }
+
+    @Override
+    public String getTableName() {
+        return TablePendingArtwork.NAME;
+    }
+
+    @Override
+    protected Long getId(PendingArtwork pendingArtwork) {
+        return pendingArtwork.getId();
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao.sqlite;
+
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableArtist;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableRelease;
+import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
+import info.schnatterer.nusic.data.util.SqliteUtil;
+
+import java.util.Date;
+
+import android.database.Cursor;
+
+/**
+ * {@link ReleaseCursor} that reads the columns of the current row directly
+ * from a {@link Cursor} that contains {@link TableRelease#COLUMNS_ALL},
+ * followed by {@link TableArtist#COLUMNS_ALL}.
+ * 
+ * @author schnatterer
+ *
+ */
+public class ReleaseCursorSqlite implements ReleaseCursor {
+    private static final int START_INDEX_ARTIST = TableRelease.COLUMNS.size();
+
+    private final Cursor cursor;
+    /** Maps each artist only once, if several releases are created. */
+    private final ArtistIdentityMap artists = new ArtistIdentityMap();
+
+    public ReleaseCursorSqlite(Cursor cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public int getCount() {
+        return cursor.getCount();
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        return cursor.moveToPosition(position);
+    }
+
+    @Override
+    public long getId() {
+        return cursor.getLong(TableRelease.INDEX_COLUMN_RELEASEID);
+    }
+
+    @Override
+    public String getMusicBrainzId() {
+        return cursor.getString(TableRelease.INDEX_COLUMN_MB_ID);
+    }
+
+    @Override
+    public String getReleaseName() {
+        return cursor.getString(TableRelease.INDEX_COLUMN_RELEASENAME);
+    }
+
+    @Override
+    public String getArtistName() {
+        return cursor.getString(START_INDEX_ARTIST
+                + TableArtist.INDEX_COLUMN_NAME);
+    }
+
+    @Override
+    public Date getReleaseDate() {
+        return SqliteUtil.loadDate(cursor,
+                TableRelease.INDEX_COLUMN_RELEASEDATE_RELEASED);
+    }
+
+    @Override
+    public Release getRelease() {
+        Release release = TableRelease.toEntity(cursor, 0);
+        release.setArtist(artists.get(cursor, START_INDEX_ARTIST));
+        return release;
+    }
+
+    @Override
+    public void close() {
+        if (!cursor.isClosed()) {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return cursor.isClosed();
+    }
+}
@@ -28,10 +28,18 @@ import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableRelease;
 import info.schnatterer.nusic.data.dao.ReleaseDao;
 import info.schnatterer.nusic.data.model.Artist;
 import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
 import info.schnatterer.nusic.data.util.SqliteUtil;
+import info.schnatterer.nusic.util.DateUtil;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -40,19 +48,31 @@ import javax.inject.Inject;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+import com.google.inject.BindingAnnotation;
 
 public class ReleaseDaoSqlite extends AbstractSqliteDao<Release> implements
         ReleaseDao {
 
+    /**
+     * Sorts by day first, which lets SQLite use
+     * {@link TableRelease#createIndexDayReleased()} for filtering and sorting.
+     * Same order as the release date alone. <code>%1$s</code> is the
+     * direction.
+     */
     public static final String ORDER_BY_RELEASE_DATE = new StringBuilder(
             " ORDER BY ").append(TableRelease.NAME).append(".")
-            .append(TableRelease.COLUMN_DATE_RELEASED).toString();
+            .append(TableRelease.COLUMN_DAY_RELEASED).append(" %1$s, ")
+            .append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_DATE_RELEASED).append(" %1$s")
+            .toString();
 
-    public static final String ORDER_BY_RELEASE_DATE_DESC = new StringBuilder(
-            ORDER_BY_RELEASE_DATE).append(" DESC").toString();
+    public static final String ORDER_BY_RELEASE_DATE_DESC = String.format(
+            ORDER_BY_RELEASE_DATE, "DESC");
 
-    public static final String ORDER_BY_RELEASE_DATE_ASC = new StringBuilder(
-            ORDER_BY_RELEASE_DATE).append(" ASC").toString();
+    public static final String ORDER_BY_RELEASE_DATE_ASC = String.format(
+            ORDER_BY_RELEASE_DATE, "ASC");
 
     public static final String QUERY_ALL = new StringBuilder("SELECT ")
             .append(TableRelease.COLUMNS_ALL).append(",")
@@ -80,19 +100,38 @@ public class ReleaseDaoSqlite extends AbstractSqliteDao<Release> implements
     public static final String QUERY_NOT_HIDDEN_ORDER_BY_RELEASE_DATE_DESC = new StringBuilder(
             QUERY_NOT_HIDDEN).append(ORDER_BY_RELEASE_DATE_DESC).toString();
 
-    public static final String QUERY_BY_DATE_CREATED = new StringBuilder(
+    private static final String QUERY_BY_DATE_CREATED_BASE = new StringBuilder(
             QUERY_NOT_HIDDEN).append(" AND ").append(TableRelease.NAME)
             .append(".").append(TableRelease.COLUMN_DATE_CREATED).append(">")
-            .append(" ?").append(ORDER_BY_RELEASE_DATE_DESC).toString();
+            .append(" ?").toString();
+
+    /**
+     * Same order as {@link #ORDER_BY_RELEASE_DATE_DESC}. The unary
+     * <code>+</code> keeps SQLite from walking
+     * {@link TableRelease#createIndexDayReleased()} in order to avoid sorting,
+     * which would scan all releases. This way, it searches
+     * {@link TableRelease#createIndexDateCreated()} and sorts the few
+     * releases created recently.
+     */
+    private static final String ORDER_BY_RELEASE_DATE_DESC_UNINDEXED = new StringBuilder(
+            " ORDER BY +").append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_DAY_RELEASED).append(" DESC, ")
+            .append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_DATE_RELEASED).append(" DESC")
+            .toString();
+
+    public static final String QUERY_BY_DATE_CREATED = new StringBuilder(
+            QUERY_BY_DATE_CREATED_BASE)
+            .append(ORDER_BY_RELEASE_DATE_DESC_UNINDEXED).toString();
 
     private static final String QUERY_BY_RELEASE_DATE_BASE = new StringBuilder(
             QUERY_NOT_HIDDEN).append(" AND ").append(TableRelease.NAME)
-            .append(".").append(TableRelease.COLUMN_DATE_RELEASED).toString();
+            .append(".").append(TableRelease.COLUMN_DAY_RELEASED).toString();
 
     private static final String QUERY_BY_RELEASE_DATE_GTE_BASE = new StringBuilder(
             QUERY_BY_RELEASE_DATE_BASE).append(" >=").append(" ?").toString();
 
-    private static final String QUERY_BY_RELEASE_DATE_GTE_ORDER_BY_RELEASE_DATE_ASC = new StringBuilder(
+    public static final String QUERY_BY_RELEASE_DATE_GTE_ORDER_BY_RELEASE_DATE_ASC = new StringBuilder(
             QUERY_BY_RELEASE_DATE_GTE_BASE).append(ORDER_BY_RELEASE_DATE_ASC)
             .toString();
 
@@ -100,11 +139,84 @@ public class ReleaseDaoSqlite extends AbstractSqliteDao<Release> implements
             QUERY_BY_RELEASE_DATE_GTE_BASE).append(ORDER_BY_RELEASE_DATE_DESC)
             .toString();
 
-    private static final String QUERY_BY_RELEASE_DATE_RANGE = new StringBuilder(
+    private static final String QUERY_BY_RELEASE_DATE_RANGE_BASE = new StringBuilder(
             QUERY_BY_RELEASE_DATE_GTE_BASE).append(" AND ")
             .append(TableRelease.NAME).append(".")
-            .append(TableRelease.COLUMN_DATE_RELEASED).append(" <")
-            .append(" ?").append(ORDER_BY_RELEASE_DATE_DESC).toString();
+            .append(TableRelease.COLUMN_DAY_RELEASED).append(" <")
+            .append(" ?").toString();
+
+    public static final String QUERY_BY_RELEASE_DATE_RANGE = new StringBuilder(
+            QUERY_BY_RELEASE_DATE_RANGE_BASE)
+            .append(ORDER_BY_RELEASE_DATE_DESC).toString();
+
+    /*
+     * Keyset pagination: A page starts after the last release of the previous
+     * page, sorted by release date and ID (which makes the order unique). The
+     * bound on the day lets SQLite seek into the index.
+     */
+    private static final String ORDER_BY_RELEASE_DATE_AND_ID = new StringBuilder(
+            ORDER_BY_RELEASE_DATE).append(", ").append(TableRelease.NAME)
+            .append(".").append(TableRelease.COLUMN_ID).append(" %1$s")
+            .toString();
+
+    private static final String AFTER_RELEASE = new StringBuilder(" AND ")
+            .append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_DAY_RELEASED).append(" %1$s= ? AND (")
+            .append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_DATE_RELEASED).append(" %1$s ? OR (")
+            .append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_DATE_RELEASED).append(" = ? AND ")
+            .append(TableRelease.NAME).append(".")
+            .append(TableRelease.COLUMN_ID).append(" %1$s ?))").toString();
+
+    private static final String LIMIT = " LIMIT ?";
+
+    /**
+     * Inserts a release unless one with the same MusicBrainz ID exists (see
+     * {@link TableRelease#createIndexMbId()}).
+     */
+    private static final String INSERT_OR_IGNORE = new StringBuilder(
+            "INSERT OR IGNORE INTO ").append(TableRelease.NAME).append("(")
+            .append(TableRelease.COLUMN_MB_ID).append(",")
+            .append(TableRelease.COLUMN_NAME).append(",")
+            .append(TableRelease.COLUMN_DATE_RELEASED).append(",")
+            .append(TableRelease.COLUMN_FK_ID_ARTIST).append(",")
+            .append(TableRelease.COLUMN_IS_HIDDEN).append(",")
+            .append(TableRelease.COLUMN_COVERARTARCHIVE_ID).append(",")
+            .append(TableRelease.COLUMN_DATE_CREATED).append(",")
+            .append(TableRelease.COLUMN_DAY_RELEASED)
+            .append(") VALUES (?1,?2,?3,?4,?5,?6,?7,?8)").toString();
+
+    /**
+     * Updates a release by MusicBrainz ID. Never touches the date created and
+     * keeps the existing value for each parameter that is <code>NULL</code>.
+     * Uses the same parameter order as {@link #INSERT_OR_IGNORE}.
+     */
+    private static final String UPDATE_BY_MB_ID = new StringBuilder("UPDATE ")
+            .append(TableRelease.NAME).append(" SET ")
+            .append(coalesce(TableRelease.COLUMN_NAME, 2)).append(",")
+            .append(coalesce(TableRelease.COLUMN_DATE_RELEASED, 3))
+            .append(",").append(coalesce(TableRelease.COLUMN_FK_ID_ARTIST, 4))
+            .append(",").append(coalesce(TableRelease.COLUMN_IS_HIDDEN, 5))
+            .append(",")
+            .append(coalesce(TableRelease.COLUMN_COVERARTARCHIVE_ID, 6))
+            .append(",").append(coalesce(TableRelease.COLUMN_DAY_RELEASED, 8))
+            .append(" WHERE ").append(TableRelease.COLUMN_MB_ID)
+            .append("=?1").toString();
+
+    public static final String QUERY_ID_BY_MB_ID = new StringBuilder(
+            "SELECT ").append(TableRelease.COLUMN_ID).append(" FROM ")
+            .append(TableRelease.NAME).append(" WHERE ")
+            .append(TableRelease.COLUMN_MB_ID).append("=?").toString();
+
+    /**
+     * Shares artists with the other queries within the scope of the
+     * {@link ArtistIdentityMap}, if bound. Otherwise each query creates its own
+     * artists.
+     */
+    @com.google.inject.Inject(optional = true)
+    @SharedArtists
+    private ArtistIdentityMap sharedArtists;
 
     @Inject
     public ReleaseDaoSqlite(Context context, NusicDatabaseSqlite db) {
@@ -134,6 +246,78 @@ public class ReleaseDaoSqlite extends AbstractSqliteDao<Release> implements
         }
     }
 
+    @Override
+    public void saveOrUpdateAll(Collection<Release> releases)
+            throws DatabaseException {
+        if (releases.isEmpty()) {
+            return;
+        }
+        beginTransaction();
+        /*
+         * Compile once per call instead of parsing SQL for each release. The
+         * statements are not thread-safe, so don't keep them beyond this call.
+         */
+        SQLiteStatement insert = null;
+        SQLiteStatement update = null;
+        SQLiteStatement queryId = null;
+        try {
+            insert = compileStatement(INSERT_OR_IGNORE);
+            update = compileStatement(UPDATE_BY_MB_ID);
+            queryId = compileStatement(QUERY_ID_BY_MB_ID);
+            for (Release release : releases) {
+                release.prePersist();
+                bindRelease(insert, release);
+                SqliteUtil.bindOrNull(insert, 7, release.getDateCreated());
+                long id = insert.executeInsert();
+                if (id == -1) {
+                    // Exists already
+                    bindRelease(update, release);
+                    update.execute();
+                    if (release.getId() == null) {
+                        queryId.bindString(1, release.getMusicBrainzId());
+                        release.setId(queryId.simpleQueryForLong());
+                    }
+                } else {
+                    release.setId(id);
+                }
+            }
+            setTransactionSuccessful();
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to save or update releases",
+                    e);
+        } finally {
+            closeStatement(insert);
+            closeStatement(update);
+            closeStatement(queryId);
+            endTransaction();
+        }
+    }
+
+    /**
+     * Binds all values of a release but the date created (parameter 7) in the
+     * parameter order of {@link #INSERT_OR_IGNORE}.
+     */
+    private void bindRelease(SQLiteStatement statement, Release release) {
+        statement.clearBindings();
+        SqliteUtil.bindOrNull(statement, 1, release.getMusicBrainzId());
+        SqliteUtil.bindOrNull(statement, 2, release.getReleaseName());
+        SqliteUtil.bindOrNull(statement, 3, release.getReleaseDate());
+        SqliteUtil.bindOrNull(statement, 4, release.getArtist().getId());
+        SqliteUtil.bindOrNull(statement, 5, release.isHidden());
+        SqliteUtil.bindOrNull(statement, 6, release.getCoverartArchiveId());
+        SqliteUtil.bindOrNull(statement, 8,
+                DateUtil.toEpochDay(release.getReleaseDate()));
+    }
+
+    /**
+     * @return <code>column=COALESCE(?index,column)</code>
+     */
+    private static String coalesce(String column, int parameterIndex) {
+        return new StringBuilder(column).append("=COALESCE(?")
+                .append(parameterIndex).append(",").append(column).append(")")
+                .toString();
+    }
+
     @Override
     public List<Release> findByDateCreatedGreaterThanAndIsHiddenNotTrue(
             long gtDateCreated) throws DatabaseException {
@@ -142,47 +326,168 @@ public class ReleaseDaoSqlite extends AbstractSqliteDao<Release> implements
     }
 
     @Override
-    public List<Release> findByReleaseDateGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
-            long gtEqReleaseDate) throws DatabaseException {
+    public List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
+            int gtEqReleaseDay) throws DatabaseException {
         return executeQuery(
                 QUERY_BY_RELEASE_DATE_GTE_ORDER_BY_RELEASE_DATE_ASC,
-                new String[] { String.valueOf(gtEqReleaseDate) });
+                new String[] { String.valueOf(gtEqReleaseDay) });
     }
 
     @Override
-    public List<Release> findByReleaseDateGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
-            long gtEqReleaseDate) throws DatabaseException {
+    public List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
+            int gtEqReleaseDay) throws DatabaseException {
         return executeQuery(
                 QUERY_BY_RELEASE_DATE_GTE_ORDER_BY_RELEASE_DATE_DESC,
-                new String[] { String.valueOf(gtEqReleaseDate) });
+                new String[] { String.valueOf(gtEqReleaseDay) });
     }
 
     @Override
-    public List<Release> findByReleaseDateGreaterThanEqualsAndReleaseDateLessThanAndIsHiddenNotTrue(
-            long gtEqReleaseDate, long ltRealaseDate) throws DatabaseException {
+    public List<Release> findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+            int gtEqReleaseDay, int ltReleaseDay) throws DatabaseException {
         return executeQuery(
                 QUERY_BY_RELEASE_DATE_RANGE,
-                new String[] { String.valueOf(gtEqReleaseDate),
-                        String.valueOf(ltRealaseDate) });
+                new String[] { String.valueOf(gtEqReleaseDay),
+                        String.valueOf(ltReleaseDay) });
+    }
+
+    @Override
+    public List<Release> findByDateCreatedGreaterThanAndIsHiddenNotTrue(
+            long gtDateCreated, Release after, int limit)
+            throws DatabaseException {
+        return executePagedQuery(QUERY_BY_DATE_CREATED_BASE,
+                new String[] { String.valueOf(gtDateCreated) }, false, after,
+                limit);
+    }
+
+    @Override
+    public List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
+            int gtEqReleaseDay, Release after, int limit)
+            throws DatabaseException {
+        return executePagedQuery(QUERY_BY_RELEASE_DATE_GTE_BASE,
+                new String[] { String.valueOf(gtEqReleaseDay) }, true, after,
+                limit);
+    }
+
+    @Override
+    public List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
+            int gtEqReleaseDay, Release after, int limit)
+            throws DatabaseException {
+        return executePagedQuery(QUERY_BY_RELEASE_DATE_GTE_BASE,
+                new String[] { String.valueOf(gtEqReleaseDay) }, false,
+                after, limit);
+    }
+
+    @Override
+    public List<Release> findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+            int gtEqReleaseDay, int ltReleaseDay, Release after, int limit)
+            throws DatabaseException {
+        return executePagedQuery(
+                QUERY_BY_RELEASE_DATE_RANGE_BASE,
+                new String[] { String.valueOf(gtEqReleaseDay),
+                        String.valueOf(ltReleaseDay) }, false, after, limit);
+    }
+
+    @Override
+    public ReleaseCursor queryByDateCreatedGreaterThanAndIsHiddenNotTrue(
+            long gtDateCreated) throws DatabaseException {
+        return executeCursorQuery(QUERY_BY_DATE_CREATED,
+                new String[] { String.valueOf(gtDateCreated) });
+    }
+
+    @Override
+    public ReleaseCursor queryByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
+            int gtEqReleaseDay) throws DatabaseException {
+        return executeCursorQuery(
+                QUERY_BY_RELEASE_DATE_GTE_ORDER_BY_RELEASE_DATE_ASC,
+                new String[] { String.valueOf(gtEqReleaseDay) });
+    }
+
+    @Override
+    public ReleaseCursor queryByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
+            int gtEqReleaseDay) throws DatabaseException {
+        return executeCursorQuery(
+                QUERY_BY_RELEASE_DATE_GTE_ORDER_BY_RELEASE_DATE_DESC,
+                new String[] { String.valueOf(gtEqReleaseDay) });
+    }
+
+    @Override
+    public ReleaseCursor queryByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+            int gtEqReleaseDay, int ltReleaseDay) throws DatabaseException {
+        return executeCursorQuery(QUERY_BY_RELEASE_DATE_RANGE, new String[] {
+                String.valueOf(gtEqReleaseDay), String.valueOf(ltReleaseDay) });
+    }
+
+    private ReleaseCursor executeCursorQuery(String sql, String[] selectionArgs)
+            throws DatabaseException {
+        Cursor cursor = null;
+        try {
+            cursor = rawQueryDetached(sql, selectionArgs);
+            // Fills the first window of the cursor, i.e. executes the query
+            cursor.getCount();
+            return new ReleaseCursorSqlite(cursor);
+        } catch (Exception e) {
+            if (cursor != null) {
+                cursor.close();
+            }
+            throw new DatabaseException("Unable to query releases", e);
+        }
+    }
+
+    /**
+     * Queries one page of releases, sorted by release date and ID.
+     * 
+     * @param sql
+     *            query without <code>ORDER BY</code>
+     * @param ascending
+     *            sort order
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases of the page
+     */
+    private List<Release> executePagedQuery(String sql,
+            String[] selectionArgs, boolean ascending, Release after,
+            int limit) throws DatabaseException {
+        String comparison = ascending ? ">" : "<";
+        StringBuilder pagedSql = new StringBuilder(sql);
+        List<String> pagedSelectionArgs = new ArrayList<String>(
+                Arrays.asList(selectionArgs));
+        if (after != null) {
+            pagedSql.append(String.format(AFTER_RELEASE, comparison));
+            String releaseDate = String.valueOf(DateUtil.toLong(after
+                    .getReleaseDate()));
+            pagedSelectionArgs.add(String.valueOf(DateUtil.toEpochDay(after
+                    .getReleaseDate())));
+            pagedSelectionArgs.add(releaseDate);
+            pagedSelectionArgs.add(releaseDate);
+            pagedSelectionArgs.add(String.valueOf(after.getId()));
+        }
+        pagedSql.append(
+                String.format(ORDER_BY_RELEASE_DATE_AND_ID, ascending ? "ASC"
+                        : "DESC")).append(LIMIT);
+        pagedSelectionArgs.add(String.valueOf(limit));
+        return executeQuery(pagedSql.toString(),
+                pagedSelectionArgs.toArray(new String[pagedSelectionArgs
+                        .size()]));
     }
 
     private List<Release> executeQuery(String sql, String[] selectionArgs)
             throws DatabaseException {
-        List<Release> releases = new LinkedList<Release>();
+        List<Release> releases;
         try {
             Cursor cursor = rawQuery(sql, selectionArgs);
+            // Random access for the adapters
+            releases = new ArrayList<Release>(cursor.getCount());
             cursor.moveToFirst();
-            Map<Long, Artist> artists = new HashMap<Long, Artist>();
+            ArtistIdentityMap artists = sharedArtists != null ? sharedArtists
+                    : new ArtistIdentityMap();
             while (!cursor.isAfterLast()) {
-                Artist artist = artists.get(TableArtist.toId(cursor,
-                        TableRelease.COLUMNS.size()));
-                if (artist == null) {
-                    artist = TableArtist.toEntity(cursor,
-                            TableRelease.COLUMNS.size());
-                }
+                Artist artist = artists.get(cursor,
+                        TableRelease.COLUMNS.size());
                 Release release = toEntity(cursor, 0);
                 release.setArtist(artist);
-                artist.getReleases().add(release);
+                artists.attach(artist, release);
                 releases.add(release);
                 cursor.moveToNext();
             }
@@ -194,6 +499,13 @@ public class ReleaseDaoSqlite extends AbstractSqliteDao<Release> implements
         return releases;
     }
 
+    @Override
+    public void clearSharedArtists() {
+        if (sharedArtists != null) {
+            sharedArtists.clear();
+        }
+    }
+
     @Override
     public Long toId(Cursor cursor, int startIndex) {
         return TableRelease.toId(cursor, startIndex);
@@ -225,4 +537,53 @@ public class ReleaseDaoSqlite extends AbstractSqliteDao<Release> implements
         contentValues.put(TableRelease.COLUMN_IS_HIDDEN, SqliteUtil.FALSE);
         update(contentValues, null, null);
     }
+
+    @Override
+    public List<String> findAllMusicBrainzIds() throws DatabaseException {
+        try {
+            Cursor cursor = query(TableRelease.NAME,
+                    new String[] { TableRelease.COLUMN_MB_ID },
+                    TableRelease.COLUMN_MB_ID + " IS NOT NULL", null, null,
+                    null, null);
+            List<String> musicBrainzIds = new ArrayList<String>(
+                    cursor.getCount());
+            while (cursor.moveToNext()) {
+                musicBrainzIds.add(cursor.getString(0));
+            }
+            return musicBrainzIds;
+        } catch (Exception e) {
+            throw new DatabaseException(
+                    "Unable to find MusicBrainz IDs of all releases", e);
+        } finally {
+            closeCursor();
+        }
+    }
+
+    @Override
+    public int deleteByArtistId(long artistId) throws DatabaseException {
+        return delete(TableRelease.COLUMN_FK_ID_ARTIST + " = ?",
+                new String[] { String.valueOf(artistId) });
+    }
+
+    @Override
+    public void setCoverartArchiveId(long releaseId, Long coverartArchiveId)
+            throws DatabaseException {
+        Map<String, Object> contentValues = new HashMap<String, Object>();
+        contentValues.put(TableRelease.COLUMN_COVERARTARCHIVE_ID,
+                coverartArchiveId);
+        update(contentValues, TableRelease.COLUMN_ID + " = " + releaseId, null);
+    }
+
+    /**
+     * Binds the {@link ArtistIdentityMap} that is shared by the queries of
+     * all {@link ReleaseDaoSqlite}s within its scope.
+     * 
+     * @author schnatterer
+     *
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ ElementType.FIELD, ElementType.PARAMETER })
+    @BindingAnnotation
+    public @interface SharedArtists {
+    }
 }
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao.sqlite;
+
+import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite;
+import info.schnatterer.nusic.data.dao.TransactionManager;
+
+import javax.inject.Inject;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * {@link TransactionManager} that delegates to the transactions of the
+ * {@link SQLiteDatabase} that is shared by all sqlite DAOs.
+ * 
+ * @author schnatterer
+ *
+ */
+public class TransactionManagerSqlite implements TransactionManager {
+    private SQLiteDatabase db;
+
+    @Inject
+    public TransactionManagerSqlite(NusicDatabaseSqlite db) {
+        this.db = db.getWritableDatabase();
+    }
+
+    @Override
+    public void beginTransaction() throws DatabaseException {
+        try {
+            db.beginTransaction();
+        } catch (Exception e) {
+            throw new DatabaseException("Unable to begin transaction", e);
+        }
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        db.setTransactionSuccessful();
+    }
+
+    @Override
+    public void endTransaction() {
+        db.endTransaction();
+    }
+}
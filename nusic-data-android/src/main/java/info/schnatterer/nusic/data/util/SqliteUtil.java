@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 import android.os.Parcel;
 
 public final class SqliteUtil {
@@ -90,6 +91,31 @@ public final class SqliteUtil {
         }
     }
 
+    /**
+     * Binds a value to a compiled {@link SQLiteStatement}, binding
+     * <code>NULL</code> if <code>value</code> is <code>null</code>. Supports
+     * integral numbers, {@link Boolean}s, {@link Date}s and {@link String}s.
+     * 
+     * @param statement
+     * @param index
+     *            1-based index of the parameter
+     * @param value
+     */
+    public static void bindOrNull(SQLiteStatement statement, int index,
+            Object value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else if (value instanceof Number) {
+            statement.bindLong(index, ((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            statement.bindLong(index, toInteger((Boolean) value));
+        } else if (value instanceof Date) {
+            statement.bindLong(index, ((Date) value).getTime());
+        } else {
+            statement.bindString(index, value.toString());
+        }
+    }
+
     /**
      * Retrieves a {@link Date} value from a cursor.<br/>
      * <b>Note: The database field is supposed to be a <code>INTEGER</code>
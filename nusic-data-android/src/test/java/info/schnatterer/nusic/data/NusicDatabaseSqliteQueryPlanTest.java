@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data;
+
+import static org.junit.Assert.fail;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableArtist;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TablePendingArtwork;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableRelease;
+import info.schnatterer.nusic.data.dao.sqlite.PendingArtworkDaoSqlite;
+import info.schnatterer.nusic.data.dao.sqlite.ReleaseDaoSqlite;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+
+/**
+ * Makes sure the hot queries of the DAOs use the indexes created by
+ * {@link NusicDatabaseSqlite#onCreate(SQLiteDatabase)} instead of scanning
+ * the whole table.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class NusicDatabaseSqliteQueryPlanTest {
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        NusicDatabaseSqlite.contextProvider = new Provider<Context>() {
+            @Override
+            public Context get() {
+                return RuntimeEnvironment.application;
+            }
+        };
+        // In-memory database with the schema of a new installation
+        db = SQLiteDatabase.create(null);
+        new NusicDatabaseSqlite().onCreate(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void testFindReleaseByMbIdUsesIndex() {
+        assertPlanContains(ReleaseDaoSqlite.QUERY_ID_BY_MB_ID,
+                TableRelease.INDEX_NAME_MB_ID);
+    }
+
+    @Test
+    public void testFindArtistByAndroidIdUsesIndex() {
+        // Same SQL as built by SQLiteDatabase.query()
+        assertPlanContains(SQLiteQueryBuilder.buildQueryString(false,
+                TableArtist.NAME, new String[] { TableArtist.COLUMN_ID },
+                TableArtist.COLUMN_ANDROID_ID + " = ?", null, null, null,
+                null), TableArtist.INDEX_NAME_ANDROID_ID);
+    }
+
+    @Test
+    public void testDeletePendingArtworkOfArtistUsesIndex() {
+        // Same SQL as built by SQLiteDatabase.delete()
+        assertPlanContains("DELETE FROM " + TablePendingArtwork.NAME
+                + " WHERE " + PendingArtworkDaoSqlite.WHERE_RELEASE_OF_ARTIST,
+                TableRelease.INDEX_NAME_FK_ID_ARTIST);
+    }
+
+    @Test
+    public void testQueryAllDoesNotScanArtists() {
+        assertNotScanned(ReleaseDaoSqlite.QUERY_ALL, TableArtist.NAME);
+    }
+
+    @Test
+    public void testFindByDateCreatedUsesIndex() {
+        assertPlanContains(ReleaseDaoSqlite.QUERY_BY_DATE_CREATED,
+                TableRelease.INDEX_NAME_DATE_CREATED);
+        assertNotScanned(ReleaseDaoSqlite.QUERY_BY_DATE_CREATED,
+                TableRelease.NAME);
+        assertNotScanned(ReleaseDaoSqlite.QUERY_BY_DATE_CREATED,
+                TableArtist.NAME);
+    }
+
+    @Test
+    public void testFindByReleaseDayUsesIndex() {
+        assertReleaseDayIndexUsed(ReleaseDaoSqlite.QUERY_BY_RELEASE_DATE_RANGE);
+        assertReleaseDayIndexUsed(
+                ReleaseDaoSqlite.QUERY_BY_RELEASE_DATE_GTE_ORDER_BY_RELEASE_DATE_ASC);
+    }
+
+    /**
+     * Asserts that the index on the release day is used for both filtering
+     * and sorting.
+     */
+    private void assertReleaseDayIndexUsed(String sql) {
+        assertPlanContains(sql, TableRelease.INDEX_NAME_DAY_RELEASED);
+        assertNotScanned(sql, TableRelease.NAME);
+        assertNotScanned(sql, TableArtist.NAME);
+        List<String> plan = explainQueryPlan(sql);
+        for (String detail : plan) {
+            if (detail.contains("TEMP B-TREE")) {
+                fail("Result is sorted without index. Query plan: " + plan);
+            }
+        }
+    }
+
+    private void assertPlanContains(String sql, String indexName) {
+        List<String> plan = explainQueryPlan(sql);
+        for (String detail : plan) {
+            if (detail.contains(indexName)) {
+                return;
+            }
+        }
+        fail("Index " + indexName + " not used. Query plan: " + plan);
+    }
+
+    private void assertNotScanned(String sql, String tableName) {
+        List<String> plan = explainQueryPlan(sql);
+        for (String detail : plan) {
+            // Older versions of SQLite report "SCAN TABLE name"
+            if ((detail.replace("TABLE ", "") + " ").startsWith("SCAN "
+                    + tableName + " ")) {
+                fail("Table " + tableName + " is scanned. Query plan: "
+                        + plan);
+            }
+        }
+    }
+
+    private List<String> explainQueryPlan(String sql) {
+        // Bind something to each parameter
+        int nParams = sql.length() - sql.replace("?", "").length();
+        String[] selectionArgs = new String[nParams];
+        for (int i = 0; i < nParams; i++) {
+            selectionArgs[i] = "0";
+        }
+        List<String> plan = new LinkedList<String>();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql,
+                selectionArgs);
+        try {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detailIndex));
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan;
+    }
+}
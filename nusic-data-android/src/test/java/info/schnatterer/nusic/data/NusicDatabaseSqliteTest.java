@@ -22,6 +22,7 @@
 package info.schnatterer.nusic.data;
 
 import static org.junit.Assert.assertEquals;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableRelease;
 
 import org.junit.Test;
 
@@ -49,4 +50,12 @@ public class NusicDatabaseSqliteTest {
         assertEquals("Unexpected sql query returned", expected, actual);
     }
 
+    @Test
+    public void testDeleteDuplicateReleases() {
+        String expected = "DELETE FROM release WHERE _id NOT IN (SELECT MIN(_id) FROM release GROUP BY mbId UNION SELECT _id FROM release WHERE mbId IS NULL)";
+        String actual = TableRelease.deleteByIdNotIn(TableRelease
+                .selectOldestIdsByMbId());
+        assertEquals("Unexpected sql query returned", expected, actual);
+    }
+
 }
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data;
+
+import static org.junit.Assert.assertEquals;
+import info.schnatterer.nusic.data.NusicDatabaseSqlite.TableRelease;
+import info.schnatterer.nusic.data.dao.sqlite.ReleaseDaoSqlite;
+import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.util.DateUtil;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.inject.Provider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import android.content.Context;
+import android.database.Cursor;
+
+/**
+ * Tests {@link ReleaseDaoSqlite} against a real database. Lives in this
+ * package in order to provide the context to {@link NusicDatabaseSqlite}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ReleaseDaoSqliteTest {
+    private static final String MB_ID = "a4d4f9d6-d1ad-4cb5-9e7b-7d36e4e38d45";
+
+    private NusicDatabaseSqlite db;
+    private ReleaseDaoSqlite releaseDao;
+
+    @Before
+    public void setUp() {
+        NusicDatabaseSqlite.contextProvider = new Provider<Context>() {
+            @Override
+            public Context get() {
+                return RuntimeEnvironment.application;
+            }
+        };
+        db = new NusicDatabaseSqlite();
+        releaseDao = new ReleaseDaoSqlite(RuntimeEnvironment.application, db);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void testSaveOrUpdateAllReplacesReleaseDateWithLaterOne()
+            throws DatabaseException {
+        Date originalDate = new Date(1420070400000L); // 2015-01-01
+        Date postponedDate = new Date(1425168000000L); // 2015-03-01
+
+        releaseDao.saveOrUpdateAll(Arrays.asList(createRelease(originalDate)));
+        // E.g. the release was postponed
+        releaseDao.saveOrUpdateAll(Arrays.asList(createRelease(postponedDate)));
+
+        assertReleaseDate(postponedDate);
+    }
+
+    @Test
+    public void testSaveOrUpdateAllKeepsReleaseDateIfNull()
+            throws DatabaseException {
+        Date releaseDate = new Date(1420070400000L);
+
+        releaseDao.saveOrUpdateAll(Arrays.asList(createRelease(releaseDate)));
+        releaseDao.saveOrUpdateAll(Arrays.asList(createRelease(null)));
+
+        assertReleaseDate(releaseDate);
+    }
+
+    private Release createRelease(Date releaseDate) {
+        Release release = new Release();
+        release.setMusicBrainzId(MB_ID);
+        release.setReleaseName("Release");
+        release.setReleaseDate(releaseDate);
+        release.setArtist(new Artist());
+        return release;
+    }
+
+    private void assertReleaseDate(Date expected) {
+        Cursor cursor = db.getReadableDatabase().rawQuery(
+                "SELECT " + TableRelease.COLUMN_DATE_RELEASED + ","
+                        + TableRelease.COLUMN_DAY_RELEASED + " FROM "
+                        + TableRelease.NAME + " WHERE "
+                        + TableRelease.COLUMN_MB_ID + "=?",
+                new String[] { MB_ID });
+        try {
+            assertEquals("Unexpected number of releases", 1,
+                    cursor.getCount());
+            cursor.moveToFirst();
+            assertEquals("Unexpected release date", expected.getTime(),
+                    cursor.getLong(0));
+            assertEquals("Unexpected release day",
+                    DateUtil.toEpochDay(expected).intValue(),
+                    cursor.getInt(1));
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao.fs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArtworkPackTest {
+    private static final int MAX_SEGMENT_BYTES = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ArtworkPack pack;
+
+    @Before
+    public void setUp() throws Exception {
+        pack = open();
+    }
+
+    @Test
+    public void testPutAndRead() throws Exception {
+        pack.put("a_S", data(10, 1));
+
+        assertTrue(pack.contains("a_S"));
+        assertArrayEquals(bytes(10, 1), read(pack, "a_S"));
+        assertNull(pack.openStream("b_S"));
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        pack.put("a_S", data(10, 1));
+        pack.put("b_S", data(20, 2));
+        pack.delete("a_S");
+
+        ArtworkPack reopened = open();
+        assertFalse(reopened.contains("a_S"));
+        assertArrayEquals(bytes(20, 2), read(reopened, "b_S"));
+    }
+
+    @Test
+    public void testReopenAndAppend() throws Exception {
+        pack.put("a_S", data(10, 1));
+        pack.put("b_S", data(20, 2));
+        pack.put("c_S", data(5, 3));
+        pack.delete("c_S");
+
+        ArtworkPack reopened = open();
+        reopened.put("d_S", data(30, 4));
+        assertArrayEquals(bytes(10, 1), read(reopened, "a_S"));
+        assertArrayEquals(bytes(20, 2), read(reopened, "b_S"));
+        assertArrayEquals(bytes(30, 4), read(reopened, "d_S"));
+        assertEquals(1, countSegments());
+    }
+
+    @Test
+    public void testOpenIgnoresUnexpectedSegmentFiles() throws Exception {
+        pack.put("a_S", data(10, 1));
+        assertTrue(new File(folder.getRoot(), ArtworkPack.SEGMENT_PREFIX
+                + "copy" + ArtworkPack.SEGMENT_SUFFIX).createNewFile());
+
+        ArtworkPack reopened = open();
+        assertArrayEquals(bytes(10, 1), read(reopened, "a_S"));
+    }
+
+    @Test
+    public void testSegmentsAreLimited() throws Exception {
+        pack.put("a_S", data(60, 1));
+        pack.put("b_S", data(60, 2));
+
+        assertEquals(2, countSegments());
+        assertArrayEquals(bytes(60, 1), read(pack, "a_S"));
+        assertArrayEquals(bytes(60, 2), read(pack, "b_S"));
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        pack.put("a_S", data(30, 1));
+        pack.put("b_S", data(60, 2));
+        pack.put("c_S", data(60, 3));
+        pack.delete("b_S");
+
+        // First segment is mostly deleted, "a" is moved to the last one
+        assertEquals(1, pack.compact());
+        assertEquals(1, countSegments());
+        assertArrayEquals(bytes(30, 1), read(pack, "a_S"));
+        assertArrayEquals(bytes(60, 3), read(pack, "c_S"));
+
+        ArtworkPack reopened = open();
+        assertArrayEquals(bytes(30, 1), read(reopened, "a_S"));
+        assertFalse(reopened.contains("b_S"));
+    }
+
+    @Test
+    public void testIndexGrowsAndShrinks() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            pack.put("key" + i, data(1, i));
+            if (i > 0) {
+                pack.delete("key" + (i - 1));
+            }
+        }
+        pack.compact();
+
+        ArtworkPack reopened = open();
+        assertEquals(1, reopened.getKeys().size());
+        assertArrayEquals(bytes(1, 999), read(reopened, "key999"));
+    }
+
+    private ArtworkPack open() throws Exception {
+        ArtworkPack pack = new ArtworkPack(MAX_SEGMENT_BYTES);
+        pack.open(folder.getRoot());
+        return pack;
+    }
+
+    private int countSegments() {
+        int nSegments = 0;
+        for (File file : folder.getRoot().listFiles()) {
+            if (file.getName().startsWith(ArtworkPack.SEGMENT_PREFIX)) {
+                nSegments++;
+            }
+        }
+        return nSegments;
+    }
+
+    private static byte[] read(ArtworkPack pack, String key) throws Exception {
+        InputStream in = pack.openStream(key);
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static InputStream data(int length, int value) {
+        return new ByteArrayInputStream(bytes(length, value));
+    }
+
+    private static byte[] bytes(int length, int value) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) value;
+        }
+        return bytes;
+    }
+}
@@ -24,6 +24,8 @@ package info.schnatterer.nusic.data.dao;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.model.Artist;
 
+import java.util.Map;
+
 public interface ArtistDao extends GenericDao<Artist> {
     /**
      * Finds out of if artist with a specific
@@ -47,10 +49,34 @@ public interface ArtistDao extends GenericDao<Artist> {
      */
     Long findIdByAndroidId(Long androidAudioArtistId) throws DatabaseException;
 
+    /**
+     * Finds all artists in one query. Only {@link Artist#getId()},
+     * {@link Artist#getAndroidAudioArtistId()}, {@link Artist#getArtistName()},
+     * {@link Artist#getMusicBrainzId()}, {@link Artist#getDateCreated()} and
+     * {@link Artist#getDateLastSynced()} are filled in.
+     * 
+     * @return a map of {@link Artist#getAndroidAudioArtistId()} to
+     *         {@link Artist}. Never <code>null</code>.
+     * @throws DatabaseException
+     */
+    Map<Long, Artist> findAllByAndroidId() throws DatabaseException;
+
     /**
      * Set <code>isHidden</code> to <code>false</code> for all {@link Artist}s.
      * 
      * @throws DatabaseException
      */
     void setIsHiddenFalse() throws DatabaseException;
+
+    /**
+     * Sets <code>isHidden</code> of a specific artist, without writing any of
+     * its other columns.
+     * 
+     * @param artistId
+     *            {@link Artist#getId()}
+     * @param isHidden
+     * @return the number of rows affected
+     * @throws DatabaseException
+     */
+    int setIsHidden(long artistId, boolean isHidden) throws DatabaseException;
 }
@@ -22,15 +22,18 @@
 package info.schnatterer.nusic.data.dao;
 
 import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.model.ArtworkType;
 import info.schnatterer.nusic.data.model.Release;
 
 import java.io.InputStream;
+import java.util.Collection;
 
 public interface ArtworkDao {
-
-    public enum ArtworkType {
-        SMALL;
-    }
+    /**
+     * Scheme of the URIs of artwork that is not stored in a file of its own.
+     * Such URIs can only be read using {@link #findStreamByUri(String)}.
+     */
+    String SCHEME_ARTWORK = "artwork://";
 
     /**
      * Stores an artwork, if does not exist yet.
@@ -73,4 +76,39 @@ public interface ArtworkDao {
     String findUriByRelease(Release release, ArtworkType type)
             throws DatabaseException;
 
+    /**
+     * Same as {@link #findUriByRelease(Release, ArtworkType)}, for callers
+     * that only know the {@link Release#getMusicBrainzId()}.
+     * 
+     * @param musicBrainzId
+     * @param type
+     * @return an URI string to artwork data or <code>null</code> if there is
+     *         none
+     * @throws DatabaseException
+     */
+    String findUriByMusicBrainzId(String musicBrainzId, ArtworkType type)
+            throws DatabaseException;
+
+    /**
+     * Provides a stream to the artwork data of an URI returned by
+     * {@link #findUriByRelease(Release, ArtworkType)}.
+     * 
+     * @param uri
+     * @return a stream to artwork data or <code>null</code> if there is none
+     * @throws DatabaseException
+     */
+    InputStream findStreamByUri(String uri) throws DatabaseException;
+
+    /**
+     * Deletes the artwork of all types that belongs to none of the
+     * <code>musicBrainzIds</code>, e.g. because the release was deleted.
+     * 
+     * @param musicBrainzIds
+     *            the {@link Release#getMusicBrainzId()}s whose artwork is kept
+     * @return the number of artworks deleted
+     * @throws DatabaseException
+     */
+    int deleteByMusicBrainzIdNotIn(Collection<String> musicBrainzIds)
+            throws DatabaseException;
+
 }
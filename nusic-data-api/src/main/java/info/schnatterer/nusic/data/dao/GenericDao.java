@@ -24,6 +24,7 @@ package info.schnatterer.nusic.data.dao;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.model.Entity;
 
+import java.util.Collection;
 import java.util.Map;
 
 public interface GenericDao<T extends Entity> {
@@ -48,6 +49,36 @@ public interface GenericDao<T extends Entity> {
      */
     int update(T entity) throws DatabaseException;
 
+    /**
+     * Stores several entities within one transaction. Either all of them are
+     * stored or none.
+     * 
+     * @param entities
+     * @throws DatabaseException
+     *             any of the entities already exists, error writing data, etc.
+     */
+    void saveAll(Collection<T> entities) throws DatabaseException;
+
+    /**
+     * Updates several entities within one transaction. Either all of them are
+     * updated or none.
+     * 
+     * @param entities
+     * @throws DatabaseException
+     *             any of the entities does not exist, error writing data, etc.
+     */
+    void updateAll(Collection<T> entities) throws DatabaseException;
+
+    /**
+     * Deletes an entity.
+     * 
+     * @param entity
+     * @return the number of rows affected
+     * @throws DatabaseException
+     *             error writing data, etc.
+     */
+    int delete(T entity) throws DatabaseException;
+
     /**
      * Convenience method for updating rows in the database. This is useful when
      * updating more than one row at a time. To update only one row, consider
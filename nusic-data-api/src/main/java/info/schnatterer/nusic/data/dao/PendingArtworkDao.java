@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao;
+
+import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.model.PendingArtwork;
+import info.schnatterer.nusic.data.model.Release;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PendingArtworkDao extends GenericDao<PendingArtwork> {
+
+    /**
+     * Saves pending artwork, except for the releases whose artwork is pending
+     * already. Uses a single statement per artwork, without looking the
+     * release up first.
+     * 
+     * @param pendingArtworks
+     *            each with a {@link PendingArtwork#getRelease()} that has an
+     *            {@link Release#getId()}
+     * @return the number of pending artworks saved
+     * @throws DatabaseException
+     */
+    int saveIfAbsent(Collection<PendingArtwork> pendingArtworks)
+            throws DatabaseException;
+
+    /**
+     * Finds the artwork that is due to be downloaded, including the
+     * corresponding {@link Release} (without its {@link Release#getArtist()}).
+     * Order by date of next attempt ascending.
+     * 
+     * @param lteDateNextAttempt
+     *            all pending artwork whose date of next attempt is less than or
+     *            equal to this date is returned
+     * @param limit
+     *            maximum number of results
+     * @return the pending artwork that is due
+     * @throws DatabaseException
+     */
+    List<PendingArtwork> findByDateNextAttemptLessThanEquals(
+            long lteDateNextAttempt, int limit) throws DatabaseException;
+
+    /**
+     * Deletes the pending artwork of all releases of a specific artist.
+     * 
+     * @param artistId
+     *            {@link Release#getArtist()}'s ID
+     * @return the number of pending artworks deleted
+     * @throws DatabaseException
+     */
+    int deleteByArtistId(long artistId) throws DatabaseException;
+}
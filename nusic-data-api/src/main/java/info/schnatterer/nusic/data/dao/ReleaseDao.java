@@ -23,7 +23,9 @@ package info.schnatterer.nusic.data.dao;
 
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReleaseDao extends GenericDao<Release> {
@@ -39,6 +41,22 @@ public interface ReleaseDao extends GenericDao<Release> {
      */
     Release findByMusicBrainzId(String musicBrainzId) throws DatabaseException;
 
+    /**
+     * Saves new releases and updates existing ones, matching by
+     * {@link Release#getMusicBrainzId()}, within one transaction. Sets the
+     * {@link Release#getId()} of each release.<br/>
+     * <br/>
+     * The date created of existing releases is never overwritten in the
+     * database (note that it is not loaded into the release either). Like
+     * {@link #update(Release)}, values that are <code>null</code> are not
+     * written for existing releases.
+     * 
+     * @param releases
+     * @throws DatabaseException
+     */
+    void saveOrUpdateAll(Collection<Release> releases)
+            throws DatabaseException;
+
     /**
      * Finds all releases that were created after a specific date and are not
      * hidden. Order by release date descending.
@@ -54,53 +72,182 @@ public interface ReleaseDao extends GenericDao<Release> {
             long gtDateCreated) throws DatabaseException;
 
     /**
-     * Finds all releases whose release date is greater than or equal to a
-     * specific date and are not hidden. Order by release date ascending.
+     * Pages {@link #findByDateCreatedGreaterThanAndIsHiddenNotTrue(long)}.
+     * Within the same release date, orders by ID descending.
      * 
-     * @param gtEqReleaseDate
-     *            all releases whose release date greater than or equal to this
-     *            date are returned
-     * @return all releases whose release date is at or after
-     *         <code>gtEqReleaseDate</code>
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases returned
+     */
+    List<Release> findByDateCreatedGreaterThanAndIsHiddenNotTrue(
+            long gtDateCreated, Release after, int limit)
+            throws DatabaseException;
+
+    /**
+     * Finds all releases whose release day is greater than or equal to a
+     * specific day and are not hidden. Order by release date ascending.
+     * 
+     * @param gtEqReleaseDay
+     *            all releases released on or after this day (days since
+     *            1970-01-01) are returned
+     * @return all releases whose release day is at or after
+     *         <code>gtEqReleaseDay</code>
      * @throws DatabaseException
      */
-    List<Release> findByReleaseDateGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
-            long gtEqReleaseDate) throws DatabaseException;
+    List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
+            int gtEqReleaseDay) throws DatabaseException;
+
+    /**
+     * Pages
+     * {@link #findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(int)}
+     * . Within the same release date, orders by ID ascending.
+     * 
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases returned
+     */
+    List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
+            int gtEqReleaseDay, Release after, int limit)
+            throws DatabaseException;
 
     /**
-     * Finds all releases whose release date is greater than or equal to a
-     * specific date and are not hidden. Order by release date descending.
+     * Finds all releases whose release day is greater than or equal to a
+     * specific day and are not hidden. Order by release date descending.
      * 
-     * @param gtEqReleaseDate
-     *            all releases whose release date greater than or equal to this
-     *            date are returned
-     * @return all releases whose release date is at or after
-     *         <code>gtEqReleaseDate</code>
+     * @param gtEqReleaseDay
+     *            all releases released on or after this day (days since
+     *            1970-01-01) are returned
+     * @return all releases whose release day is at or after
+     *         <code>gtEqReleaseDay</code>
      * @throws DatabaseException
      */
-    List<Release> findByReleaseDateGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
-            long gtEqReleaseDate) throws DatabaseException;
+    List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
+            int gtEqReleaseDay) throws DatabaseException;
 
     /**
-     * Finds all releases whose release date is within a specific range and are
+     * Pages
+     * {@link #findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(int)}
+     * . Within the same release date, orders by ID descending.
+     * 
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases returned
+     */
+    List<Release> findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
+            int gtEqReleaseDay, Release after, int limit)
+            throws DatabaseException;
+
+    /**
+     * Finds all releases whose release day is within a specific range and are
      * not hidden. Order by release date descending.
      * 
-     * @param gtEqReleaseDate
-     *            all releases whose release date greater than or equal to this
-     *            date are returned
-     * @param ltReleaseDate
-     *            all releases whose release date is less than this date are
-     *            returned
-     * @return all releases whose release date is at or after
-     *         <code>gtEqReleaseDate</code> and before
-     *         <code>ltReleaseDate</code>
+     * @param gtEqReleaseDay
+     *            all releases released on or after this day (days since
+     *            1970-01-01) are returned
+     * @param ltReleaseDay
+     *            all releases released before this day are returned
+     * @return all releases whose release day is at or after
+     *         <code>gtEqReleaseDay</code> and before
+     *         <code>ltReleaseDay</code>
+     * @throws DatabaseException
+     */
+    List<Release> findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+            int gtEqReleaseDay, int ltReleaseDay) throws DatabaseException;
+
+    /**
+     * Pages
+     * {@link #findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(int, int)}
+     * . Within the same release date, orders by ID descending.
+     * 
+     * @param after
+     *            the last release of the previous page or <code>null</code>
+     *            for the first page
+     * @param limit
+     *            maximum number of releases returned
+     */
+    List<Release> findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+            int gtEqReleaseDay, int ltReleaseDay, Release after, int limit)
+            throws DatabaseException;
+
+    /**
+     * @return the {@link Release#getMusicBrainzId()} of all releases, hidden
+     *         or not
+     * @throws DatabaseException
+     */
+    List<String> findAllMusicBrainzIds() throws DatabaseException;
+
+    /**
+     * Deletes all releases of a specific artist.
+     * 
+     * @param artistId
+     *            {@link Release#getArtist()}'s ID
+     * @return the number of releases deleted
      * @throws DatabaseException
      */
-    List<Release> findByReleaseDateGreaterThanEqualsAndReleaseDateLessThanAndIsHiddenNotTrue(
-            long gtEqReleaseDate, long ltRealaseDate) throws DatabaseException;
+    int deleteByArtistId(long artistId) throws DatabaseException;
+
+    /**
+     * Sets the {@link Release#getCoverartArchiveId()} of a specific release.
+     * 
+     * @param releaseId
+     *            {@link Release#getId()}
+     * @param coverartArchiveId
+     * @throws DatabaseException
+     */
+    void setCoverartArchiveId(long releaseId, Long coverartArchiveId)
+            throws DatabaseException;
 
     /**
      * Set <code>isHidden</code> to <code>false</code> for all {@link Release}s.
      */
     void setIsHiddenFalse() throws DatabaseException;
+
+    /**
+     * Forgets the artists that the queries share within the current scope
+     * (e.g. the loaders of an activity), so they are read from the database
+     * again. Call this when the content changed, e.g. after a sync finished.
+     * Does nothing if the queries do not share artists.
+     */
+    void clearSharedArtists();
+
+    /**
+     * Same as {@link #findByDateCreatedGreaterThanAndIsHiddenNotTrue(long)}
+     * but returns a cursor instead of creating all releases. <b>Make sure to
+     * close the cursor when finished!</b>
+     */
+    ReleaseCursor queryByDateCreatedGreaterThanAndIsHiddenNotTrue(
+            long gtDateCreated) throws DatabaseException;
+
+    /**
+     * Same as
+     * {@link #findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(int)}
+     * but returns a cursor instead of creating all releases. <b>Make sure to
+     * close the cursor when finished!</b>
+     */
+    ReleaseCursor queryByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateAsc(
+            int gtEqReleaseDay) throws DatabaseException;
+
+    /**
+     * Same as
+     * {@link #findByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(int)}
+     * but returns a cursor instead of creating all releases. <b>Make sure to
+     * close the cursor when finished!</b>
+     */
+    ReleaseCursor queryByReleaseDayGreaterThanEqualsAndIsHiddenNotTrueSortByReleaseDateDesc(
+            int gtEqReleaseDay) throws DatabaseException;
+
+    /**
+     * Same as
+     * {@link #findByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(int, int)}
+     * but returns a cursor instead of creating all releases. <b>Make sure to
+     * close the cursor when finished!</b>
+     */
+    ReleaseCursor queryByReleaseDayGreaterThanEqualsAndReleaseDayLessThanAndIsHiddenNotTrue(
+            int gtEqReleaseDay, int ltReleaseDay) throws DatabaseException;
 }
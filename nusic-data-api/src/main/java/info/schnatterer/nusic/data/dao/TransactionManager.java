@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.dao;
+
+import info.schnatterer.nusic.data.DatabaseException;
+
+/**
+ * Groups the write operations of several DAOs into one database transaction,
+ * which is a lot faster than committing each operation on its own.
+ * Transactions are bound to the calling thread and can be nested. Only the
+ * outermost transaction is committed. Usage:
+ * 
+ * <pre>
+ * transactionManager.beginTransaction();
+ * try {
+ *     // write using DAOs
+ *     transactionManager.setTransactionSuccessful();
+ * } finally {
+ *     transactionManager.endTransaction();
+ * }
+ * </pre>
+ * 
+ * @author schnatterer
+ *
+ */
+public interface TransactionManager {
+
+    /**
+     * Begins a transaction.
+     * 
+     * @throws DatabaseException
+     */
+    void beginTransaction() throws DatabaseException;
+
+    /**
+     * Marks the current transaction as successful, so it is committed by
+     * {@link #endTransaction()}.
+     */
+    void setTransactionSuccessful();
+
+    /**
+     * Ends the current transaction. All changes are rolled back, unless
+     * {@link #setTransactionSuccessful()} was called before.
+     */
+    void endTransaction();
+}
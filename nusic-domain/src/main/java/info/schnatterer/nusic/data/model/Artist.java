@@ -41,9 +41,15 @@ public class Artist implements Entity {
      * Artist name from android db
      */
     private String artistName;
-    private List<Release> releases = new LinkedList<Release>();
+    /** Created when first accessed, as many artists never have releases. */
+    private List<Release> releases;
     private Date dateCreated;
     private Boolean isHidden;
+    /**
+     * Last time the releases of this artist have successfully been loaded from
+     * the internet.
+     */
+    private Date dateLastSynced;
 
     public Artist() {
     }
@@ -53,6 +59,9 @@ public class Artist implements Entity {
     }
 
     public List<Release> getReleases() {
+        if (releases == null) {
+            releases = new LinkedList<Release>();
+        }
         return releases;
     }
 
@@ -137,6 +146,14 @@ public class Artist implements Entity {
         this.isHidden = isHidden;
     }
 
+    public Date getDateLastSynced() {
+        return dateLastSynced;
+    }
+
+    public void setDateLastSynced(Date dateLastSynced) {
+        this.dateLastSynced = dateLastSynced;
+    }
+
     public String getMusicBrainzUri() {
         return MUSIC_BRAINZ_BASE_URI_HTTP + getMusicBrainzId();
     }
@@ -158,6 +175,6 @@ public class Artist implements Entity {
                 + androidAudioArtistId + ", musicBrainzId=" + musicBrainzId
                 + ", artistName=" + artistName + ", releases=" + releases
                 + ", dateCreated=" + dateCreated + ", isHidden=" + isHidden
-                + "]";
+                + ", dateLastSynced=" + dateLastSynced + "]";
     }
 }
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.model;
+
+/**
+ * The resolutions in which the artwork of a {@link Release} is stored. Only
+ * {@link #SMALL} is downloaded for each release, {@link #LARGE} is downloaded
+ * on demand.
+ * 
+ * @author schnatterer
+ *
+ */
+public enum ArtworkType {
+    /** Thumbnail with a width of 250px. */
+    SMALL,
+    /**
+     * Thumbnail with a width of 500px. Stored within a budget of its own, so
+     * it never evicts {@link #SMALL} artwork.
+     */
+    LARGE;
+}
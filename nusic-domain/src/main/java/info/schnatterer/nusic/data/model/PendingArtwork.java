@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.model;
+
+import java.util.Date;
+
+/**
+ * The artwork of a {@link Release} that still needs to be downloaded. Entries
+ * are kept until the download succeeded, so failed downloads can be retried
+ * later on.
+ * 
+ * @author schnatterer
+ *
+ */
+public class PendingArtwork implements Entity {
+    private Long id;
+    private Release release;
+    /** Number of failed downloads. */
+    private Integer attempts = 0;
+    /** Earliest date the download is (re-)tried. */
+    private Date dateNextAttempt;
+    private Date dateCreated;
+
+    public PendingArtwork() {
+    }
+
+    public PendingArtwork(Release release) {
+        setRelease(release);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Release getRelease() {
+        return release;
+    }
+
+    public void setRelease(Release release) {
+        this.release = release;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getDateNextAttempt() {
+        return dateNextAttempt;
+    }
+
+    public void setDateNextAttempt(Date dateNextAttempt) {
+        this.dateNextAttempt = dateNextAttempt;
+    }
+
+    public Date getDateCreated() {
+        return dateCreated;
+    }
+
+    public void setDateCreated(Date dateCreated) {
+        this.dateCreated = dateCreated;
+    }
+
+    @Override
+    public void prePersist() {
+        if (dateCreated == null)
+            setDateCreated(new Date());
+        if (dateNextAttempt == null)
+            setDateNextAttempt(dateCreated);
+    }
+
+    @Override
+    public String toString() {
+        return "PendingArtwork [id=" + id + ", release=" + release
+                + ", attempts=" + attempts + ", dateNextAttempt="
+                + dateNextAttempt + ", dateCreated=" + dateCreated + "]";
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.data.model;
+
+import java.util.Date;
+
+/**
+ * Random access to the result of a release query, as it is read from the
+ * database. In contrast to a list of {@link Release}s, it does not create any
+ * objects for rows that are never read. <b>Make sure to close the cursor when
+ * finished!</b>
+ * 
+ * @author schnatterer
+ *
+ */
+public interface ReleaseCursor {
+
+    /**
+     * @return the number of releases in the result
+     */
+    int getCount();
+
+    /**
+     * Moves the cursor to a row. The getters return the values of this row.
+     * 
+     * @param position
+     *            zero-based position in the result
+     * @return <code>false</code> if the position is out of range
+     */
+    boolean moveToPosition(int position);
+
+    /**
+     * @return {@link Release#getId()} of the current row
+     */
+    long getId();
+
+    /**
+     * @return {@link Release#getMusicBrainzId()} of the current row
+     */
+    String getMusicBrainzId();
+
+    /**
+     * @return {@link Release#getReleaseName()} of the current row
+     */
+    String getReleaseName();
+
+    /**
+     * @return {@link Artist#getArtistName()} of the current row
+     */
+    String getArtistName();
+
+    /**
+     * @return {@link Release#getReleaseDate()} of the current row or
+     *         <code>null</code> if it is unknown
+     */
+    Date getReleaseDate();
+
+    /**
+     * Creates the {@link Release} of the current row, including its
+     * {@link Artist}.
+     */
+    Release getRelease();
+
+    /**
+     * Releases the resources of the cursor. Calling it more than once has no
+     * effect.
+     */
+    void close();
+
+    boolean isClosed();
+}
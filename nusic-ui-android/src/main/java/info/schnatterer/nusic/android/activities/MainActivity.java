@@ -28,11 +28,14 @@ import info.schnatterer.nusic.android.fragments.ReleaseListFragment;
 import info.schnatterer.nusic.android.service.LoadNewReleasesService;
 import info.schnatterer.nusic.android.util.TextUtil;
 import info.schnatterer.nusic.android.util.Toast;
+import info.schnatterer.nusic.data.dao.ReleaseDao;
 import info.schnatterer.nusic.ui.R;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.inject.Inject;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -121,6 +124,10 @@ public class MainActivity extends RoboActionBarActivity {
      */
     private static TabDefinition currentTab = TabDefinition.JUST_ADDED;
 
+    /** Provides access to the artists shared by the loaders of the tabs. */
+    @Inject
+    private ReleaseDao releaseDao;
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -370,6 +377,8 @@ public class MainActivity extends RoboActionBarActivity {
         // Create fragment
         Bundle bundle = new Bundle();
         bundle.putInt(ReleaseListFragment.EXTRA_LOADER_ID, tab.loaderId);
+        bundle.putBoolean(ReleaseListFragment.EXTRA_CURSOR_BACKED,
+                tab.cursorBacked);
         return (ReleaseListFragment) Fragment.instantiate(this,
                 ReleaseListFragment.class.getName(), bundle);
     }
@@ -479,6 +488,8 @@ public class MainActivity extends RoboActionBarActivity {
     @Override
     public void onContentChanged() {
         super.onContentChanged();
+        // Don't display or write back outdated artists
+        releaseDao.clearSharedArtists();
         final ViewPager pager = (ViewPager) findViewById(R.id.mainPager);
         final TabFragmentPagerAdapter adapter = (TabFragmentPagerAdapter) pager
                 .getAdapter();
@@ -579,17 +590,26 @@ public class MainActivity extends RoboActionBarActivity {
         /** Third tab: Announced releases */
         ANNOUNCED(R.string.MainActivity_TabAnnounced,
                 Loaders.RELEASE_LOADER_ANNOUNCED),
-        /** Fourth tab: All releases */
-        ALL(R.string.MainActivity_TabAll, Loaders.RELEASE_LOADER_ALL);
+        /**
+         * Fourth tab: All releases. Grows with the download period, so it is
+         * displayed directly from a cursor.
+         */
+        ALL(R.string.MainActivity_TabAll, Loaders.RELEASE_LOADER_ALL, true);
 
         private final int position;
         private final int titleId;
         private final int loaderId;
+        private final boolean cursorBacked;
 
         private TabDefinition(int titleId, int loaderId) {
+            this(titleId, loaderId, false);
+        }
+
+        private TabDefinition(int titleId, int loaderId, boolean cursorBacked) {
             this.position = ordinal();
             this.titleId = titleId;
             this.loaderId = loaderId;
+            this.cursorBacked = cursorBacked;
         }
     }
 
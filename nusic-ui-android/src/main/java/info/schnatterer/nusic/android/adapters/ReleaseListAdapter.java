@@ -21,16 +21,20 @@
  */
 package info.schnatterer.nusic.android.adapters;
 
+import info.schnatterer.nusic.android.util.ImageUtil;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.dao.ArtworkDao;
-import info.schnatterer.nusic.data.dao.ArtworkDao.ArtworkType;
+import info.schnatterer.nusic.data.model.ArtworkType;
 import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
 import info.schnatterer.nusic.ui.R;
 
-import java.lang.ref.WeakReference;
 import java.text.DateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.TimeZone;
 
 import javax.inject.Inject;
@@ -38,29 +42,58 @@ import javax.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import android.os.AsyncTask;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.nostra13.universalimageloader.core.DisplayImageOptions;
 import com.nostra13.universalimageloader.core.ImageLoader;
+import com.nostra13.universalimageloader.core.assist.ImageScaleType;
 
-public class ReleaseListAdapter extends BaseAdapter {
+/**
+ * Displays {@link Release}s, either from a list (see {@link #show(List)}) or
+ * directly from the rows of a {@link ReleaseCursor} (see
+ * {@link #swapCursor(ReleaseCursor)}). In the latter case, {@link Release}
+ * objects are only created in {@link #getItem(int)}.<br/>
+ * <br/>
+ * The item IDs are the {@link Release#getId()}s. When a new list is shown, the
+ * difference to the previous list is calculated in the background, so only the
+ * rows that changed are animated and bound again.<br/>
+ * <br/>
+ * Rows whose artwork is missing, e.g. because it was evicted from the artwork
+ * cache, are reported to the {@link OnArtworkMissingListener} once.
+ * 
+ * @author schnatterer
+ *
+ */
+public class ReleaseListAdapter extends
+        RecyclerView.Adapter<ReleaseListAdapter.ReleaseListHolder> {
     private static final Logger LOG = LoggerFactory
             .getLogger(ReleaseListAdapter.class);
 
     private static final int DEFAULT_ARTWORK = R.drawable.ic_launcher;
+    /**
+     * Request the next page when a row that is this close to the end of the
+     * list is displayed.
+     */
+    private static final int LOAD_MORE_THRESHOLD = 10;
 
     /**
-     * Options for asynchronous image loading.
+     * Options for asynchronous image loading. The artwork is subsampled to the
+     * size of the thumbnail view when decoding, so low density screens don't
+     * hold artwork larger than displayed.
      */
     private static final DisplayImageOptions IMAGE_LOADER_OPTIONS = new DisplayImageOptions.Builder()
             .showImageOnLoading(DEFAULT_ARTWORK)
             .showImageForEmptyUri(DEFAULT_ARTWORK)
-            .showImageOnFail(DEFAULT_ARTWORK).cacheInMemory(true).build();
+            .showImageOnFail(DEFAULT_ARTWORK)
+            .imageScaleType(ImageScaleType.IN_SAMPLE_POWER_OF_2)
+            .cacheInMemory(true).build();
 
     private static transient ImageLoader imageLoader = ImageLoader
             .getInstance();
@@ -76,21 +109,49 @@ public class ReleaseListAdapter extends BaseAdapter {
 
     @Inject
     private ArtworkDao artworkDao;
-    private List<Release> listData;
+    private List<Release> listData = Collections.emptyList();
+    /** If not <code>null</code>, the rows are read from here */
+    private ReleaseCursor cursor;
     @Inject
     private LayoutInflater layoutInflater = null;
+    private OnLoadMoreListener onLoadMoreListener;
+    private OnItemClickListener onItemClickListener;
+    private OnArtworkMissingListener onArtworkMissingListener;
+    /** Releases reported to {@link #onArtworkMissingListener} before. */
+    private Set<Long> artworkMissingReported = new HashSet<Long>();
+    private boolean hasMore = false;
+    /** Size of the thumbnail in px, depends on the screen density. */
+    private int thumbnailSize = 0;
+    /**
+     * Incremented with each new list, so a diff that was calculated for an
+     * outdated list is not applied.
+     */
+    private int listGeneration = 0;
+
+    public ReleaseListAdapter() {
+        setHasStableIds(true);
+    }
 
     @Override
-    public int getCount() {
-        if (listData != null) {
-            return listData.size();
+    public int getItemCount() {
+        if (cursor != null) {
+            return cursor.getCount();
         }
-        return 0;
+        return listData.size();
     }
 
-    @Override
-    public Object getItem(int position) {
-        if (listData != null) {
+    /**
+     * @return the release at a position or <code>null</code> if the position
+     *         is out of range
+     */
+    public Release getItem(int position) {
+        if (cursor != null) {
+            if (cursor.moveToPosition(position)) {
+                return cursor.getRelease();
+            }
+            return null;
+        }
+        if (position >= 0 && position < listData.size()) {
             return listData.get(position);
         }
         return null;
@@ -98,75 +159,291 @@ public class ReleaseListAdapter extends BaseAdapter {
 
     @Override
     public long getItemId(int position) {
-        return position;
+        if (cursor != null) {
+            if (cursor.moveToPosition(position)) {
+                return cursor.getId();
+            }
+            return RecyclerView.NO_ID;
+        }
+        Long id = listData.get(position).getId();
+        return id != null ? id : RecyclerView.NO_ID;
     }
 
-    public View getView(int position, View convertView, ViewGroup parent) {
-        final ReleaseListHolder holder;
-        if (convertView == null) {
-            convertView = layoutInflater.inflate(R.layout.release_list_row,
-                    parent, false);
-            holder = new ReleaseListHolder(convertView);
-            // Store holder in view
-            convertView.setTag(holder);
-        } else {
-            // Extract holder from existing view
-            holder = (ReleaseListHolder) convertView.getTag();
+    @Override
+    public ReleaseListHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        if (thumbnailSize == 0) {
+            thumbnailSize = parent.getResources().getDimensionPixelSize(
+                    R.dimen.release_list_thumbnail_size);
+        }
+        return new ReleaseListHolder(layoutInflater.inflate(
+                R.layout.release_list_row, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(ReleaseListHolder holder, int position) {
+        if (hasMore && onLoadMoreListener != null
+                && position >= getItemCount() - LOAD_MORE_THRESHOLD) {
+            // Request only once per page
+            hasMore = false;
+            onLoadMoreListener.onLoadMore();
+        }
+        if (cursor != null) {
+            bindCursorRow(holder, position);
+            return;
         }
         Release release = listData.get(position);
-        if (release == null) {
-            holder.artistView.get().setText(
-                    listData.get(position).getArtistName());
-            return convertView;
-        }
-        holder.releaseNameView.get().setText(release.getReleaseName());
-        holder.artistView.get().setText(release.getArtistName());
-        Date releaseDate = release.getReleaseDate();
+        holder.releaseNameView.setText(release.getReleaseName());
+        holder.artistView.setText(release.getArtistName());
+        setReleaseDate(holder, release.getReleaseDate());
+        displayArtwork(holder, position, release.getId(),
+                release.getMusicBrainzId());
+    }
+
+    /**
+     * Binds the views of a row directly to the columns of {@link #cursor},
+     * without creating a {@link Release}.
+     */
+    private void bindCursorRow(ReleaseListHolder holder, int position) {
+        if (!cursor.moveToPosition(position)) {
+            return;
+        }
+        holder.releaseNameView.setText(cursor.getReleaseName());
+        holder.artistView.setText(cursor.getArtistName());
+        setReleaseDate(holder, cursor.getReleaseDate());
+        displayArtwork(holder, position, cursor.getId(),
+                cursor.getMusicBrainzId());
+    }
+
+    /**
+     * Displays the release date of a row or nothing, if it is unknown.
+     */
+    private void setReleaseDate(ReleaseListHolder holder, Date releaseDate) {
         if (releaseDate != null) {
-            holder.releaseDateView.get().setText(
-                    dateFormatHolder.get().format(releaseDate));
+            holder.releaseDateView.setText(dateFormatHolder.get().format(
+                    releaseDate));
         } else {
-            holder.releaseDateView.get().setText("");
+            holder.releaseDateView.setText("");
         }
+    }
+
+    /**
+     * Displays the artwork of a row asynchronously. The thumbnails are never
+     * wider than {@link ArtworkType#SMALL}, which is downloaded for
+     * each release. If it is missing, reports the release to the
+     * {@link #onArtworkMissingListener}.
+     */
+    private void displayArtwork(ReleaseListHolder holder, int position,
+            Long releaseId, String musicBrainzId) {
         try {
-            imageLoader.displayImage(
-                    artworkDao.findUriByRelease(release, ArtworkType.SMALL),
-                    holder.thumbnailView.get(), IMAGE_LOADER_OPTIONS);
+            String uri = ImageUtil.findArtworkUri(artworkDao, musicBrainzId,
+                    thumbnailSize);
+            imageLoader.displayImage(uri, holder.thumbnailView,
+                    IMAGE_LOADER_OPTIONS);
+            if (uri == null && musicBrainzId != null && releaseId != null
+                    && onArtworkMissingListener != null
+                    && artworkMissingReported.add(releaseId)) {
+                Release release = getItem(position);
+                if (release != null) {
+                    onArtworkMissingListener.onArtworkMissing(release);
+                }
+            }
         } catch (DatabaseException e) {
-            LOG.warn("Unable to load artwork for release " + release, e);
-            holder.thumbnailView.get().setImageResource(DEFAULT_ARTWORK);
+            LOG.warn("Unable to load artwork for release " + releaseId, e);
+            holder.thumbnailView.setImageResource(DEFAULT_ARTWORK);
         }
-        return convertView;
     }
 
-    public void show(List<Release> listData) {
-        this.listData = listData;
+    /**
+     * Displays the rows of a cursor instead of a list. The adapter does not
+     * close the cursor, this is up to the caller (e.g. the loader that
+     * created it).<br/>
+     * <br/>
+     * There is no diff for cursors, but as the item IDs are stable, the
+     * {@link RecyclerView} still animates the rows that were added or removed.
+     * 
+     * @param cursor
+     *            <code>null</code> displays nothing
+     * @return the cursor that was displayed before or <code>null</code>
+     */
+    public ReleaseCursor swapCursor(ReleaseCursor cursor) {
+        ReleaseCursor oldCursor = this.cursor;
+        this.cursor = cursor;
+        listData = Collections.emptyList();
+        listGeneration++;
+        hasMore = false;
         notifyDataSetChanged();
+        return oldCursor;
     }
 
-    public class ReleaseListHolder {
-        WeakReference<TextView> releaseNameView;
-        WeakReference<TextView> artistView;
-        WeakReference<TextView> releaseDateView;
-        WeakReference<ImageView> thumbnailView;
+    public void show(List<Release> listData) {
+        show(listData, false);
+    }
 
-        public ReleaseListHolder(View view) {
-            releaseNameView = new WeakReference<TextView>(
-                    (TextView) (TextView) view
-                            .findViewById(R.id.releaseListRowReleaseName));
-            artistView = new WeakReference<TextView>(
-                    (TextView) (TextView) view
-                            .findViewById(R.id.releaseListRowArtistName));
-            releaseDateView = new WeakReference<TextView>(
-                    (TextView) view
-                            .findViewById(R.id.releaseListRowReleaseDate));
-            thumbnailView = new WeakReference<ImageView>(
-                    (ImageView) view.findViewById(R.id.releaseListRowThumbnail));
+    /**
+     * Displays releases. The rows that changed compared to the releases
+     * displayed before are calculated in the background and updated
+     * afterwards.<br/>
+     * <br/>
+     * <b>Don't modify the list after passing it here!</b>
+     * 
+     * @param listData
+     * @param hasMore
+     *            <code>true</code> if there are more releases to load. The
+     *            {@link OnLoadMoreListener} is then called when the end of the
+     *            list is reached.
+     */
+    public void show(List<Release> listData, final boolean hasMore) {
+        final List<Release> newList = listData != null ? listData : Collections
+                .<Release> emptyList();
+        final int generation = ++listGeneration;
+        if (cursor != null || this.listData.isEmpty() || newList.isEmpty()) {
+            // Nothing to compare
+            cursor = null;
+            this.listData = newList;
+            this.hasMore = hasMore;
+            notifyDataSetChanged();
+            return;
         }
+
+        final List<Release> oldList = this.listData;
+        new AsyncTask<Void, Void, DiffUtil.DiffResult>() {
+            @Override
+            protected DiffUtil.DiffResult doInBackground(Void... params) {
+                return DiffUtil.calculateDiff(new ReleaseDiffCallback(oldList,
+                        newList));
+            }
+
+            @Override
+            protected void onPostExecute(DiffUtil.DiffResult diffResult) {
+                if (generation != listGeneration) {
+                    // Another list was shown meanwhile
+                    return;
+                }
+                ReleaseListAdapter.this.listData = newList;
+                ReleaseListAdapter.this.hasMore = hasMore;
+                diffResult.dispatchUpdatesTo(ReleaseListAdapter.this);
+            }
+        }.execute();
+    }
+
+    public void setOnLoadMoreListener(OnLoadMoreListener onLoadMoreListener) {
+        this.onLoadMoreListener = onLoadMoreListener;
+    }
+
+    public void setOnItemClickListener(OnItemClickListener onItemClickListener) {
+        this.onItemClickListener = onItemClickListener;
+    }
+
+    public void setOnArtworkMissingListener(
+            OnArtworkMissingListener onArtworkMissingListener) {
+        this.onArtworkMissingListener = onArtworkMissingListener;
     }
 
     public ImageLoader getImageLoader() {
         return imageLoader;
     }
 
-}
\ No newline at end of file
+    /**
+     * Callback that is invoked when the end of the list is about to be
+     * displayed and there are more releases to load.
+     */
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
+
+    /**
+     * Callback that is invoked when a row is clicked.
+     */
+    public interface OnItemClickListener {
+        void onItemClick(int position);
+    }
+
+    /**
+     * Callback that is invoked when a row is displayed without artwork, at
+     * most once per release.
+     */
+    public interface OnArtworkMissingListener {
+        void onArtworkMissing(Release release);
+    }
+
+    public class ReleaseListHolder extends RecyclerView.ViewHolder implements
+            View.OnClickListener {
+        final TextView releaseNameView;
+        final TextView artistView;
+        final TextView releaseDateView;
+        final ImageView thumbnailView;
+
+        public ReleaseListHolder(View view) {
+            super(view);
+            releaseNameView = (TextView) view
+                    .findViewById(R.id.releaseListRowReleaseName);
+            artistView = (TextView) view
+                    .findViewById(R.id.releaseListRowArtistName);
+            releaseDateView = (TextView) view
+                    .findViewById(R.id.releaseListRowReleaseDate);
+            thumbnailView = (ImageView) view
+                    .findViewById(R.id.releaseListRowThumbnail);
+            view.setOnClickListener(this);
+            view.setLongClickable(true);
+        }
+
+        @Override
+        public void onClick(View v) {
+            int position = getAdapterPosition();
+            if (onItemClickListener != null
+                    && position != RecyclerView.NO_POSITION) {
+                onItemClickListener.onItemClick(position);
+            }
+        }
+    }
+
+    /**
+     * Compares releases by {@link Release#getId()} and by the values that are
+     * displayed in a row.
+     */
+    private static class ReleaseDiffCallback extends DiffUtil.Callback {
+        private final List<Release> oldList;
+        private final List<Release> newList;
+
+        public ReleaseDiffCallback(List<Release> oldList, List<Release> newList) {
+            this.oldList = oldList;
+            this.newList = newList;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            Long oldId = oldList.get(oldItemPosition).getId();
+            return oldId != null
+                    && oldId.equals(newList.get(newItemPosition).getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition,
+                int newItemPosition) {
+            Release oldRelease = oldList.get(oldItemPosition);
+            Release newRelease = newList.get(newItemPosition);
+            return equals(oldRelease.getReleaseName(),
+                    newRelease.getReleaseName())
+                    && equals(oldRelease.getArtistName(),
+                            newRelease.getArtistName())
+                    && equals(oldRelease.getReleaseDate(),
+                            newRelease.getReleaseDate())
+                    && equals(oldRelease.getMusicBrainzId(),
+                            newRelease.getMusicBrainzId());
+        }
+
+        private static boolean equals(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
@@ -21,6 +21,7 @@
  */
 package info.schnatterer.nusic.android.application;
 
+import info.schnatterer.nusic.android.util.ImageUtil;
 import info.schnatterer.nusic.android.util.ResourceUtil;
 
 import java.io.InputStream;
@@ -28,15 +29,12 @@ import java.io.InputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import android.annotation.TargetApi;
 import android.app.Application;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager.NameNotFoundException;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.os.Build;
 
 /**
  * Extended version of {@link Application} that contains a version number
@@ -217,31 +215,10 @@ public abstract class AbstractApplication extends Application {
         AbstractApplication.lastVersionCode = lastVersionCode;
     }
 
+    /**
+     * @see ImageUtil#createScaledBitmap(InputStream, android.content.Context)
+     */
     public Bitmap createScaledBitmap(InputStream inputStream) {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-            return createScaledBitmapLegacy(inputStream);
-        } else {
-            return createScaledBitmapModern(inputStream);
-        }
-    }
-
-    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
-    private Bitmap createScaledBitmapModern(InputStream inputStream) {
-        Bitmap artwork = null;
-        artwork = Bitmap.createScaledBitmap(
-                BitmapFactory.decodeStream(inputStream),
-                (int) this.getResources().getDimension(
-                        android.R.dimen.notification_large_icon_width),
-                (int) this.getResources().getDimension(
-                        android.R.dimen.notification_large_icon_height), false);
-        return artwork;
-    }
-
-    private Bitmap createScaledBitmapLegacy(InputStream inputStream) {
-        /*
-         * As we don't know the size of the notification icon bellow API lvl 11,
-         * theses devices will just use the standard icon.
-         */
-        return null;
+        return ImageUtil.createScaledBitmap(inputStream, this);
     }
 }
\ No newline at end of file
@@ -24,6 +24,8 @@ package info.schnatterer.nusic.android.application;
 import info.schnatterer.logbackandroidutils.Logs;
 import info.schnatterer.nusic.Constants;
 import info.schnatterer.nusic.android.service.ReleasedTodayService.ReleasedTodayServiceScheduler;
+import info.schnatterer.nusic.android.util.ArtworkImageDownloader;
+import info.schnatterer.nusic.android.util.BitmapCache;
 import info.schnatterer.nusic.core.PreferencesService;
 import roboguice.RoboGuice;
 import android.content.SharedPreferences;
@@ -57,7 +59,11 @@ public class NusicApplication extends AbstractApplication {
          * configuration
          */
         ImageLoaderConfiguration config = new ImageLoaderConfiguration.Builder(
-                getApplicationContext()).memoryCacheSize(2 * 1024 * 1024)
+                getApplicationContext())
+                // Shared with the notifications
+                .memoryCache(BitmapCache.getInstance())
+                .imageDownloader(
+                        new ArtworkImageDownloader(getApplicationContext()))
                 .build();
         ImageLoader.getInstance().init(config);
 
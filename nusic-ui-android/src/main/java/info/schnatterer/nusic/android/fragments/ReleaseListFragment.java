@@ -24,16 +24,26 @@ package info.schnatterer.nusic.android.fragments;
 import info.schnatterer.nusic.Constants.Loaders;
 import info.schnatterer.nusic.android.activities.NusicWebViewActivity;
 import info.schnatterer.nusic.android.adapters.ReleaseListAdapter;
+import info.schnatterer.nusic.android.adapters.ReleaseListAdapter.OnArtworkMissingListener;
+import info.schnatterer.nusic.android.adapters.ReleaseListAdapter.OnItemClickListener;
+import info.schnatterer.nusic.android.adapters.ReleaseListAdapter.OnLoadMoreListener;
+import info.schnatterer.nusic.android.listeners.PauseOnFlingScrollListener;
 import info.schnatterer.nusic.android.loaders.AsyncResult;
+import info.schnatterer.nusic.android.loaders.ReleaseCursorLoader;
 import info.schnatterer.nusic.android.loaders.ReleaseLoader;
 import info.schnatterer.nusic.android.util.Toast;
+import info.schnatterer.nusic.android.views.ContextMenuRecyclerView;
+import info.schnatterer.nusic.android.views.ContextMenuRecyclerView.RecyclerContextMenuInfo;
 import info.schnatterer.nusic.core.ArtistService;
+import info.schnatterer.nusic.core.PendingArtworkService;
 import info.schnatterer.nusic.core.ReleaseService;
 import info.schnatterer.nusic.core.ServiceException;
 import info.schnatterer.nusic.data.model.Artist;
 import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
 import info.schnatterer.nusic.ui.R;
 
+import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -44,9 +54,11 @@ import org.slf4j.LoggerFactory;
 
 import roboguice.fragment.RoboFragment;
 import android.content.Intent;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v4.app.LoaderManager;
 import android.support.v4.content.Loader;
+import android.support.v7.widget.LinearLayoutManager;
 import android.view.ContextMenu;
 import android.view.ContextMenu.ContextMenuInfo;
 import android.view.LayoutInflater;
@@ -54,15 +66,9 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView;
-import android.widget.AdapterView.AdapterContextMenuInfo;
-import android.widget.AdapterView.OnItemClickListener;
-import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
-import com.nostra13.universalimageloader.core.listener.PauseOnScrollListener;
-
 /**
  * Fragment that loads a list of releases from the local database and displays
  * it.
@@ -72,6 +78,9 @@ import com.nostra13.universalimageloader.core.listener.PauseOnScrollListener;
  *
  * <ul>
  * <li>{@value #EXTRA_LOADER_ID} the ID of the underlying loader</li>
+ * <li>{@value #EXTRA_CURSOR_BACKED} <code>true</code> displays the releases
+ * directly from a {@link ReleaseCursor} instead of loading them page by page
+ * </li>
  * </ul>
  *
  * @author schnatterer
@@ -85,13 +94,20 @@ public class ReleaseListFragment extends RoboFragment {
      * See {@link #loaderId}.
      */
     public static final String EXTRA_LOADER_ID = "nusic.intent.releaseList.loaderId";
+    /**
+     * Key to the creating intent's extras that decides whether the releases
+     * are displayed using a {@link ReleaseCursorLoader} or a
+     * {@link ReleaseLoader}.
+     */
+    public static final String EXTRA_CURSOR_BACKED = "nusic.intent.releaseList.cursorBacked";
 
     /** The loader that is connected to the data displayed in the fragment. */
     private int loaderId = -1;
+    private boolean cursorBacked = false;
 
     @Inject
     private ReleaseListAdapter releasesListViewAdapter;
-    ListView releasesListView;
+    ContextMenuRecyclerView releasesListView;
     private TextView releasesTextViewNoneFound;
     /** Progress animation when loading releases from db */
     private ProgressBar progressBar;
@@ -100,7 +116,11 @@ public class ReleaseListFragment extends RoboFragment {
     @Inject
     private ArtistService artistService;
     @Inject
+    private PendingArtworkService pendingArtworkService;
+    @Inject
     private Provider<ReleaseLoader> releaseLoaderProvider;
+    @Inject
+    private Provider<ReleaseCursorLoader> releaseCursorLoaderProvider;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -114,6 +134,7 @@ public class ReleaseListFragment extends RoboFragment {
         try {
 
             loaderId = getArguments().getInt(EXTRA_LOADER_ID);
+            cursorBacked = getArguments().getBoolean(EXTRA_CURSOR_BACKED);
 
         } catch (Exception e) {
             LOG.warn(
@@ -121,7 +142,7 @@ public class ReleaseListFragment extends RoboFragment {
                     e);
         }
 
-        releasesListView = (ListView) getView().findViewById(
+        releasesListView = (ContextMenuRecyclerView) getView().findViewById(
                 R.id.releasesListView);
         releasesTextViewNoneFound = (TextView) getView().findViewById(
                 R.id.releasesTextViewNoneFound);
@@ -133,25 +154,50 @@ public class ReleaseListFragment extends RoboFragment {
         releasesTextViewNoneFound.setVisibility(View.GONE);
 
         registerForContextMenu(releasesListView);
-        releasesListView.setOnItemClickListener(new OnItemClickListener() {
+        releasesListViewAdapter.setOnItemClickListener(new OnItemClickListener() {
             @Override
-            public void onItemClick(AdapterView<?> a, View v, int position,
-                    long id) {
-                Release release = (Release) releasesListView
-                        .getItemAtPosition(position);
+            public void onItemClick(int position) {
+                Release release = releasesListViewAdapter.getItem(position);
+                if (release == null) {
+                    return;
+                }
                 startActivity(new Intent(getActivity(), NusicWebViewActivity.class)
                     .putExtra(NusicWebViewActivity.EXTRA_URL, release.getMusicBrainzUri())
                     .putExtra(NusicWebViewActivity.EXTRA_SUBJECT, createNewReleaseText(release)));
             }
         });
+        releasesListViewAdapter
+                .setOnArtworkMissingListener(new OnArtworkMissingListener() {
+                    @Override
+                    public void onArtworkMissing(Release release) {
+                        requeueArtwork(release);
+                    }
+                });
+        releasesListViewAdapter.setOnLoadMoreListener(new OnLoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                Loader<AsyncResult<List<Release>>> loader = getActivity()
+                        .getSupportLoaderManager().getLoader(loaderId);
+                if (loader != null) {
+                    ((ReleaseLoader) loader).loadNextPage();
+                }
+            }
+        });
+        releasesListView.setLayoutManager(new LinearLayoutManager(
+                getActivity()));
         releasesListView.setAdapter(releasesListViewAdapter);
-        releasesListView.setOnScrollListener(new PauseOnScrollListener(
-                releasesListViewAdapter.getImageLoader(), false, true));
+        releasesListView.addOnScrollListener(new PauseOnFlingScrollListener(
+                releasesListViewAdapter.getImageLoader()));
 
         displayLoading();
         // Load releases from local db
-        getActivity().getSupportLoaderManager().initLoader(loaderId, null,
-                new ReleaseLoaderCallbacks());
+        if (cursorBacked) {
+            getActivity().getSupportLoaderManager().initLoader(loaderId, null,
+                    new ReleaseCursorLoaderCallbacks());
+        } else {
+            getActivity().getSupportLoaderManager().initLoader(loaderId, null,
+                    new ReleaseLoaderCallbacks());
+        }
     }
 
     @Override
@@ -159,8 +205,11 @@ public class ReleaseListFragment extends RoboFragment {
             ContextMenuInfo menuInfo) {
         super.onCreateContextMenu(menu, v, menuInfo);
         MenuInflater inflater = getActivity().getMenuInflater();
-        AdapterView.AdapterContextMenuInfo info = (AdapterContextMenuInfo) menuInfo;
-        Release release = (Release) releasesListView.getItemAtPosition(info.position);
+        RecyclerContextMenuInfo info = (RecyclerContextMenuInfo) menuInfo;
+        Release release = releasesListViewAdapter.getItem(info.position);
+        if (release == null) {
+            return;
+        }
         menu.setHeaderTitle(createNewReleaseText(release));
 
         inflater.inflate(R.menu.release_list_menu, menu);
@@ -170,10 +219,12 @@ public class ReleaseListFragment extends RoboFragment {
     public boolean onContextItemSelected(MenuItem item) {
         // If this callback was invoked on the visible fragment instance
         if (getUserVisibleHint()) {
-            AdapterContextMenuInfo info = (AdapterContextMenuInfo) item
+            RecyclerContextMenuInfo info = (RecyclerContextMenuInfo) item
                     .getMenuInfo();
-            Release release = (Release) releasesListView
-                    .getItemAtPosition(info.position);
+            Release release = releasesListViewAdapter.getItem(info.position);
+            if (release == null) {
+                return super.onContextItemSelected(item);
+            }
             try {
                 if (item.getItemId() == R.id.releaseListMenuHideRelease) {
                     displayLoading();
@@ -183,7 +234,7 @@ public class ReleaseListFragment extends RoboFragment {
                 } else if (item.getItemId() == R.id.releaseListMenuHideAllByArtist) {
                     Artist artist = release.getArtist();
                     artist.setHidden(true);
-                    artistService.update(artist);
+                    artistService.updateIsHidden(artist);
                     getActivity().onContentChanged();
                 } else {
                     return super.onContextItemSelected(item);
@@ -202,6 +253,10 @@ public class ReleaseListFragment extends RoboFragment {
         releasesListViewAdapter.show(result);
     }
 
+    protected void setReleases(List<Release> result, boolean hasMore) {
+        releasesListViewAdapter.show(result, hasMore);
+    }
+
     /**
      * Shows the loading animation.
      */
@@ -215,10 +270,63 @@ public class ReleaseListFragment extends RoboFragment {
         });
     }
 
+    /**
+     * Adds the artwork of a release to the queue of pending artwork in the
+     * background. Artwork that was evicted from the artwork cache is
+     * downloaded again with the next sync this way, but only if the release
+     * is still displayed.
+     */
+    private void requeueArtwork(final Release release) {
+        new AsyncTask<Void, Void, Void>() {
+            @Override
+            protected Void doInBackground(Void... params) {
+                try {
+                    pendingArtworkService.addPendingArtwork(Collections
+                            .singletonList(release));
+                } catch (ServiceException e) {
+                    LOG.debug("Unable to queue missing artwork: " + release, e);
+                }
+                return null;
+            }
+        }.execute();
+    }
+
     private String createNewReleaseText(Release release) {
         return release.getArtist().getArtistName() + " - " + release.getReleaseName();
     }
 
+    /**
+     * Hides the loading animation and displays a text if there is an error or
+     * no releases.
+     *
+     * @return <code>true</code> if there are releases to display
+     */
+    private boolean displayResult(AsyncResult<?> result, boolean isEmpty,
+            int loaderId) {
+        progressBar.setVisibility(View.GONE);
+
+        if (result.getException() != null) {
+            releasesTextViewNoneFound.setVisibility(View.VISIBLE);
+            releasesTextViewNoneFound
+                    .setText(R.string.MainActivity_errorLoadingReleases);
+            return false;
+        }
+        if (isEmpty) {
+            // Set the empty text
+            releasesTextViewNoneFound.setVisibility(View.VISIBLE);
+            if (loaderId == Loaders.RELEASE_LOADER_JUST_ADDED) {
+                releasesTextViewNoneFound
+                        .setText(R.string.MainActivity_noNewReleasesFound);
+            } else {
+                releasesTextViewNoneFound
+                        .setText(R.string.MainActivity_noReleasesFound);
+            }
+            return false;
+        }
+        releasesTextViewNoneFound.setVisibility(View.GONE);
+        return true;
+    }
+
     /**
      * Handles callbacks from the loader manager for {@link ReleaseListFragment}
      * .
@@ -244,29 +352,12 @@ public class ReleaseListFragment extends RoboFragment {
         @Override
         public void onLoadFinished(Loader<AsyncResult<List<Release>>> loader,
                 AsyncResult<List<Release>> result) {
-            progressBar.setVisibility(View.GONE);
-
-            if (result.getException() != null) {
-                releasesTextViewNoneFound.setVisibility(View.VISIBLE);
-                releasesTextViewNoneFound
-                        .setText(R.string.MainActivity_errorLoadingReleases);
+            if (!displayResult(result, result.getData() == null
+                    || result.getData().isEmpty(), loaderId)) {
                 return;
             }
-            if (result.getData() == null
-                    || (result.getData() != null && result.getData().isEmpty())) {
-                // Set the empty text
-                releasesTextViewNoneFound.setVisibility(View.VISIBLE);
-                if (loaderId == Loaders.RELEASE_LOADER_JUST_ADDED) {
-                    releasesTextViewNoneFound
-                            .setText(R.string.MainActivity_noNewReleasesFound);
-                } else {
-                    releasesTextViewNoneFound
-                            .setText(R.string.MainActivity_noReleasesFound);
-                }
-                return;
-            }
-            releasesTextViewNoneFound.setVisibility(View.GONE);
-            setReleases(result.getData());
+            setReleases(result.getData(),
+                    ((ReleaseLoader) loader).hasMorePages());
         }
 
         @Override
@@ -274,4 +365,45 @@ public class ReleaseListFragment extends RoboFragment {
             setReleases(null);
         }
     }
+
+    /**
+     * Handles callbacks from the loader manager for {@link ReleaseListFragment}
+     * s that are backed by a {@link ReleaseCursor}.
+     *
+     * @author schnatterer
+     *
+     */
+    private class ReleaseCursorLoaderCallbacks implements
+            LoaderManager.LoaderCallbacks<AsyncResult<ReleaseCursor>> {
+
+        private int loaderId;
+
+        @Override
+        public Loader<AsyncResult<ReleaseCursor>> onCreateLoader(int id,
+                Bundle args) {
+            loaderId = id;
+            ReleaseCursorLoader releaseLoader = releaseCursorLoaderProvider
+                    .get();
+            releaseLoader.setLoaderId(loaderId);
+            return releaseLoader;
+        }
+
+        @Override
+        public void onLoadFinished(Loader<AsyncResult<ReleaseCursor>> loader,
+                AsyncResult<ReleaseCursor> result) {
+            ReleaseCursor cursor = result.getData();
+            if (!displayResult(result,
+                    cursor == null || cursor.getCount() == 0, loaderId)) {
+                // Don't keep displaying a cursor the loader is about to close
+                releasesListViewAdapter.swapCursor(null);
+                return;
+            }
+            releasesListViewAdapter.swapCursor(cursor);
+        }
+
+        @Override
+        public void onLoaderReset(Loader<AsyncResult<ReleaseCursor>> result) {
+            releasesListViewAdapter.swapCursor(null);
+        }
+    }
 }
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.android.listeners;
+
+import android.support.v7.widget.RecyclerView;
+
+import com.nostra13.universalimageloader.core.ImageLoader;
+
+/**
+ * Pauses loading images while a {@link RecyclerView} is flung, like
+ * {@link com.nostra13.universalimageloader.core.listener.PauseOnScrollListener}
+ * does for {@link android.widget.AbsListView}s.
+ * 
+ * @author schnatterer
+ *
+ */
+public class PauseOnFlingScrollListener extends RecyclerView.OnScrollListener {
+    private final ImageLoader imageLoader;
+
+    public PauseOnFlingScrollListener(ImageLoader imageLoader) {
+        this.imageLoader = imageLoader;
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        switch (newState) {
+        case RecyclerView.SCROLL_STATE_SETTLING:
+            imageLoader.pause();
+            break;
+        default:
+            imageLoader.resume();
+            break;
+        }
+    }
+}
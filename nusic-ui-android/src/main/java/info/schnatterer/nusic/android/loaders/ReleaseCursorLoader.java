@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.android.loaders;
+
+import info.schnatterer.nusic.Constants.Loaders;
+import info.schnatterer.nusic.core.ReleaseService;
+import info.schnatterer.nusic.data.model.Release;
+import info.schnatterer.nusic.data.model.ReleaseCursor;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import android.content.Context;
+
+/**
+ * Creates an {@link android.content.AsyncTaskLoader} that queries a
+ * {@link ReleaseCursor}, instead of creating all {@link Release}s like
+ * {@link ReleaseLoader}. The query can be defined via {@link #setLoaderId(int)}
+ * .<br/>
+ * <br/>
+ * Like {@link android.support.v4.content.CursorLoader}, the loader owns the
+ * cursors: It closes the previous cursor once a new one is delivered (e.g.
+ * after {@link #onContentChanged()}) and the current one when it is reset.
+ * 
+ * @author schnatterer
+ *
+ */
+public class ReleaseCursorLoader extends
+        AbstractAsyncSqliteLoader<ReleaseCursor, Release> {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(ReleaseCursorLoader.class);
+
+    @Inject
+    private ReleaseService releaseService;
+    private int loaderId = Loaders.RELEASE_LOADER_ALL;
+
+    /** The result that was delivered last. */
+    private AsyncResult<ReleaseCursor> result;
+
+    @Inject
+    public ReleaseCursorLoader(Context context) {
+        super(context);
+    }
+
+    @Override
+    public ReleaseCursor doLoadInBackground() throws Exception {
+        switch (loaderId) {
+        case Loaders.RELEASE_LOADER_ALL:
+            return releaseService.queryAllNotHidden();
+        case Loaders.RELEASE_LOADER_JUST_ADDED:
+            return releaseService.queryJustCreated();
+        case Loaders.RELEASE_LOADER_ANNOUNCED: {
+            return releaseService.queryAvailableToday(false);
+        }
+        case Loaders.RELEASE_LOADER_AVAILABLE: {
+            return releaseService.queryAvailableToday(true);
+        }
+        default:
+            LOG.warn("Requested loader ID is not a defined release loader: "
+                    + loaderId + ". Returning loader that loads all releases");
+            return releaseService.queryAllNotHidden();
+        }
+    }
+
+    @Override
+    public void deliverResult(AsyncResult<ReleaseCursor> data) {
+        if (isReset()) {
+            // a query came in while the loader is stopped
+            close(data);
+            return;
+        }
+        AsyncResult<ReleaseCursor> oldResult = result;
+        result = data;
+
+        super.deliverResult(data);
+
+        if (oldResult != null && oldResult != data) {
+            close(oldResult);
+        }
+    }
+
+    @Override
+    public void onCanceled(AsyncResult<ReleaseCursor> data) {
+        super.onCanceled(data);
+        close(data);
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        close(result);
+        result = null;
+    }
+
+    public void setLoaderId(int loaderId) {
+        this.loaderId = loaderId;
+    }
+
+    private static void close(AsyncResult<ReleaseCursor> result) {
+        if (result != null && result.getData() != null) {
+            result.getData().close();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import info.schnatterer.nusic.Constants.Loaders;
 import info.schnatterer.nusic.core.ReleaseService;
 import info.schnatterer.nusic.data.model.Release;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -37,7 +38,12 @@ import android.content.Context;
 /**
  * Creates an {@link android.content.AsyncTaskLoader} for {@link Release}s. The
  * method called in {@link #doLoadInBackground()} can be defined via
- * {@link #setLoaderId(int)}.
+ * {@link #setLoaderId(int)}.<br/>
+ * <br/>
+ * The releases are loaded page by page. The first load only queries
+ * {@link #PAGE_SIZE} releases, more are appended by {@link #loadNextPage()}.
+ * Reloads (e.g. on content changes) query as many releases as were loaded
+ * before.
  * 
  * @author schnatterer
  *
@@ -51,6 +57,14 @@ public class ReleaseLoader extends
     private ReleaseService releaseService;
     private int loaderId = Loaders.RELEASE_LOADER_ALL;
 
+    /** Number of releases queried per page. */
+    public static final int PAGE_SIZE = 50;
+
+    /** The releases loaded so far. */
+    private volatile List<Release> releases;
+    private volatile boolean hasMorePages = true;
+    private volatile boolean nextPageRequested = false;
+
     @Inject
     public ReleaseLoader(Context context) {
         super(context);
@@ -58,24 +72,85 @@ public class ReleaseLoader extends
 
     @Override
     public List<Release> doLoadInBackground() throws Exception {
+        List<Release> loadedReleases = releases;
+        if (nextPageRequested && loadedReleases != null
+                && !loadedReleases.isEmpty()) {
+            nextPageRequested = false;
+            List<Release> page = findPage(
+                    loadedReleases.get(loadedReleases.size() - 1), PAGE_SIZE);
+            hasMorePages = page.size() == PAGE_SIZE;
+            List<Release> newReleases = new ArrayList<Release>(
+                    loadedReleases.size() + page.size());
+            newReleases.addAll(loadedReleases);
+            newReleases.addAll(page);
+            releases = newReleases;
+        } else {
+            nextPageRequested = false;
+            int limit = PAGE_SIZE;
+            if (loadedReleases != null && loadedReleases.size() > limit) {
+                limit = loadedReleases.size();
+            }
+            List<Release> page = findPage(null, limit);
+            hasMorePages = page.size() == limit;
+            releases = page;
+        }
+        return releases;
+    }
+
+    private List<Release> findPage(Release after, int limit)
+            throws Exception {
         switch (loaderId) {
         case Loaders.RELEASE_LOADER_ALL:
-            return releaseService.findAllNotHidden();
+            return releaseService.findAllNotHidden(after, limit);
         case Loaders.RELEASE_LOADER_JUST_ADDED:
-            return releaseService.findJustCreated();
+            return releaseService.findJustCreated(after, limit);
         case Loaders.RELEASE_LOADER_ANNOUNCED: {
-            return releaseService.findAvailableToday(false);
+            return releaseService.findAvailableToday(false, after, limit);
         }
         case Loaders.RELEASE_LOADER_AVAILABLE: {
-            return releaseService.findAvailableToday(true);
+            return releaseService.findAvailableToday(true, after, limit);
         }
         default:
             LOG.warn("Requested loader ID is not a defined release loader: "
                     + loaderId + ". Returning loader that loads all releases");
-            return releaseService.findAllNotHidden();
+            return releaseService.findAllNotHidden(after, limit);
+        }
+    }
+
+    /**
+     * Appends the next page to the releases loaded so far. Does nothing if
+     * there are no more pages or if the next page is already being loaded.
+     */
+    public void loadNextPage() {
+        if (hasMorePages && !nextPageRequested) {
+            nextPageRequested = true;
+            forceLoad();
         }
     }
 
+    /**
+     * @return <code>true</code> if the last load returned a full page, i.e.
+     *         there might be more releases to load
+     */
+    public boolean hasMorePages() {
+        return hasMorePages;
+    }
+
+    @Override
+    public void onContentChanged() {
+        // Reload instead of appending to outdated releases
+        nextPageRequested = false;
+        super.onContentChanged();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        releases = null;
+        hasMorePages = true;
+        nextPageRequested = false;
+    }
+
     public void setLoaderId(int loaderId) {
         this.loaderId = loaderId;
     }
@@ -29,17 +29,17 @@ import info.schnatterer.nusic.android.util.Notification.NotificationId;
 import info.schnatterer.nusic.core.ConnectivityService;
 import info.schnatterer.nusic.core.PreferencesService;
 import info.schnatterer.nusic.core.ReleaseService;
+import info.schnatterer.nusic.core.RemoteMusicDatabaseService;
 import info.schnatterer.nusic.core.ServiceException;
 import info.schnatterer.nusic.core.SyncReleasesService;
 import info.schnatterer.nusic.core.event.ArtistProgressListener;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.dao.ArtworkDao;
-import info.schnatterer.nusic.data.dao.ArtworkDao.ArtworkType;
 import info.schnatterer.nusic.data.model.Artist;
+import info.schnatterer.nusic.data.model.ArtworkType;
 import info.schnatterer.nusic.data.model.Release;
 import info.schnatterer.nusic.ui.R;
 
-import java.io.InputStream;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
@@ -95,6 +95,8 @@ public class LoadNewReleasesService extends WakefulService {
     private LoadNewReleasesServiceScheduler loadNewReleasesServiceScheduler;
     @Inject
     private ArtworkDao artworkDao;
+    @Inject
+    private RemoteMusicDatabaseService remoteMusicDatabaseService;
 
     // private int totalArtists = 0;
     private ProgressListenerNotifications progressListenerNotifications = new ProgressListenerNotifications();
@@ -116,9 +118,11 @@ public class LoadNewReleasesService extends WakefulService {
         boolean refreshing = true;
 
         if (intent == null) {
-            // When START_STICKY the intent will be null on "restart" after
-            // getting killed
-            // TODO RESUME download instead of starting new?
+            /*
+             * When START_STICKY the intent will be null on "restart" after
+             * getting killed. SyncReleasesService resumes the interrupted sync
+             * from its checkpoint.
+             */
             LOG.debug("Services restarted after being destroyed while workerThread was running.");
             refreshReleases(false, null);
         } else if (intent.getBooleanExtra(EXTRA_REFRESH_ON_START, false)) {
@@ -209,6 +213,12 @@ public class LoadNewReleasesService extends WakefulService {
                             .addArtistProcessedListener(progressListenerNotifications);
 
                     long beforeRefresh = System.currentTimeMillis();
+                    Date interruptedRefresh = preferencesService
+                            .getSyncCheckpointRunDate();
+                    if (interruptedRefresh != null) {
+                        // Include releases found before the interruption
+                        beforeRefresh = interruptedRefresh.getTime();
+                    }
 
                     LOG.debug("Service thread: Calling refreshReleases()");
                     syncReleasesService.syncReleases();
@@ -338,20 +348,20 @@ public class LoadNewReleasesService extends WakefulService {
      * <br/>
      * <br/>
      * Future calls overwrite any previous instances of this notification still
-     * on display.
+     * on display.<br/>
+     * <br/>
+     * If the notification icon is larger than {@link ArtworkType#SMALL}, the
+     * better fitting artwork is downloaded first. It is also used by the
+     * notification on the day of the release.
      *
      * @param release
      *
      */
     private void notifyNewReleases(Release release) {
+        downloadNotificationArtwork(release);
         try {
-            Bitmap scaledBitmap = null;
-            InputStream artworkStream = artworkDao.findStreamByRelease(release,
-                    ArtworkType.SMALL);
-            if (artworkStream != null) {
-                scaledBitmap = ImageUtil
-                        .createScaledBitmap(artworkStream, this);
-            }
+            Bitmap scaledBitmap = ImageUtil.createScaledBitmap(artworkDao,
+                    release, this);
             Notification.notify(
                     this,
                     NotificationId.NEW_RELEASE,
@@ -367,6 +377,24 @@ public class LoadNewReleasesService extends WakefulService {
         }
     }
 
+    /**
+     * Downloads the artwork that fits the notification icon best, unless it is
+     * {@link ArtworkType#SMALL}, which is downloaded for each release anyway.
+     * Called from the worker thread, as it accesses the network.
+     */
+    private void downloadNotificationArtwork(Release release) {
+        ArtworkType type = ImageUtil.selectNotificationArtworkType(this);
+        if (type == ArtworkType.SMALL || release.getMusicBrainzId() == null) {
+            return;
+        }
+        try {
+            remoteMusicDatabaseService.downloadArtwork(release, type);
+        } catch (ServiceException e) {
+            LOG.debug("Unable to download artwork for notification, using "
+                    + ArtworkType.SMALL + ". " + release, e);
+        }
+    }
+
     /**
      * Puts out a notification informing about multiple releases that were just
      * found<br/>
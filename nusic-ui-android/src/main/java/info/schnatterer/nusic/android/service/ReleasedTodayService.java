@@ -31,7 +31,6 @@ import info.schnatterer.nusic.core.ReleaseService;
 import info.schnatterer.nusic.core.ServiceException;
 import info.schnatterer.nusic.data.DatabaseException;
 import info.schnatterer.nusic.data.dao.ArtworkDao;
-import info.schnatterer.nusic.data.dao.ArtworkDao.ArtworkType;
 import info.schnatterer.nusic.data.model.Release;
 import info.schnatterer.nusic.ui.R;
 
@@ -119,8 +118,7 @@ public class ReleasedTodayService extends RoboService {
     private void notifyReleaseToday(Release release) {
         try {
             Bitmap createScaledBitmap = ImageUtil.createScaledBitmap(
-                    artworkDao.findStreamByRelease(release, ArtworkType.SMALL),
-                    this);
+                    artworkDao, release, this);
             Notification.notify(
                     this,
                     NotificationId.RELEASED_TODAY,
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.android.util;
+
+import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.dao.ArtworkDao;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import roboguice.RoboGuice;
+import android.content.Context;
+
+import com.nostra13.universalimageloader.core.ImageLoader;
+import com.nostra13.universalimageloader.core.download.BaseImageDownloader;
+
+/**
+ * Lets the {@link ImageLoader} read artwork URIs of the
+ * {@link ArtworkDao#SCHEME_ARTWORK} scheme via the {@link ArtworkDao}. All
+ * other URIs are handled by the {@link BaseImageDownloader}.
+ * 
+ * @author schnatterer
+ *
+ */
+public class ArtworkImageDownloader extends BaseImageDownloader {
+    /**
+     * Lazily, as the image loader is created before RoboGuice is set up.
+     */
+    private ArtworkDao artworkDao;
+
+    public ArtworkImageDownloader(Context context) {
+        super(context);
+    }
+
+    @Override
+    protected InputStream getStreamFromOtherSource(String imageUri,
+            Object extra) throws IOException {
+        if (!imageUri.startsWith(ArtworkDao.SCHEME_ARTWORK)) {
+            return super.getStreamFromOtherSource(imageUri, extra);
+        }
+        try {
+            InputStream artwork = getArtworkDao().findStreamByUri(imageUri);
+            if (artwork == null) {
+                throw new FileNotFoundException(imageUri);
+            }
+            return artwork;
+        } catch (DatabaseException e) {
+            throw new IOException("Unable to read artwork " + imageUri, e);
+        }
+    }
+
+    private ArtworkDao getArtworkDao() {
+        if (artworkDao == null) {
+            artworkDao = RoboGuice.getInjector(context).getInstance(
+                    ArtworkDao.class);
+        }
+        return artworkDao;
+    }
+}
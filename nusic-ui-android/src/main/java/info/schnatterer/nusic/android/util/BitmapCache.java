@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.android.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import android.graphics.Bitmap;
+import android.support.v4.util.LruCache;
+
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.core.ImageLoader;
+
+/**
+ * Least recently used cache of decoded bitmaps, limited by the size of the
+ * bitmaps in bytes. There is one instance for the whole app, which is used as
+ * memory cache by the {@link ImageLoader} (i.e. the release lists) and by
+ * {@link ImageUtil} (i.e. the notifications).
+ * 
+ * @author schnatterer
+ *
+ */
+public class BitmapCache implements MemoryCache {
+    private static final int MIN_BYTES = 2 * 1024 * 1024;
+    private static final BitmapCache INSTANCE = new BitmapCache(Math.max(
+            MIN_BYTES, (int) (Runtime.getRuntime().maxMemory() / 16)));
+
+    private final LruCache<String, Bitmap> cache;
+
+    BitmapCache(int maxBytes) {
+        cache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+    }
+
+    public static BitmapCache getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean put(String key, Bitmap value) {
+        cache.put(key, value);
+        return true;
+    }
+
+    @Override
+    public Bitmap get(String key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public Bitmap remove(String key) {
+        return cache.remove(key);
+    }
+
+    @Override
+    public Collection<String> keys() {
+        return new ArrayList<String>(cache.snapshot().keySet());
+    }
+
+    @Override
+    public void clear() {
+        cache.evictAll();
+    }
+}
@@ -21,8 +21,15 @@
  */
 package info.schnatterer.nusic.android.util;
 
+import info.schnatterer.nusic.data.DatabaseException;
+import info.schnatterer.nusic.data.dao.ArtworkDao;
+import info.schnatterer.nusic.data.model.ArtworkType;
+import info.schnatterer.nusic.data.model.Release;
+
+import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,10 +41,90 @@ import android.os.Build;
 
 public class ImageUtil {
     private static final Logger LOG = LoggerFactory.getLogger(ImageUtil.class);
+    /** Width of {@link ArtworkType#SMALL} in px. */
+    private static final int WIDTH_SMALL = 250;
 
     private ImageUtil() {
     }
 
+    /**
+     * @return {@link ArtworkType#SMALL} if it is at least <code>sizePx</code>
+     *         wide, {@link ArtworkType#LARGE} otherwise. This way, artwork is
+     *         neither blurry nor larger than necessary on the current screen
+     *         density.
+     */
+    public static ArtworkType selectArtworkType(int sizePx) {
+        if (sizePx <= WIDTH_SMALL) {
+            return ArtworkType.SMALL;
+        }
+        return ArtworkType.LARGE;
+    }
+
+    /**
+     * @return the {@link ArtworkType} that fits a notification icon on the
+     *         current screen best. {@link ArtworkType#SMALL} if the icon is
+     *         not known.
+     */
+    public static ArtworkType selectNotificationArtworkType(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            return ArtworkType.SMALL;
+        }
+        return selectArtworkType(Math.max(getNotificationIconWidth(context),
+                getNotificationIconHeight(context)));
+    }
+
+    /**
+     * Finds the URI of the artwork that fits an image of <code>sizePx</code>
+     * best (see {@link #selectArtworkType(int)}). As only
+     * {@link ArtworkType#SMALL} is downloaded for each release, falls back to
+     * it if the better fitting artwork has not been downloaded (yet).
+     * 
+     * @return an URI string to artwork data or <code>null</code> if there is
+     *         none
+     */
+    public static String findArtworkUri(ArtworkDao artworkDao,
+            String musicBrainzId, int sizePx) throws DatabaseException {
+        String uri = null;
+        ArtworkType type = selectArtworkType(sizePx);
+        if (type != ArtworkType.SMALL) {
+            uri = artworkDao.findUriByMusicBrainzId(musicBrainzId, type);
+        }
+        if (uri == null) {
+            uri = artworkDao.findUriByMusicBrainzId(musicBrainzId,
+                    ArtworkType.SMALL);
+        }
+        return uri;
+    }
+
+    /**
+     * Loads the artwork of a release scaled to the size of a notification
+     * icon. The result is kept in the {@link BitmapCache}, so notifying about
+     * the same release again does not decode the artwork again.
+     * 
+     * @return the scaled artwork or <code>null</code> if there is none
+     */
+    public static Bitmap createScaledBitmap(ArtworkDao artworkDao,
+            Release release, Context context) throws DatabaseException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB
+                || release.getMusicBrainzId() == null) {
+            return null;
+        }
+        int width = getNotificationIconWidth(context);
+        int height = getNotificationIconHeight(context);
+        String key = release.getMusicBrainzId() + "_" + width + "x" + height;
+        Bitmap artwork = BitmapCache.getInstance().get(key);
+        if (artwork == null) {
+            artwork = decodeScaledBitmap(artworkDao
+                    .findStreamByUri(findArtworkUri(artworkDao,
+                            release.getMusicBrainzId(),
+                            Math.max(width, height))), width, height);
+            if (artwork != null) {
+                BitmapCache.getInstance().put(key, artwork);
+            }
+        }
+        return artwork;
+    }
+
     public static Bitmap createScaledBitmap(InputStream inputStream,
             Context context) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
@@ -50,19 +137,9 @@ public class ImageUtil {
     @TargetApi(Build.VERSION_CODES.HONEYCOMB)
     private static Bitmap createScaledBitmapModern(InputStream inputStream,
             Context context) {
-        Bitmap artwork = BitmapFactory.decodeStream(inputStream);
-        if (artwork != null) {
-            artwork = Bitmap.createScaledBitmap(
-                    artwork,
-                    (int) context.getResources().getDimension(
-                            android.R.dimen.notification_large_icon_width),
-                    (int) context.getResources().getDimension(
-                            android.R.dimen.notification_large_icon_height),
-                    false);
-        } else {
-            LOG.debug("Unable to read bitmap from stream. Stream null?");
-        }
-        return artwork;
+        return decodeScaledBitmap(inputStream,
+                getNotificationIconWidth(context),
+                getNotificationIconHeight(context));
     }
 
     private static Bitmap createScaledBitmapLegacy(InputStream inputStream,
@@ -71,6 +148,84 @@ public class ImageUtil {
          * As we don't know the size of the notification icon bellow API lvl 11,
          * theses devices will just use the standard icon.
          */
+        IOUtils.closeQuietly(inputStream);
         return null;
     }
+
+    /**
+     * Decodes a bitmap with the size of <code>width</code> and
+     * <code>height</code>. Reads the bounds first and subsamples large
+     * images, so the full-size image is never allocated. Closes the stream.
+     * 
+     * @return the bitmap or <code>null</code> if the stream is
+     *         <code>null</code> or can't be decoded
+     */
+    static Bitmap decodeScaledBitmap(InputStream inputStream, int width,
+            int height) {
+        if (inputStream == null) {
+            return null;
+        }
+        // The stream can't be read twice, but artwork is small
+        byte[] data;
+        try {
+            data = IOUtils.toByteArray(inputStream);
+        } catch (IOException e) {
+            LOG.debug("Unable to read bitmap from stream", e);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            LOG.debug("Unable to read bitmap from stream. No image?");
+            return null;
+        }
+        options.inSampleSize = calculateInSampleSize(options.outWidth,
+                options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length,
+                options);
+        if (bitmap == null) {
+            LOG.debug("Unable to decode bitmap");
+            return null;
+        }
+        if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+            return bitmap;
+        }
+        // Subsampling only reduces by powers of two, scale the rest
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, false);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    /**
+     * @return the largest power of two that keeps the image at least as large
+     *         as <code>width</code> and <code>height</code>
+     */
+    static int calculateInSampleSize(int imageWidth, int imageHeight,
+            int width, int height) {
+        int inSampleSize = 1;
+        while (imageWidth / (inSampleSize * 2) >= width
+                && imageHeight / (inSampleSize * 2) >= height) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private static int getNotificationIconWidth(Context context) {
+        return (int) context.getResources().getDimension(
+                android.R.dimen.notification_large_icon_width);
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private static int getNotificationIconHeight(Context context) {
+        return (int) context.getResources().getDimension(
+                android.R.dimen.notification_large_icon_height);
+    }
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.android.views;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.ContextMenu.ContextMenuInfo;
+import android.view.View;
+
+/**
+ * {@link RecyclerView} that provides the position and ID of the row whose
+ * context menu is created, like {@link android.widget.AbsListView} does via
+ * {@link android.widget.AdapterView.AdapterContextMenuInfo}.<br/>
+ * <br/>
+ * Register it via <code>registerForContextMenu()</code> and make the rows long
+ * clickable.
+ * 
+ * @author schnatterer
+ *
+ */
+public class ContextMenuRecyclerView extends RecyclerView {
+
+    private RecyclerContextMenuInfo contextMenuInfo;
+
+    public ContextMenuRecyclerView(Context context) {
+        super(context);
+    }
+
+    public ContextMenuRecyclerView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public ContextMenuRecyclerView(Context context, AttributeSet attrs,
+            int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    @Override
+    protected ContextMenuInfo getContextMenuInfo() {
+        return contextMenuInfo;
+    }
+
+    @Override
+    public boolean showContextMenuForChild(View originalView) {
+        int position = getChildAdapterPosition(originalView);
+        if (position == NO_POSITION) {
+            return false;
+        }
+        contextMenuInfo = new RecyclerContextMenuInfo(position,
+                getChildItemId(originalView));
+        return super.showContextMenuForChild(originalView);
+    }
+
+    /**
+     * Identifies the row whose context menu is created.
+     */
+    public static class RecyclerContextMenuInfo implements ContextMenuInfo {
+        public final int position;
+        public final long id;
+
+        public RecyclerContextMenuInfo(int position, long id) {
+            this.position = position;
+            this.id = id;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.util.TimeZone;
 
 public final class DateUtil {
     public static final int MILLIS_TO_MINUTES = 60000;
+    public static final long MILLIS_PER_DAY = 24L * 60 * MILLIS_TO_MINUTES;
 
     private DateUtil() {
     }
@@ -94,15 +95,51 @@ public final class DateUtil {
         return cal.getTimeInMillis();
     }
 
+    /**
+     * Converts a timestamp to the number of days since 1970-01-01 (UTC). Uses
+     * floor division, so timestamps before the epoch end up on the day they
+     * actually belong to.
+     * 
+     * @param millisUtc
+     * @return the epoch day of <code>millisUtc</code>
+     */
+    public static int toEpochDay(long millisUtc) {
+        long day = millisUtc / MILLIS_PER_DAY;
+        if (millisUtc % MILLIS_PER_DAY < 0) {
+            day--;
+        }
+        return (int) day;
+    }
+
+    /**
+     * @param date
+     * @return the epoch day of <code>date</code> or <code>null</code> if
+     *         <code>date</code> is <code>null</code>
+     * @see #toEpochDay(long)
+     */
+    public static Integer toEpochDay(Date date) {
+        if (date != null) {
+            return toEpochDay(date.getTime());
+        }
+        return null;
+    }
+
+    /**
+     * @return the epoch day of the local date. Same day as
+     *         {@link #midnightUtc(Calendar)} for the current time, but computed
+     *         without allocating a {@link Calendar}.
+     */
+    public static int todayEpochDay() {
+        long now = System.currentTimeMillis();
+        return toEpochDay(now + TimeZone.getDefault().getOffset(now));
+    }
+
     /**
      * @return the timestamp for tomorrow's date at midnight in UTC.
      * @see #midnightUtc(Calendar)
      */
     public static long tomorrowMidnightUtc() {
-        // Get timestamp for tomorrow midnight.
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.DAY_OF_YEAR, 1);
-        return midnightUtc(cal);
+        return (todayEpochDay() + 1) * MILLIS_PER_DAY;
     }
 
     /**
@@ -110,6 +147,6 @@ public final class DateUtil {
      * @see #midnightUtc(Calendar)
      */
     public static long todayMidnightUtc() {
-        return midnightUtc(Calendar.getInstance());
+        return todayEpochDay() * MILLIS_PER_DAY;
     }
 }
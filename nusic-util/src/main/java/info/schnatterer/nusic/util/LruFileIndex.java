@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the size and the last access of each file in a cache
+ * directory, so lookups can be answered without accessing the file system and
+ * the least recently used files can be evicted once the files exceed their
+ * budget.<br/>
+ * <br/>
+ * The index is built from a single scan of the directory and kept in memory
+ * afterwards. The scan runs in the background, as it is usually started when
+ * the cache is injected, which might be on the main thread. Until it finished,
+ * lookups fall back to the file system. The last access is persisted as
+ * modification date of the file, at most once per
+ * {@link #PERSIST_ACCESS_INTERVAL_MILLIS}, so the order survives restarts of
+ * the app without writing on each access.
+ * 
+ * @author schnatterer
+ *
+ */
+public class LruFileIndex {
+    public static final long PERSIST_ACCESS_INTERVAL_MILLIS = TimeUnit.DAYS
+            .toMillis(1);
+
+    /** Least recently used first. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(
+            16, 0.75f, true);
+    private long totalBytes = 0;
+    /** The directory scanned, <code>null</code> if not initialized. */
+    private File dir = null;
+    private boolean scanned = false;
+    /** Files removed before the scan finished, which must not be indexed. */
+    private final Set<String> removedDuringScan = new HashSet<String>();
+
+    /**
+     * Starts scanning <code>dir</code> in the background, unless the index has
+     * been initialized before.
+     * 
+     * @param dir
+     *            the directory containing the cached files
+     */
+    public synchronized void init(File dir) {
+        if (this.dir != null) {
+            return;
+        }
+        this.dir = dir;
+        Thread scanThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                scan();
+            }
+        }, getClass().getSimpleName());
+        scanThread.setPriority(Thread.MIN_PRIORITY);
+        scanThread.start();
+    }
+
+    /**
+     * Indexes the files of the directory. Each file is accessed once before
+     * sorting, so the sort does not access the file system. Files put into the
+     * index meanwhile are more recent than all files found.
+     */
+    private void scan() {
+        List<Entry> found = new ArrayList<Entry>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile()) {
+                    found.add(new Entry(file.getName(), file.length(), file
+                            .lastModified()));
+                }
+            }
+        }
+        Collections.sort(found, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry lhs, Entry rhs) {
+                return lhs.lastAccess < rhs.lastAccess ? -1
+                        : (lhs.lastAccess == rhs.lastAccess ? 0 : 1);
+            }
+        });
+
+        synchronized (this) {
+            List<Entry> putDuringScan = new ArrayList<Entry>(entries.values());
+            entries.clear();
+            totalBytes = 0;
+            for (Entry entry : found) {
+                if (!removedDuringScan.contains(entry.fileName)) {
+                    add(entry);
+                }
+            }
+            for (Entry entry : putDuringScan) {
+                add(entry);
+            }
+            removedDuringScan.clear();
+            scanned = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the file is indexed. Does not count as
+     *         access. Until the scan finished, checks the file system for
+     *         files not put into the index.
+     */
+    public synchronized boolean contains(String fileName) {
+        if (entries.containsKey(fileName)) {
+            return true;
+        }
+        return dir != null && !scanned
+                && !removedDuringScan.contains(fileName)
+                && new File(dir, fileName).isFile();
+    }
+
+    /**
+     * Marks a file as most recently used.
+     * 
+     * @return <code>true</code> if the access should be persisted, i.e. the
+     *         modification date of the file should be set to <code>now</code>
+     */
+    public synchronized boolean touch(String fileName, long now) {
+        Entry entry = entries.get(fileName);
+        if (entry == null
+                || now - entry.lastAccess < PERSIST_ACCESS_INTERVAL_MILLIS) {
+            return false;
+        }
+        entry.lastAccess = now;
+        return true;
+    }
+
+    /**
+     * Adds a file as most recently used and removes the least recently used
+     * files from the index until all files fit into <code>maxBytes</code>.
+     * Never removes the file just added. Until the scan finished, only the
+     * files put so far are evicted.
+     * 
+     * @return the names of the files removed from the index. The caller is
+     *         responsible for deleting them.
+     */
+    public synchronized List<String> put(String fileName, long size, long now,
+            long maxBytes) {
+        add(new Entry(fileName, size, now));
+        List<String> evicted = new ArrayList<String>();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet()
+                .iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getKey().equals(fileName)) {
+                continue;
+            }
+            totalBytes -= eldest.getValue().size;
+            evicted.add(eldest.getKey());
+            it.remove();
+        }
+        return evicted;
+    }
+
+    /**
+     * Removes a file from the index.
+     */
+    public synchronized void remove(String fileName) {
+        Entry entry = entries.remove(fileName);
+        if (entry != null) {
+            totalBytes -= entry.size;
+        }
+        if (dir != null && !scanned) {
+            removedDuringScan.add(fileName);
+        }
+    }
+
+    /**
+     * Waits for the scan to finish, so don't call this on the main thread.
+     * 
+     * @return a snapshot of the names of all indexed files
+     */
+    public synchronized List<String> getFileNames() {
+        awaitScan();
+        return new ArrayList<String>(entries.keySet());
+    }
+
+    /**
+     * @return the size of all indexed files
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void add(Entry entry) {
+        Entry existing = entries.remove(entry.fileName);
+        if (existing != null) {
+            totalBytes -= existing.size;
+        }
+        entries.put(entry.fileName, entry);
+        totalBytes += entry.size;
+    }
+
+    private void awaitScan() {
+        boolean interrupted = false;
+        while (dir != null && !scanned) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Entry {
+        private final String fileName;
+        private final long size;
+        private long lastAccess;
+
+        public Entry(String fileName, long size, long lastAccess) {
+            this.fileName = fileName;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
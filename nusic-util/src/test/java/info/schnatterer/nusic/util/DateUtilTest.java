@@ -75,4 +75,25 @@ public final class DateUtilTest {
         assertEquals("Unexpected date returned", expected, actual);
         // Don't return 2014-07-23T00:00:00Z
     }
+
+    @Test
+    public void testToEpochDay() {
+        // 2014-07-22T00:00:00Z
+        assertEquals(16273, DateUtil.toEpochDay(1405987200000l));
+        // 2014-07-22T23:59:59.999Z
+        assertEquals(16273, DateUtil.toEpochDay(1405987200000l
+                + DateUtil.MILLIS_PER_DAY - 1));
+        // 1969-12-31T23:59:59.999Z
+        assertEquals(-1, DateUtil.toEpochDay(-1));
+        assertEquals(-1, DateUtil.toEpochDay(-DateUtil.MILLIS_PER_DAY));
+    }
+
+    @Test
+    public void testTodayMidnightUtc() {
+        long expected = DateUtil.midnightUtc(Calendar.getInstance());
+        long actual = DateUtil.todayMidnightUtc();
+        assertEquals("Unexpected date returned", expected, actual);
+        assertEquals(expected / DateUtil.MILLIS_PER_DAY,
+                DateUtil.todayEpochDay());
+    }
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2013 Johannes Schnatterer
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This file is part of nusic.
+ *
+ * nusic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * nusic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with nusic.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.schnatterer.nusic.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LruFileIndexTest {
+    private static final long NOW = 1405987200000l;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LruFileIndex index = new LruFileIndex();
+
+    @Test
+    public void testInitOrdersByLastModified() throws Exception {
+        createFile("new_S", 10, NOW);
+        createFile("old_S", 20, NOW - 1000);
+        index.init(folder.getRoot());
+
+        assertEquals(Arrays.asList("old_S", "new_S"), index.getFileNames());
+        assertEquals(30, index.getTotalBytes());
+        assertTrue(index.contains("old_S"));
+    }
+
+    @Test
+    public void testInitKeepsFilesPutBeforeScanMostRecent() throws Exception {
+        createFile("scanned_S", 10, NOW);
+        index.put("put_S", 20, NOW - 1000, 100);
+        index.init(folder.getRoot());
+
+        assertEquals(Arrays.asList("scanned_S", "put_S"),
+                index.getFileNames());
+        assertEquals(30, index.getTotalBytes());
+    }
+
+    @Test
+    public void testPutEvictsLeastRecentlyUsed() {
+        index.put("a_S", 10, NOW, 100);
+        index.put("b_S", 10, NOW, 100);
+        index.put("c_S", 10, NOW, 100);
+        index.touch("a_S", NOW);
+
+        assertEquals(Collections.singletonList("b_S"),
+                index.put("d_S", 10, NOW, 30));
+        assertEquals(Arrays.asList("c_S", "a_S", "d_S"),
+                index.getFileNames());
+        assertEquals(30, index.getTotalBytes());
+    }
+
+    @Test
+    public void testPutNeverEvictsNewFile() {
+        index.put("a_S", 10, NOW, 100);
+
+        assertEquals(Collections.singletonList("a_S"),
+                index.put("b_S", 50, NOW, 20));
+        assertTrue(index.contains("b_S"));
+        assertEquals(50, index.getTotalBytes());
+    }
+
+    @Test
+    public void testTouchPersistsOncePerInterval() {
+        index.put("a_S", 10, NOW, 100);
+
+        assertFalse(index.touch("a_S", NOW + 1));
+        assertTrue(index.touch("a_S", NOW
+                + LruFileIndex.PERSIST_ACCESS_INTERVAL_MILLIS));
+        assertFalse(index.touch("unknown_S", NOW));
+    }
+
+    private void createFile(String name, int size, long lastModified)
+            throws Exception {
+        File file = folder.newFile(name);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[size]);
+        } finally {
+            out.close();
+        }
+        assertTrue(file.setLastModified(lastModified));
+    }
+}